@@ -0,0 +1,232 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Function;
+
+/**
+ * A {@link Flow.Processor} validating a stream of raw GTINs, publishing the valid ones as
+ * {@link Gtin}s to its subscribers and the invalid input to the subscribers of
+ * {@link #rejects()}.
+ * <p>
+ * Input is collected into batches which are validated by one task each on the given executor,
+ * such as a virtual thread per task executor on Java 21 or later. Batches are validated one
+ * at a time in the order they arrived. Two batches are requested from upstream up front, so the
+ * next batch fills while one is validated, and another batch is only requested once a batch has
+ * been published. Publishing blocks while a subscriber has a full buffer, so a slow subscriber
+ * of either output slows down the upstream. Output which has no subscriber is dropped.
+ *
+ * @param <T> the type of the raw GTINs.
+ */
+public final class GtinValidationProcessor<T> implements Flow.Processor<T, Gtin> {
+
+    /**
+     * The number of GTINs validated by one task, unless specified otherwise.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final Function<? super T, Gtin> parser;
+    private final Executor executor;
+    private final int batchSize;
+    private final SubmissionPublisher<Gtin> valid;
+    private final SubmissionPublisher<T> rejects;
+    private Flow.Subscription subscription;
+    private List<T> batch;
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+    private GtinValidationProcessor(final Function<? super T, Gtin> parser, final Executor executor,
+            final int batchSize, final int bufferCapacity) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        if (batchSize <= 0 || bufferCapacity <= 0) {
+            throw new IllegalArgumentException("Batch size " + batchSize + " and buffer capacity "
+                    + bufferCapacity + " must be positive");
+        }
+        this.parser = parser;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        valid = new SubmissionPublisher<>(executor, bufferCapacity);
+        rejects = new SubmissionPublisher<>(executor, bufferCapacity);
+        batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Creates a processor of GTIN strings with {@link #DEFAULT_BATCH_SIZE} GTINs per batch.
+     *
+     * @param executor the executor validating batches and delivering output to subscribers.
+     * @return the processor.
+     */
+    public static GtinValidationProcessor<CharSequence> forStrings(final Executor executor) {
+        return forStrings(executor, DEFAULT_BATCH_SIZE, Flow.defaultBufferSize());
+    }
+
+    /**
+     * Creates a processor of GTIN strings.
+     *
+     * @param executor the executor validating batches and delivering output to subscribers.
+     * @param batchSize the number of GTINs validated by one task.
+     * @param bufferCapacity the maximum number of GTINs buffered for each subscriber.
+     * @return the processor.
+     */
+    public static GtinValidationProcessor<CharSequence> forStrings(final Executor executor, final int batchSize,
+            final int bufferCapacity) {
+        return new GtinValidationProcessor<>(Gtin::tryCreate, executor, batchSize, bufferCapacity);
+    }
+
+    /**
+     * Creates a processor of GTINs held as ASCII bytes with {@link #DEFAULT_BATCH_SIZE} GTINs
+     * per batch, see {@link #forBuffers(Executor, int, int)}.
+     *
+     * @param executor the executor validating batches and delivering output to subscribers.
+     * @return the processor.
+     */
+    public static GtinValidationProcessor<ByteBuffer> forBuffers(final Executor executor) {
+        return forBuffers(executor, DEFAULT_BATCH_SIZE, Flow.defaultBufferSize());
+    }
+
+    /**
+     * Creates a processor of GTINs held as ASCII bytes between the position and the limit of
+     * buffers, such as slices of a network buffer. Only valid GTINs are decoded.
+     *
+     * @param executor the executor validating batches and delivering output to subscribers.
+     * @param batchSize the number of GTINs validated by one task.
+     * @param bufferCapacity the maximum number of GTINs buffered for each subscriber.
+     * @return the processor.
+     */
+    public static GtinValidationProcessor<ByteBuffer> forBuffers(final Executor executor, final int batchSize,
+            final int bufferCapacity) {
+        return new GtinValidationProcessor<>(GtinValidationProcessor::parse, executor, batchSize, bufferCapacity);
+    }
+
+    private static Gtin parse(final ByteBuffer gtin) {
+        if (!Gtin.isValid(gtin, gtin.position(), gtin.remaining())) {
+            return null;
+        }
+        return Gtin.create(StandardCharsets.US_ASCII.decode(gtin.duplicate()).toString());
+    }
+
+    /**
+     * @return the publisher of the input which is not a valid GTIN.
+     */
+    public Flow.Publisher<T> rejects() {
+        return rejects;
+    }
+
+    /**
+     * Subscribes to the valid GTINs.
+     *
+     * @param subscriber the subscriber.
+     */
+    @Override
+    public void subscribe(final Flow.Subscriber<? super Gtin> subscriber) {
+        valid.subscribe(subscriber);
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription upstream) {
+        if (subscription != null) {
+            upstream.cancel();
+            return;
+        }
+        subscription = upstream;
+        upstream.request(2L * batchSize);
+    }
+
+    @Override
+    public void onNext(final T item) {
+        if (item == null) {
+            throw new NullPointerException("item is null");
+        }
+        batch.add(item);
+        if (batch.size() == batchSize) {
+            List<T> full = takeBatch();
+            schedule(() -> publishAndRequest(full));
+        }
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        List<T> rest = takeBatch();
+        schedule(() -> publishAndClose(rest, throwable));
+    }
+
+    @Override
+    public void onComplete() {
+        List<T> rest = takeBatch();
+        schedule(() -> publishAndClose(rest, null));
+    }
+
+    private List<T> takeBatch() {
+        List<T> taken = batch;
+        batch = new ArrayList<>(batchSize);
+        return taken;
+    }
+
+    /**
+     * Runs the task after all tasks scheduled before it, failing both outputs if it throws.
+     */
+    private void schedule(final Runnable task) {
+        tail = tail.thenRunAsync(task, executor).whenComplete(this::failOnError);
+    }
+
+    private void failOnError(final Void result, final Throwable throwable) {
+        if (throwable != null) {
+            subscription.cancel();
+            valid.closeExceptionally(throwable);
+            rejects.closeExceptionally(throwable);
+        }
+    }
+
+    private void publishAndRequest(final List<T> items) {
+        publish(items);
+        subscription.request(batchSize);
+    }
+
+    /**
+     * Publishes the last items and closes both outputs, exceptionally if the upstream failed.
+     */
+    private void publishAndClose(final List<T> items, final Throwable throwable) {
+        publish(items);
+        if (throwable == null) {
+            valid.close();
+            rejects.close();
+        } else {
+            valid.closeExceptionally(throwable);
+            rejects.closeExceptionally(throwable);
+        }
+    }
+
+    private void publish(final List<T> items) {
+        for (T item : items) {
+            Gtin gtin = parser.apply(item);
+            if (gtin != null) {
+                valid.submit(gtin);
+            } else {
+                rejects.submit(item);
+            }
+        }
+    }
+
+}
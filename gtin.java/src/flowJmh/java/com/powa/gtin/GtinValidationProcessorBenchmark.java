@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to push 100000 GTIN-13s, one in ten with a bad checksum, through a
+ * {@link GtinValidationProcessor} to a subscriber, reported as percentiles of the sampled times.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class GtinValidationProcessorBenchmark {
+
+    private static final int GTINS = 100000;
+    private static final int BAD_CHECKSUM_EVERY = 10;
+
+    @Param({"16", "256", "4096"})
+    private int batchSize;
+
+    private String[] gtins;
+
+    /**
+     * Counts the valid GTINs, completing when the processor completes.
+     */
+    private static final class Counter implements Flow.Subscriber<Gtin> {
+
+        private final CompletableFuture<Long> done = new CompletableFuture<>();
+        private long count;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(final Gtin gtin) {
+            count++;
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(count);
+        }
+
+    }
+
+    @Setup
+    public void setUp() {
+        gtins = new String[GTINS];
+        for (int i = 0; i < GTINS; i++) {
+            String gtin = Gtin.withCheckDigit(String.format("4006381%05d", i));
+            if (i % BAD_CHECKSUM_EVERY == 0) {
+                gtin = gtin.substring(0, gtin.length() - 1) + (Gtin.calculateCheckDigit(gtin.substring(0, gtin.length() - 1)) + 1) % 10;
+            }
+            gtins[i] = gtin;
+        }
+    }
+
+    @Benchmark
+    public long validate() {
+        GtinValidationProcessor<CharSequence> processor = GtinValidationProcessor.forStrings(
+                ForkJoinPool.commonPool(), batchSize, Flow.defaultBufferSize());
+        Counter counter = new Counter();
+        processor.subscribe(counter);
+        try (SubmissionPublisher<CharSequence> upstream = new SubmissionPublisher<>()) {
+            upstream.subscribe(processor);
+            for (String gtin : gtins) {
+                upstream.submit(gtin);
+            }
+        }
+        return counter.done.join();
+    }
+
+}
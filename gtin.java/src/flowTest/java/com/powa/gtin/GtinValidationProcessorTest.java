@@ -0,0 +1,260 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GtinValidationProcessorTest {
+
+    private static final long TIMEOUT = 10;
+
+    /**
+     * Collects items, requesting a given number at a time.
+     */
+    private static final class Collector<T> implements Flow.Subscriber<T> {
+
+        private final List<T> items = Collections.synchronizedList(new ArrayList<T>());
+        private final CompletableFuture<List<T>> done = new CompletableFuture<>();
+        private final long demand;
+        private Flow.Subscription subscription;
+        private long pending;
+
+        Collector(final long demand) {
+            this.demand = demand;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription upstream) {
+            subscription = upstream;
+            pending = demand;
+            upstream.request(demand);
+        }
+
+        @Override
+        public void onNext(final T item) {
+            items.add(item);
+            if (--pending == 0) {
+                pending = demand;
+                subscription.request(demand);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(items);
+        }
+
+        List<T> await() throws Exception {
+            return done.get(TIMEOUT, TimeUnit.SECONDS);
+        }
+
+    }
+
+    private static List<String> gtins(final int count) {
+        List<String> gtins = TestGtins.strings(TestGtins.withPrefix("4006381", GtinFormat.GTIN_13, count));
+        for (int i = 0; i < count; i += 10) {
+            // Every tenth GTIN gets a wrong check digit
+            String gtin = gtins.get(i);
+            gtins.set(i, gtin.substring(0, 12) + (char) ('0' + (gtin.charAt(12) - '0' + 1) % 10));
+        }
+        return gtins;
+    }
+
+    @Test
+    public void processorShouldSplitValidGtinsAndRejects() throws Exception {
+        GtinValidationProcessor<CharSequence> processor = GtinValidationProcessor.forStrings(ForkJoinPool.commonPool());
+        Collector<Gtin> valid = new Collector<>(Long.MAX_VALUE);
+        Collector<CharSequence> rejects = new Collector<>(Long.MAX_VALUE);
+        processor.subscribe(valid);
+        processor.rejects().subscribe(rejects);
+        List<String> gtins = gtins(1000);
+
+        try (SubmissionPublisher<CharSequence> upstream = new SubmissionPublisher<>()) {
+            upstream.subscribe(processor);
+            for (String gtin : gtins) {
+                upstream.submit(gtin);
+            }
+        }
+
+        List<String> expectedValid = new ArrayList<>();
+        List<String> expectedRejects = new ArrayList<>();
+        for (String gtin : gtins) {
+            (Gtin.isValid(gtin) ? expectedValid : expectedRejects).add(gtin);
+        }
+        List<String> validStrings = new ArrayList<>();
+        for (Gtin gtin : valid.await()) {
+            validStrings.add(gtin.toString());
+        }
+        assertEquals(expectedValid, validStrings);
+        assertEquals(expectedRejects, rejects.await());
+        assertEquals(100, expectedRejects.size());
+    }
+
+    @Test
+    public void slowSubscriberShouldReceiveAllGtins() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            GtinValidationProcessor<CharSequence> processor = GtinValidationProcessor.forStrings(executor, 16, 4);
+            Collector<Gtin> valid = new Collector<>(1);
+            processor.subscribe(valid);
+
+            try (SubmissionPublisher<CharSequence> upstream = new SubmissionPublisher<>()) {
+                upstream.subscribe(processor);
+                for (String gtin : gtins(500)) {
+                    upstream.submit(gtin);
+                }
+            }
+
+            assertEquals(450, valid.await().size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void processorShouldRequestTwoBatchesAhead() throws Exception {
+        GtinValidationProcessor<CharSequence> processor = GtinValidationProcessor.forStrings(
+                ForkJoinPool.commonPool(), 8, 256);
+        AtomicLong requested = new AtomicLong();
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(final long n) {
+                requested.addAndGet(n);
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        Collector<Gtin> valid = new Collector<>(Long.MAX_VALUE);
+        processor.subscribe(valid);
+
+        assertEquals(16, requested.get());
+        for (String gtin : gtins(8)) {
+            processor.onNext(gtin);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+        while (requested.get() < 24 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(24, requested.get());
+        processor.onComplete();
+        assertEquals(7, valid.await().size());
+    }
+
+    @Test
+    public void bufferProcessorShouldDecodeValidGtins() throws Exception {
+        GtinValidationProcessor<ByteBuffer> processor = GtinValidationProcessor.forBuffers(ForkJoinPool.commonPool());
+        Collector<Gtin> valid = new Collector<>(Long.MAX_VALUE);
+        Collector<ByteBuffer> rejects = new Collector<>(Long.MAX_VALUE);
+        processor.subscribe(valid);
+        processor.rejects().subscribe(rejects);
+        ByteBuffer line = ByteBuffer.wrap("4006381333931,4006381333932".getBytes(StandardCharsets.US_ASCII));
+
+        try (SubmissionPublisher<ByteBuffer> upstream = new SubmissionPublisher<>()) {
+            upstream.subscribe(processor);
+            upstream.submit(((ByteBuffer) line.duplicate().limit(13)).slice());
+            upstream.submit(((ByteBuffer) line.duplicate().position(14)).slice());
+        }
+
+        assertEquals(Collections.singletonList(Gtin.create("4006381333931")), valid.await());
+        assertEquals(1, rejects.await().size());
+    }
+
+    @Test
+    public void upstreamErrorShouldFailSubscribers() throws Exception {
+        GtinValidationProcessor<CharSequence> processor = GtinValidationProcessor.forStrings(ForkJoinPool.commonPool());
+        Collector<Gtin> valid = new Collector<>(Long.MAX_VALUE);
+        processor.subscribe(valid);
+
+        try (SubmissionPublisher<CharSequence> upstream = new SubmissionPublisher<>()) {
+            upstream.subscribe(processor);
+            upstream.closeExceptionally(new IllegalStateException("source failed"));
+        }
+
+        try {
+            valid.await();
+        } catch (final java.util.concurrent.ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            return;
+        }
+        throw new AssertionError("Expected the subscriber to fail");
+    }
+
+    @Test
+    public void secondSubscriptionShouldBeCancelled() {
+        GtinValidationProcessor<CharSequence> processor = GtinValidationProcessor.forStrings(ForkJoinPool.commonPool());
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Flow.Subscription first = new Flow.Subscription() {
+            @Override
+            public void request(final long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        };
+
+        processor.onSubscribe(first);
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(final long n) {
+                throw new AssertionError("Second subscription must not be used");
+            }
+
+            @Override
+            public void cancel() {
+                cancelled.set(true);
+            }
+        });
+
+        assertTrue(cancelled.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroBatchSizeShouldThrowException() {
+        GtinValidationProcessor.forStrings(ForkJoinPool.commonPool(), 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullExecutorShouldThrowException() {
+        GtinValidationProcessor.forStrings(null);
+    }
+
+}
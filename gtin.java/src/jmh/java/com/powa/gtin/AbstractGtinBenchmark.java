@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the public static entry points of {@link Gtin}. The format specific variants
+ * such as {@link Gtin#isValid13(String)} only delegate to the methods taking a format and are
+ * not benchmarked separately.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+public abstract class AbstractGtinBenchmark {
+
+    @Benchmark
+    public boolean isValid(final GtinInputs inputs, final GtinCursor cursor) {
+        return Gtin.isValid(inputs.gtin(cursor.next()));
+    }
+
+    @Benchmark
+    public boolean isValidWithFormat(final GtinInputs inputs, final GtinCursor cursor) {
+        return Gtin.isValid(inputs.gtin(cursor.next()), inputs.format());
+    }
+
+    @Benchmark
+    public boolean isValidCharSequence(final GtinInputs inputs, final GtinCursor cursor) {
+        return Gtin.isValid(inputs.builder(cursor.next()));
+    }
+
+    @Benchmark
+    public boolean isValidBytes(final GtinInputs inputs, final GtinCursor cursor) {
+        byte[] gtin = inputs.bytes(cursor.next());
+        return Gtin.isValid(gtin, 0, gtin.length);
+    }
+
+    @Benchmark
+    public boolean isValidDirectBuffer(final GtinInputs inputs, final GtinCursor cursor) {
+        ByteBuffer gtin = inputs.directBuffer(cursor.next());
+        return Gtin.isValid(gtin, 0, gtin.limit());
+    }
+
+    @Benchmark
+    public boolean matchesFormat(final GtinInputs inputs, final GtinCursor cursor) {
+        return Gtin.matchesFormat(inputs.gtin(cursor.next()));
+    }
+
+    @Benchmark
+    public boolean matchesFormatWithFormat(final GtinInputs inputs, final GtinCursor cursor) {
+        return Gtin.matchesFormat(inputs.gtin(cursor.next()), inputs.format());
+    }
+
+    @Benchmark
+    public int calculateCheckDigit(final GtinInputs inputs, final GtinCursor cursor) {
+        try {
+            return Gtin.calculateCheckDigit(inputs.partialGtin(cursor.next()));
+        } catch (final GtinFormatException e) {
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public String withCheckDigit(final GtinInputs inputs, final GtinCursor cursor) {
+        try {
+            return Gtin.withCheckDigit(inputs.partialGtin(cursor.next()));
+        } catch (final GtinFormatException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Gtin create(final GtinInputs inputs, final GtinCursor cursor) {
+        try {
+            return Gtin.create(inputs.gtin(cursor.next()));
+        } catch (final GtinFormatException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Gtin tryCreate(final GtinInputs inputs, final GtinCursor cursor) {
+        return Gtin.tryCreate(inputs.gtin(cursor.next()));
+    }
+
+    @Benchmark
+    public GtinCheck check(final GtinInputs inputs, final GtinCursor cursor) {
+        return Gtin.check(inputs.gtin(cursor.next()));
+    }
+
+    @Benchmark
+    public Gtin createBytes(final GtinInputs inputs, final GtinCursor cursor) {
+        byte[] gtin = inputs.bytes(cursor.next());
+        try {
+            return Gtin.create(gtin, 0, gtin.length);
+        } catch (final GtinFormatException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Gtin createWithCheckDigit(final GtinInputs inputs, final GtinCursor cursor) {
+        try {
+            return Gtin.createWithCheckDigit(inputs.partialGtin(cursor.next()));
+        } catch (final GtinFormatException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to look up and insert 1024 random GTIN-13 strings in a {@link GtinBloomFilter} of ten
+ * million GTINs, 12 MB at a 1% false positive rate and so larger than the caches, with the
+ * standard and the blocked layout.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class GtinBloomFilterBenchmark {
+
+    private static final int GTINS = 1024;
+    private static final long FILTER_GTINS = 10000000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long SEED = 42;
+    private static final long ITEM_NUMBERS = 1000000000000L;
+
+    @Param({"STANDARD", "BLOCKED"})
+    private GtinBloomFilter.Layout layout;
+
+    private final String[] gtins = new String[GTINS];
+    private GtinBloomFilter filter;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        filter = GtinBloomFilter.onHeap(FILTER_GTINS, FALSE_POSITIVE_RATE, layout);
+        GtinRange.forPrefix("50", GtinFormat.GTIN_13).stream().limit(FILTER_GTINS).forEach(filter::put);
+        for (int i = 0; i < GTINS; i++) {
+            gtins[i] = Gtin.withCheckDigit(String.format("%012d", (long) (random.nextDouble() * ITEM_NUMBERS)));
+        }
+    }
+
+    @Benchmark
+    public int mightContain() {
+        int found = 0;
+        for (String gtin : gtins) {
+            if (filter.mightContain(gtin)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int put() {
+        int added = 0;
+        for (String gtin : gtins) {
+            if (filter.put(gtin)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to look up 1024 GTIN-13 strings, half of them members, in a {@link GtinCompactSet} and a
+ * {@link GtinSet} of random GTIN-13s, and to iterate over the first 1024 GTINs of the compact set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class GtinCompactSetBenchmark {
+
+    private static final int LOOKUPS = 1024;
+    private static final long SEED = 42;
+    private static final long ITEM_NUMBERS = 1000000000000L;
+    private static final int GTIN_13 = 2;
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    private final String[] lookups = new String[LOOKUPS];
+    private long[] members;
+    private GtinCompactSet compactSet;
+    private GtinSet gtinSet;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        members = new long[size];
+        gtinSet = new GtinSet(size);
+        for (int i = 0; i < size; i++) {
+            members[i] = randomGtin13(random);
+            gtinSet.add(members[i]);
+        }
+        compactSet = GtinCompactSet.of(members);
+        for (int i = 0; i < LOOKUPS; i++) {
+            long packed = i % 2 == 0 ? members[random.nextInt(size)] : randomGtin13(random);
+            lookups[i] = PackedGtin.toString(packed);
+        }
+    }
+
+    private static long randomGtin13(final Random random) {
+        long itemNumber = (long) (random.nextDouble() * ITEM_NUMBERS);
+        return GtinCompactSet.packed(itemNumber << 2 | GTIN_13);
+    }
+
+    @Benchmark
+    public int compactSetContains() {
+        int found = 0;
+        for (String gtin : lookups) {
+            if (compactSet.contains(gtin)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int gtinSetContains() {
+        int found = 0;
+        for (String gtin : lookups) {
+            if (gtinSet.contains(gtin)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public long compactSetIterate() {
+        long sum = 0;
+        PrimitiveIterator.OfLong iterator = compactSet.iterator();
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += iterator.nextLong();
+        }
+        return sum;
+    }
+
+}
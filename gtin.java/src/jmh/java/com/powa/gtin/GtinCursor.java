@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per thread position in the shared {@link GtinInputs}, so that consecutive invocations see
+ * different inputs and the branch predictor cannot learn a single one.
+ */
+@State(Scope.Thread)
+public class GtinCursor {
+
+    private int index;
+
+    /**
+     * @return the index of the next input to use.
+     */
+    int next() {
+        index = (index + 1) & (GtinInputs.SIZE - 1);
+        return index;
+    }
+
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to validate a file of 10 million GTIN-13s, one percent of them invalid, with different
+ * numbers of threads. The file stays in the page cache, so this measures validation rather than
+ * disk throughput.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class GtinFileValidatorBenchmark {
+
+    private static final long SEED = 349852370955535L;
+    private static final int LINES = 10000000;
+    private static final int INVALID_PERCENT = 1;
+    private static final int PERCENT = 100;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private Path file;
+    private ForkJoinPool pool;
+    private GtinFileValidator validator;
+
+    /**
+     * Writes the file of GTINs.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(SEED);
+        file = Files.createTempFile("gtins", ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < LINES; i++) {
+                StringBuilder partial = new StringBuilder();
+                for (int j = 1; j < GtinFormat.GTIN_13.length(); j++) {
+                    partial.append(random.nextInt(10));
+                }
+                int checkDigit = Gtin.calculateCheckDigit(partial);
+                if (random.nextInt(PERCENT) < INVALID_PERCENT) {
+                    checkDigit = (checkDigit + 1) % 10;
+                }
+                writer.append(partial).append((char) ('0' + checkDigit)).append('\n');
+            }
+        }
+        pool = new ForkJoinPool(parallelism);
+        validator = new GtinFileValidator(pool, GtinFileValidator.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Deletes the file of GTINs.
+     *
+     * @throws IOException if the file cannot be deleted.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public GtinFileReport validate() throws IOException {
+        return validator.validate(file);
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Benchmark input, a fixed set of randomly generated GTIN strings of one format and kind which is
+ * shared by all benchmark threads.
+ */
+@State(Scope.Benchmark)
+public class GtinInputs {
+
+    /**
+     * Number of distinct inputs, a power of two so the cursor can wrap with a mask.
+     */
+    static final int SIZE = 1024;
+
+    private static final long SEED = 349852370955535L;
+
+    /**
+     * The kind of GTIN string to benchmark with.
+     */
+    public enum Kind {
+
+        /**
+         * A valid GTIN.
+         */
+        VALID,
+
+        /**
+         * A GTIN with all digits but an incorrect check digit.
+         */
+        BAD_CHECKSUM,
+
+        /**
+         * A GTIN with a letter in place of one of the digits.
+         */
+        NON_DIGIT
+    }
+
+    @Param({"GTIN_8", "GTIN_12", "GTIN_13", "GTIN_14"})
+    private GtinFormat format;
+
+    @Param({"VALID", "BAD_CHECKSUM", "NON_DIGIT"})
+    private Kind kind;
+
+    private String[] gtins;
+    private String[] partialGtins;
+    private StringBuilder[] builders;
+    private byte[][] bytes;
+    private ByteBuffer[] buffers;
+
+    /**
+     * Generates the inputs for the current format and kind.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        gtins = new String[SIZE];
+        partialGtins = new String[SIZE];
+        builders = new StringBuilder[SIZE];
+        bytes = new byte[SIZE][];
+        buffers = new ByteBuffer[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            char[] digits = new char[format.length() - 1];
+            for (int j = 0; j < digits.length; j++) {
+                digits[j] = (char) ('0' + random.nextInt(10));
+            }
+            if (kind == Kind.NON_DIGIT) {
+                digits[random.nextInt(digits.length)] = 'x';
+            }
+            String partial = new String(digits);
+            int checkDigit = kind == Kind.NON_DIGIT ? 0 : Gtin.calculateCheckDigit(partial);
+            if (kind == Kind.BAD_CHECKSUM) {
+                checkDigit = (checkDigit + 1) % 10;
+            }
+            partialGtins[i] = partial;
+            gtins[i] = partial + checkDigit;
+            builders[i] = new StringBuilder(gtins[i]);
+            bytes[i] = gtins[i].getBytes(StandardCharsets.US_ASCII);
+            buffers[i] = ByteBuffer.allocateDirect(bytes[i].length);
+            buffers[i].put(bytes[i]).flip();
+        }
+    }
+
+    GtinFormat format() {
+        return format;
+    }
+
+    String gtin(final int index) {
+        return gtins[index];
+    }
+
+    String partialGtin(final int index) {
+        return partialGtins[index];
+    }
+
+    StringBuilder builder(final int index) {
+        return builders[index];
+    }
+
+    byte[] bytes(final int index) {
+        return bytes[index];
+    }
+
+    ByteBuffer directBuffer(final int index) {
+        return buffers[index];
+    }
+
+}
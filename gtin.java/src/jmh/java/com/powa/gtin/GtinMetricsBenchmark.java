@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link GtinMetrics} in {@link Gtin#isValid(CharSequence)}: with metrics disabled, which
+ * should match the checksum without metrics, and with metrics enabled, on one thread and on
+ * four threads counting the same operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class GtinMetricsBenchmark {
+
+    private static final String METRICS = "-D" + GtinMetrics.PROPERTY + "=true";
+    private static final int THREADS = 4;
+
+    private final String gtin = "4006381333931";
+
+    @Benchmark
+    @Fork(1)
+    public boolean withoutMetrics() {
+        // Gtin.isValid without the metrics hook
+        GtinFormat format = GtinChecksum.formatForLength(gtin.length());
+        return format != null && GtinChecksum.isValidSum(GtinChecksum.weightedSum(gtin, format.length(), format));
+    }
+
+    @Benchmark
+    @Fork(1)
+    public boolean disabled() {
+        return Gtin.isValid(gtin);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = METRICS)
+    public boolean enabled() {
+        return Gtin.isValid(gtin);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = METRICS)
+    @Threads(THREADS)
+    public boolean enabledContended() {
+        return Gtin.isValid(gtin);
+    }
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to classify 1024 random GTIN-13s by 100 three digit prefixes and a few longer ones,
+ * with a {@link GtinPrefixIndex} and with a chain of {@link String#startsWith(String)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class GtinPrefixIndexBenchmark {
+
+    private static final int GTINS = 1024;
+    private static final int PREFIXES = 100;
+    private static final long SEED = 42;
+    private static final long ITEM_NUMBERS = 1000000000000L;
+    private static final String[] LONG_PREFIXES = {"4006381", "9790", "0200", "978316"};
+
+    private final Map<String, String> prefixes = new HashMap<String, String>();
+    private final String[] chain = new String[PREFIXES + LONG_PREFIXES.length];
+    private final long[] packed = new long[GTINS];
+    private final Gtin[] gtins = new Gtin[GTINS];
+    private final String[] classes = new String[GTINS];
+    private GtinPrefixIndex<String> index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        // Longest prefixes first, as a startsWith chain must test them
+        for (int i = 0; i < LONG_PREFIXES.length; i++) {
+            chain[i] = LONG_PREFIXES[i];
+        }
+        for (int i = 0; i < PREFIXES; i++) {
+            chain[LONG_PREFIXES.length + i] = String.format("%03d", random.nextInt(GTINS));
+        }
+        for (String prefix : chain) {
+            prefixes.put(prefix, "class " + prefix);
+        }
+        index = new GtinPrefixIndex<String>(prefixes);
+        for (int i = 0; i < GTINS; i++) {
+            gtins[i] = Gtin.createWithCheckDigit(String.format("%012d", (long) (random.nextDouble() * ITEM_NUMBERS)));
+            packed[i] = gtins[i].toLong();
+        }
+    }
+
+    @Benchmark
+    public String[] index() {
+        index.classifyAll(packed, classes);
+        return classes;
+    }
+
+    @Benchmark
+    public String[] startsWith() {
+        for (int i = 0; i < GTINS; i++) {
+            String gtin = gtins[i].toString();
+            classes[i] = null;
+            for (String prefix : chain) {
+                if (gtin.startsWith(prefix)) {
+                    classes[i] = prefixes.get(prefix);
+                    break;
+                }
+            }
+        }
+        return classes;
+    }
+
+}
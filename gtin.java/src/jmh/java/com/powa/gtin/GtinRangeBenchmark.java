@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to enumerate the 100000 GTIN-13s of a 7 digit company prefix, with a range and with
+ * string concatenation and {@link Gtin#withCheckDigit(String)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class GtinRangeBenchmark {
+
+    private static final String PREFIX = "4006381";
+    private static final int ITEM_REFERENCES = 100000;
+    private static final String ITEM_REFERENCE_FORMAT = "%05d";
+
+    @Benchmark
+    public long range() {
+        return GtinRange.forPrefix(PREFIX, GtinFormat.GTIN_13).stream().sum();
+    }
+
+    @Benchmark
+    public long parallelRange() {
+        return GtinRange.forPrefix(PREFIX, GtinFormat.GTIN_13).stream().parallel().sum();
+    }
+
+    @Benchmark
+    public long withCheckDigit() {
+        long sum = 0;
+        for (int i = 0; i < ITEM_REFERENCES; i++) {
+            sum += PackedGtin.pack(Gtin.withCheckDigit(PREFIX + String.format(ITEM_REFERENCE_FORMAT, i)));
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to find the candidates for a GTIN-13 with one wrong digit, solved for by
+ * {@link GtinRepair} and by building and validating every GTIN one error away.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class GtinRepairBenchmark {
+
+    private final String gtin = "4006391333931";
+    private final long[] candidates = new long[GtinRepair.MAX_CANDIDATES];
+
+    @Benchmark
+    public int repair() {
+        return GtinRepair.repair(gtin, candidates);
+    }
+
+    @Benchmark
+    public int bruteForce() {
+        int count = 0;
+        char[] chars = gtin.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char original = chars[i];
+            for (char digit = '0'; digit <= '9'; digit++) {
+                chars[i] = digit;
+                if (digit != original && Gtin.isValid(new String(chars))) {
+                    count++;
+                }
+            }
+            chars[i] = original;
+            if (i + 1 < chars.length && chars[i] != chars[i + 1]) {
+                chars[i] = chars[i + 1];
+                chars[i + 1] = original;
+                if (Gtin.isValid(new String(chars))) {
+                    count++;
+                }
+                chars[i + 1] = chars[i];
+                chars[i] = original;
+            }
+        }
+        return count;
+    }
+
+}
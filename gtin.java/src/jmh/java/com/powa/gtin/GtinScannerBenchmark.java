@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Time to find the GTINs in 4 MB of text, with a {@link GtinScanner} and with a regular
+ * expression for digit runs followed by validating every window of every GTIN length. The text
+ * resembles a product catalog, where most lines hold long numbers, or an email, where a GTIN
+ * is mentioned every few paragraphs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class GtinScannerBenchmark {
+
+    private static final int LENGTH = 4 * 1024 * 1024;
+    private static final long SEED = 42;
+    private static final int ITEMS = 100000;
+    private static final long ITEM_NUMBERS = 1000000000000L;
+    private static final long ORDER_NUMBERS = 1000000000000000L;
+    private static final int PRICES = 1000;
+    private static final int CENTS = 100;
+    private static final int WORDS_PER_GTIN = 200;
+    private static final String[] WORDS = {"please", "find", "the", "updated", "prices", "for", "order", "12", "in",
+        "attached", "sheet", "and", "confirm", "by", "Friday", "2024-05-17,",
+    };
+    private static final Pattern DIGIT_RUN = Pattern.compile("\\d{8,}");
+
+    @Param({"catalog", "email"})
+    private String corpus;
+
+    private String text;
+    private long sum;
+
+    private final GtinScanner.Listener listener = new GtinScanner.Listener() {
+        @Override
+        public void found(final int offset, final GtinFormat format, final long packed) {
+            sum += packed;
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        StringBuilder builder = new StringBuilder(LENGTH);
+        while (builder.length() < LENGTH && "email".equals(corpus)) {
+            for (int i = 0; i < WORDS_PER_GTIN; i++) {
+                builder.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            builder.append("EAN ").append(Gtin.withCheckDigit(String.format("%012d", random.nextInt(ITEMS))))
+                    .append(".\n");
+        }
+        while (builder.length() < LENGTH) {
+            builder.append("Item ").append(random.nextInt(ITEMS)).append(", EAN ")
+                    .append(Gtin.withCheckDigit(String.format("%012d", (long) (random.nextDouble() * ITEM_NUMBERS))))
+                    .append(", price ").append(random.nextInt(PRICES)).append('.').append(random.nextInt(CENTS))
+                    .append(" EUR, order number ").append((long) (random.nextDouble() * ORDER_NUMBERS)).append('\n');
+        }
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public long scan() {
+        sum = 0;
+        GtinScanner.scan(text, listener);
+        return sum;
+    }
+
+    @Benchmark
+    public long regex() {
+        long found = 0;
+        Matcher matcher = DIGIT_RUN.matcher(text);
+        while (matcher.find()) {
+            for (int end = matcher.start() + GtinFormat.GTIN_8.length(); end <= matcher.end(); end++) {
+                for (GtinFormat format : GtinFormat.values()) {
+                    int start = end - format.length();
+                    if (start >= matcher.start() && Gtin.isValid(text.substring(start, end))) {
+                        found += PackedGtin.pack(text.substring(start, end));
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+}
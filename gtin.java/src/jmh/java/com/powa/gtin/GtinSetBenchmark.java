@@ -0,0 +1,146 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup throughput and footprint of {@link GtinSet} compared to a {@code HashSet<Gtin>}. Half
+ * of the looked up GTINs are in the set. The footprint is measured by the {@code build}
+ * benchmarks: run with the GC profiler, {@code gc.alloc.rate.norm} divided by the set size is
+ * the number of bytes allocated per entry, including the tables discarded when resizing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@State(Scope.Benchmark)
+public class GtinSetBenchmark {
+
+    private static final long SEED = 349852370955535L;
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private String[] members;
+    private String[] lookupStrings;
+    private Gtin[] lookupGtins;
+    private long[] lookupPacked;
+    private GtinSet gtinSet;
+    private Set<Gtin> hashSet;
+
+    /**
+     * Generates random GTIN-13s and fills both sets.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        members = new String[size];
+        for (int i = 0; i < size; i++) {
+            members[i] = randomGtin13(random);
+        }
+        gtinSet = buildGtinSet();
+        hashSet = buildHashSet();
+        lookupStrings = new String[LOOKUPS];
+        lookupGtins = new Gtin[LOOKUPS];
+        lookupPacked = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookupStrings[i] = i % 2 == 0 ? members[random.nextInt(size)] : randomGtin13(random);
+            lookupGtins[i] = Gtin.create(lookupStrings[i]);
+            lookupPacked[i] = lookupGtins[i].toLong();
+        }
+    }
+
+    private static String randomGtin13(final Random random) {
+        StringBuilder partial = new StringBuilder();
+        for (int j = 1; j < GtinFormat.GTIN_13.length(); j++) {
+            partial.append(random.nextInt(10));
+        }
+        return Gtin.withCheckDigit(partial.toString());
+    }
+
+    @Benchmark
+    public int containsString() {
+        int found = 0;
+        for (String gtin : lookupStrings) {
+            found += gtinSet.contains(gtin) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int containsGtin() {
+        int found = 0;
+        for (Gtin gtin : lookupGtins) {
+            found += gtinSet.contains(gtin) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int containsPacked() {
+        int found = 0;
+        for (long gtin : lookupPacked) {
+            found += gtinSet.contains(gtin) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int hashSetContainsGtin() {
+        int found = 0;
+        for (Gtin gtin : lookupGtins) {
+            found += hashSet.contains(gtin) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public GtinSet buildGtinSet() {
+        GtinSet set = new GtinSet();
+        for (String gtin : members) {
+            set.add(gtin);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public Set<Gtin> buildHashSet() {
+        Set<Gtin> set = new HashSet<Gtin>();
+        for (String gtin : members) {
+            set.add(Gtin.create(gtin));
+        }
+        return set;
+    }
+
+}
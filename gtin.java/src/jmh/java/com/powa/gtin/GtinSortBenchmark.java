@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to sort a copy of one million random GTIN-13s as packed GTINs, {@link Gtin} objects and
+ * strings, with {@link GtinSort} and with {@link Arrays#sort}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class GtinSortBenchmark {
+
+    private static final int GTINS = 1000000;
+    private static final long SEED = 42;
+    private static final long ITEM_NUMBERS = 1000000000000L;
+
+    private final long[] packed = new long[GTINS];
+    private final Gtin[] gtins = new Gtin[GTINS];
+    private final String[] strings = new String[GTINS];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < GTINS; i++) {
+            gtins[i] = Gtin.createWithCheckDigit(String.format("%012d", (long) (random.nextDouble() * ITEM_NUMBERS)));
+            packed[i] = gtins[i].toLong();
+            strings[i] = gtins[i].toString();
+        }
+    }
+
+    @Benchmark
+    public long[] radixSortPacked() {
+        long[] sorted = packed.clone();
+        GtinSort.sort(sorted);
+        return sorted;
+    }
+
+    @Benchmark
+    public long[] parallelRadixSortPacked() {
+        long[] sorted = packed.clone();
+        GtinSort.parallelSort(sorted);
+        return sorted;
+    }
+
+    @Benchmark
+    public long[] arraysSortPacked() {
+        long[] sorted = packed.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    @Benchmark
+    public Gtin[] radixSortGtins() {
+        Gtin[] sorted = gtins.clone();
+        GtinSort.sort(sorted);
+        return sorted;
+    }
+
+    @Benchmark
+    public Gtin[] arraysSortGtins() {
+        Gtin[] sorted = gtins.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    @Benchmark
+    public String[] radixSortStrings() {
+        String[] sorted = strings.clone();
+        GtinSort.sort(sorted);
+        return sorted;
+    }
+
+    @Benchmark
+    public String[] arraysSortStrings() {
+        String[] sorted = strings.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+}
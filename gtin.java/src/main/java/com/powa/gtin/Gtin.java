@@ -15,15 +15,24 @@
  */
 package com.powa.gtin;
 
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * Valid GTIN code. Static methods are provided for identifying, validating and parsing GTIN codes
  * represented as strings.
  */
-public final class Gtin implements Serializable {
+public final class Gtin implements Comparable<Gtin>, Serializable {
 
     private static final long serialVersionUID = 349852370955535L;
+    private static final String STRING = "String";
+    private static final String PARTIAL_GTIN = "partial gtin";
+    private static final String NULL_GTIN = "gtin is null";
 
     private final String gtin;
     private final GtinFormat format;
@@ -31,7 +40,7 @@ public final class Gtin implements Serializable {
     // Prevent instantiation
     private Gtin(final String gtin) {
         this.gtin = gtin;
-        format = GtinFormat.forLength(gtin.length());
+        format = GtinChecksum.formatForLength(gtin.length());
     }
 
     /**
@@ -42,15 +51,63 @@ public final class Gtin implements Serializable {
      * @param gtin the GTIN string.
      * @return a GTIN object if the string is a valid GTIN.
      * @throws GtinFormatException if the string is not a valid GTIN.
+     * @throws IllegalArgumentException if the string is {@code null}.
      */
     public static Gtin create(final String gtin) throws GtinFormatException {
-        if (!isValid(gtin)) {
-            throw new GtinFormatException("String '" + gtin + "' is not a valid gtin");
+        GtinCheck check = GtinChecksum.check(gtin);
+        if (GtinMetrics.ENABLED) {
+            record(GtinMetrics.Operation.CREATE, gtin, check);
+        }
+        if (check == GtinCheck.NULL) {
+            throw new IllegalArgumentException(NULL_GTIN);
+        }
+        if (check != GtinCheck.VALID) {
+            throw invalidGtin(gtin, check);
         }
 
         return new Gtin(gtin);
     }
 
+    /**
+     * Creates a GTIN from the given character sequence if it is a valid GTIN, without throwing
+     * an exception otherwise. Use {@link #check(CharSequence)} to find out why it is invalid.
+     *
+     * @param gtin the GTIN, may be {@code null}.
+     * @return a GTIN object if the character sequence is a valid GTIN, {@code null} otherwise.
+     */
+    public static Gtin tryCreate(final CharSequence gtin) {
+        GtinCheck check = GtinChecksum.check(gtin);
+        if (GtinMetrics.ENABLED) {
+            record(GtinMetrics.Operation.CREATE, gtin, check);
+        }
+        return check == GtinCheck.VALID ? new Gtin(gtin.toString()) : null;
+    }
+
+    /**
+     * Creates a GTIN from the given ASCII bytes. Only a valid GTIN allocates, to create the
+     * GTIN object.
+     *
+     * @param gtin the array holding the GTIN.
+     * @param offset the position of the first digit in the array.
+     * @param length the number of digits.
+     * @return a GTIN object if the bytes are a valid GTIN.
+     * @throws GtinFormatException if the bytes are not a valid GTIN.
+     * @throws IndexOutOfBoundsException if the range is outside of the array.
+     */
+    public static Gtin create(final byte[] gtin, final int offset, final int length) throws GtinFormatException {
+        GtinFormat format = bytesFormat(gtin, gtin == null ? 0 : gtin.length, offset, length, 0);
+        int checkSum = format == null ? GtinChecksum.NOT_A_NUMBER
+                : GtinChecksum.weightedSum(gtin, offset, length, format);
+        if (GtinMetrics.ENABLED) {
+            record(GtinMetrics.Operation.CREATE, format, checkSum);
+        }
+        if (!GtinChecksum.isValidSum(checkSum)) {
+            throw invalidGtin(ascii(gtin, offset, length), GtinChecksum.reason(format, checkSum));
+        }
+
+        return new Gtin(ascii(gtin, offset, length));
+    }
+
     /**
      * Creates a GTIN from the given partial GTIN string without the check digit.
      *
@@ -62,6 +119,17 @@ public final class Gtin implements Serializable {
         return new Gtin(withCheckDigit(gtinWithoutCheckDigit));
     }
 
+    /**
+     * Creates a GTIN from its packed form.
+     *
+     * @param packed the GTIN packed into a {@code long} as described by {@link PackedGtin}.
+     * @return a GTIN object if the value is a valid packed GTIN.
+     * @throws GtinFormatException if the value is not a valid packed GTIN.
+     */
+    public static Gtin fromLong(final long packed) throws GtinFormatException {
+        return new Gtin(PackedGtin.toString(PackedGtin.checkValid(packed)));
+    }
+
     /**
      * Checks if the string is a valid GTIN by checking the format and checksum.
      *
@@ -81,21 +149,104 @@ public final class Gtin implements Serializable {
      * @return {@code true} if the GTIN is valid, {@code false} otherwise.
      */
     public static boolean isValid(final String gtin, final GtinFormat format) {
-        // Check format of barcode for validity
-        if (!matchesFormat(gtin)) {
-            return false;
+        return isValid((CharSequence) gtin, format);
+    }
+
+    /**
+     * Checks if the character sequence is a valid GTIN by checking the format and checksum.
+     *
+     * @param gtin the GTIN to check, may be GTIN-8, GTIN-12, GTIN-13 or GTIN-14 format.
+     * @return {@code true} if the GTIN is valid, {@code false} otherwise.
+     */
+    public static boolean isValid(final CharSequence gtin) {
+        return isValid(gtin, null);
+    }
+
+    /**
+     * Checks if the character sequence is a valid specific GTIN format by checking the format,
+     * length and checksum.
+     *
+     * @param gtin the GTIN to check, may be GTIN-8, GTIN-12, GTIN-13 or GTIN-14 format.
+     * @param format the GTIN format to check the character sequence against.
+     * @return {@code true} if the GTIN is valid, {@code false} otherwise.
+     */
+    public static boolean isValid(final CharSequence gtin, final GtinFormat format) {
+        GtinFormat gtinFormat = lengthFormat(gtin, format, 0);
+        // Digits are checked while summing
+        int checkSum = gtinFormat == null ? GtinChecksum.NOT_A_NUMBER
+                : GtinChecksum.weightedSum(gtin, gtinFormat.length(), gtinFormat);
+        if (GtinMetrics.ENABLED) {
+            record(GtinMetrics.Operation.VALIDATE, gtinFormat, checkSum);
         }
-        int gtinLength = gtin.length();
-        if (format != null && gtinLength != format.length()) {
-            return false;
+        return GtinChecksum.isValidSum(checkSum);
+    }
+
+    /**
+     * Validates all GTINs in the list, in parallel for long lists, see
+     * {@link GtinBatch#validateAll(List, GtinFormat)}.
+     *
+     * @param gtins the GTINs to check.
+     * @param format the GTIN format to check against, or {@code null} for any format.
+     * @return the set of indexes of valid GTINs.
+     */
+    public static BitSet validateAll(final List<? extends CharSequence> gtins, final GtinFormat format) {
+        return GtinBatch.validateAll(gtins, format);
+    }
+
+    /**
+     * Checks if the character sequence is a valid GTIN, returning the reason if it is not. No
+     * exception is thrown and nothing is allocated for invalid input.
+     *
+     * @param gtin the GTIN to check, may be {@code null}.
+     * @return {@link GtinCheck#VALID} if the GTIN is valid, otherwise the first failed check.
+     */
+    public static GtinCheck check(final CharSequence gtin) {
+        GtinCheck check = GtinChecksum.check(gtin);
+        if (GtinMetrics.ENABLED) {
+            record(GtinMetrics.Operation.VALIDATE, gtin, check);
         }
-        int checkSum = 0;
-        int weightBit = gtinLength % 2;
-        for (int i = 0; i < gtinLength; i++) {
-            int weight = i % 2 == weightBit ? 3 : 1;
-            checkSum += Integer.parseInt(gtin.substring(i, i + 1)) * weight;
+        return check;
+    }
+
+    /**
+     * Checks if the ASCII bytes are a valid GTIN by checking the format and checksum, without
+     * decoding them into a string.
+     *
+     * @param gtin the array holding the GTIN, may be GTIN-8, GTIN-12, GTIN-13 or GTIN-14 format.
+     * @param offset the position of the first digit in the array.
+     * @param length the number of digits.
+     * @return {@code true} if the GTIN is valid, {@code false} otherwise.
+     * @throws IndexOutOfBoundsException if the range is outside of the array.
+     */
+    public static boolean isValid(final byte[] gtin, final int offset, final int length) {
+        GtinFormat format = bytesFormat(gtin, gtin == null ? 0 : gtin.length, offset, length, 0);
+        int checkSum = format == null ? GtinChecksum.NOT_A_NUMBER
+                : GtinChecksum.weightedSum(gtin, offset, length, format);
+        if (GtinMetrics.ENABLED) {
+            record(GtinMetrics.Operation.VALIDATE, format, checkSum);
         }
-        return checkSum % 10 == 0;
+        return GtinChecksum.isValidSum(checkSum);
+    }
+
+    /**
+     * Checks if the ASCII bytes in the buffer are a valid GTIN by checking the format and
+     * checksum. Heap and direct buffers are supported, the position of the buffer is ignored
+     * and not changed.
+     *
+     * @param gtin the buffer holding the GTIN, may be GTIN-8, GTIN-12, GTIN-13 or GTIN-14 format.
+     * @param offset the absolute position of the first digit in the buffer.
+     * @param length the number of digits.
+     * @return {@code true} if the GTIN is valid, {@code false} otherwise.
+     * @throws IndexOutOfBoundsException if the range is outside of the buffer limit.
+     */
+    public static boolean isValid(final ByteBuffer gtin, final int offset, final int length) {
+        GtinFormat format = bytesFormat(gtin, gtin == null ? 0 : gtin.limit(), offset, length, 0);
+        int checkSum = format == null ? GtinChecksum.NOT_A_NUMBER
+                : GtinChecksum.weightedSum(gtin, offset, length, format);
+        if (GtinMetrics.ENABLED) {
+            record(GtinMetrics.Operation.VALIDATE, format, checkSum);
+        }
+        return GtinChecksum.isValidSum(checkSum);
     }
 
     /**
@@ -147,17 +298,55 @@ public final class Gtin implements Serializable {
      * digit.
      */
     public static int calculateCheckDigit(final String gtinWithoutCheckDigit) {
-        if (!matchesFormat(gtinWithoutCheckDigit, null, 1)) {
-            throw new GtinFormatException("String '" + gtinWithoutCheckDigit + "' is not a valid partial gtin");
+        return calculateCheckDigit((CharSequence) gtinWithoutCheckDigit);
+    }
+
+    /**
+     * Calculates the check digit for a partial GTIN.
+     *
+     * @param gtinWithoutCheckDigit the GTIN without the final check digit.
+     * @return the check digit to complete the GTIN code.
+     * @throws GtinFormatException if the character sequence is not a valid partial GTIN without
+     * the check digit.
+     */
+    public static int calculateCheckDigit(final CharSequence gtinWithoutCheckDigit) {
+        GtinFormat format = lengthFormat(gtinWithoutCheckDigit, null, 1);
+        int checkSum = format == null ? GtinChecksum.NOT_A_NUMBER
+                : GtinChecksum.weightedSum(gtinWithoutCheckDigit, format.length() - 1, format);
+        if (GtinMetrics.ENABLED) {
+            recordCheckDigit(format, checkSum);
         }
-        int checkSum = 0;
-        int gtinLength = gtinWithoutCheckDigit.length();
-        int weightBit = (gtinLength + 1) % 2;
-        for (int i = 0; i < gtinLength; i++) {
-            int weight = i % 2 == weightBit ? 3 : 1;
-            checkSum += Integer.parseInt(gtinWithoutCheckDigit.substring(i, i + 1)) * weight;
+        if (checkSum == GtinChecksum.NOT_A_NUMBER) {
+            throw new GtinFormatException(STRING, gtinWithoutCheckDigit.toString(), PARTIAL_GTIN,
+                    GtinChecksum.reason(format, checkSum));
         }
-        return checkSum % 10 == 0 ? 0 : 10 - (checkSum % 10);
+        return GtinChecksum.checkDigit(checkSum);
+    }
+
+    /**
+     * Calculates the check digit for a partial GTIN held in ASCII bytes.
+     *
+     * @param gtinWithoutCheckDigit the array holding the GTIN without the final check digit.
+     * @param offset the position of the first digit in the array.
+     * @param length the number of digits.
+     * @return the check digit to complete the GTIN code.
+     * @throws GtinFormatException if the bytes are not a valid partial GTIN without the check
+     * digit.
+     * @throws IndexOutOfBoundsException if the range is outside of the array.
+     */
+    public static int calculateCheckDigit(final byte[] gtinWithoutCheckDigit, final int offset, final int length) {
+        int arrayLength = gtinWithoutCheckDigit == null ? 0 : gtinWithoutCheckDigit.length;
+        GtinFormat format = bytesFormat(gtinWithoutCheckDigit, arrayLength, offset, length, 1);
+        int checkSum = format == null ? GtinChecksum.NOT_A_NUMBER
+                : GtinChecksum.weightedSum(gtinWithoutCheckDigit, offset, length, format);
+        if (GtinMetrics.ENABLED) {
+            recordCheckDigit(format, checkSum);
+        }
+        if (checkSum == GtinChecksum.NOT_A_NUMBER) {
+            throw new GtinFormatException(STRING, ascii(gtinWithoutCheckDigit, offset, length), PARTIAL_GTIN,
+                    GtinChecksum.reason(format, checkSum));
+        }
+        return GtinChecksum.checkDigit(checkSum);
     }
 
     /**
@@ -172,6 +361,18 @@ public final class Gtin implements Serializable {
         return gtinWithoutCheckDigit + Integer.toString(calculateCheckDigit(gtinWithoutCheckDigit));
     }
 
+    /**
+     * Adds the check digit to all partial GTINs in the list, in parallel for long lists, see
+     * {@link GtinBatch#withCheckDigitAll(List)}.
+     *
+     * @param gtinsWithoutCheckDigit the GTINs without the final check digit.
+     * @return the GTINs with check digit, in the same order.
+     * @throws GtinFormatException if any of the GTINs is not a valid partial GTIN.
+     */
+    public static String[] withCheckDigitAll(final List<? extends CharSequence> gtinsWithoutCheckDigit) {
+        return GtinBatch.withCheckDigitAll(gtinsWithoutCheckDigit);
+    }
+
     /**
      * Checks whether the input string matches any GTIN format, i.e. is of the correct length for
      * a GTIN and that the string contains only digits.
@@ -239,28 +440,88 @@ public final class Gtin implements Serializable {
         return matchesFormat(gtin, GtinFormat.GTIN_14, 0);
     }
 
-    private static boolean matchesFormat(final String gtin, final GtinFormat format, final int offset) {
+    /**
+     * Checks whether the input character sequence matches any GTIN format, i.e. is of the correct
+     * length for a GTIN and that it contains only digits.
+     *
+     * @param gtin the possible GTIN.
+     * @return {@code true} if the input is a valid GTIN string, {@code false} otherwise.
+     */
+    public static boolean matchesFormat(final CharSequence gtin) {
+        return matchesFormat(gtin, null, 0);
+    }
+
+    /**
+     * Checks whether the input character sequence matches the specific GTIN format, i.e. is of
+     * the correct length for that format and that it contains only digits.
+     *
+     * @param gtin the possible GTIN.
+     * @param format the GTIN format to check the input against.
+     * @return {@code true} if the input is a valid GTIN string, {@code false} otherwise.
+     */
+    public static boolean matchesFormat(final CharSequence gtin, final GtinFormat format) {
+        return matchesFormat(gtin, format, 0);
+    }
+
+    private static boolean matchesFormat(final CharSequence gtin, final GtinFormat format, final int offset) {
+        return lengthFormat(gtin, format, offset) != null && GtinChecksum.isDigits(gtin, gtin.length());
+    }
+
+    /**
+     * Gets the format matching the length of the input, which is expected to be {@code offset}
+     * characters shorter than a complete GTIN.
+     *
+     * @return the matching format or {@code null} if the length does not match.
+     */
+    private static GtinFormat lengthFormat(final CharSequence gtin, final GtinFormat format, final int offset) {
         if (gtin == null) {
-            throw new IllegalArgumentException("gtin is null");
+            throw new IllegalArgumentException(NULL_GTIN);
         }
-        // Check length
         int gtinLength = gtin.length();
-        boolean validLength = false;
         if (format != null) {
-            validLength = gtinLength == format.length();
-        } else {
-            for (GtinFormat gtinFormat : GtinFormat.values()) {
-                if (gtinLength == gtinFormat.length() - offset) {
-                    validLength = true;
-                    break;
-                }
-            }
+            return gtinLength == format.length() - offset ? format : null;
+        }
+        return GtinChecksum.formatForLength(gtinLength + offset);
+    }
+
+    /**
+     * Gets the format matching a range of bytes, which is expected to be {@code offset}
+     * characters shorter than a complete GTIN.
+     *
+     * @return the matching format or {@code null} if the length does not match.
+     */
+    static GtinFormat bytesFormat(final Object bytes, final int limit, final int offset, final int length,
+            final int checkDigitOffset) {
+        if (bytes == null) {
+            throw new IllegalArgumentException(NULL_GTIN);
         }
-        if (!validLength) {
-            return false;
+        if (offset < 0 || length < 0 || offset > limit - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length
+                    + ") is out of bounds for length " + limit);
         }
-        // Check whether is a number
-        return gtin.matches("^[0-9]+$");
+        return GtinChecksum.formatForLength(length + checkDigitOffset);
+    }
+
+    private static void record(final GtinMetrics.Operation operation, final CharSequence gtin, final GtinCheck check) {
+        GtinMetrics.record(operation, gtin == null ? null : GtinChecksum.formatForLength(gtin.length()), check);
+    }
+
+    private static void record(final GtinMetrics.Operation operation, final GtinFormat format, final int checkSum) {
+        GtinMetrics.record(operation, format,
+                GtinChecksum.isValidSum(checkSum) ? GtinCheck.VALID : GtinChecksum.reason(format, checkSum));
+    }
+
+    private static void recordCheckDigit(final GtinFormat format, final int checkSum) {
+        GtinMetrics.record(GtinMetrics.Operation.CHECK_DIGIT, format,
+                checkSum == GtinChecksum.NOT_A_NUMBER ? GtinChecksum.reason(format, checkSum) : GtinCheck.VALID);
+    }
+
+    static GtinFormatException invalidGtin(final CharSequence gtin, final GtinCheck reason) {
+        return new GtinFormatException(STRING, String.valueOf(gtin), "gtin", reason);
+    }
+
+    private static String ascii(final byte[] bytes, final int offset, final int length) {
+        return new String(bytes, offset, length, StandardCharsets.US_ASCII);
     }
 
     /**
@@ -281,7 +542,7 @@ public final class Gtin implements Serializable {
      * @return the check digit of this GTIN.
      */
     public int checkDigit() {
-        return Integer.parseInt(gtin.substring(gtin.length() - 1));
+        return gtin.charAt(gtin.length() - 1) - '0';
     }
 
     /**
@@ -292,7 +553,48 @@ public final class Gtin implements Serializable {
      * @throws java.lang.IndexOutOfBoundsException if the position is not between 0 and length - 1.
      */
     public int digitAt(final int position) {
-        return Integer.parseInt(gtin.substring(position, position + 1));
+        return gtin.charAt(position) - '0';
+    }
+
+    /**
+     * @return this GTIN packed into a {@code long} as described by {@link PackedGtin}.
+     */
+    public long toLong() {
+        return PackedGtin.packValid(gtin);
+    }
+
+    /**
+     * Converts this GTIN to GTIN-14 format by padding it with leading zeros, which keeps the
+     * check digit valid. GTINs of different formats identifying the same item have equal
+     * GTIN-14 forms. Use {@link PackedGtin#value(long)} of {@link #toLong()} for a numeric key
+     * which does not allocate.
+     *
+     * @return this GTIN if it is in GTIN-14 format, the padded GTIN-14 otherwise.
+     */
+    public Gtin toGtin14() {
+        if (format == GtinFormat.GTIN_14) {
+            return this;
+        }
+        StringBuilder gtin14 = new StringBuilder(GtinFormat.GTIN_14.length());
+        for (int i = gtin.length(); i < GtinFormat.GTIN_14.length(); i++) {
+            gtin14.append('0');
+        }
+        return new Gtin(gtin14.append(gtin).toString());
+    }
+
+    /**
+     * Compares GTINs by numeric value as by {@link GtinComparator}, ordering a shorter format
+     * first if the values are equal so that the order is consistent with
+     * {@link #equals(Object)}.
+     *
+     * @param other the GTIN to compare to.
+     * @return a negative number, zero or a positive number if this GTIN is less than, equal to
+     * or greater than the other.
+     */
+    @Override
+    public int compareTo(final Gtin other) {
+        int comparison = GtinComparator.compareDigits(gtin, other.gtin);
+        return comparison != 0 ? comparison : gtin.length() - other.gtin.length();
     }
 
     /**
@@ -303,6 +605,13 @@ public final class Gtin implements Serializable {
         return gtin;
     }
 
+    /**
+     * Serializes this GTIN in its packed form.
+     */
+    private Object writeReplace() {
+        return new SerializedForm(toLong());
+    }
+
     @Override
     public boolean equals(final Object obj) {
         return obj == this || obj instanceof Gtin && gtin.equals(((Gtin) obj).gtin);
@@ -314,4 +623,27 @@ public final class Gtin implements Serializable {
         return 37 + gtin.hashCode();
     }
 
+    /**
+     * Serialized form of a GTIN, holding only the packed GTIN. GTINs serialized by earlier
+     * versions with their string and format still deserialize as before.
+     */
+    private static final class SerializedForm implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long packed;
+
+        SerializedForm(final long packed) {
+            this.packed = packed;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            if (!PackedGtin.isValid(packed)) {
+                throw new InvalidObjectException("Value '" + packed + "' is not a valid packed gtin");
+            }
+            return fromLong(packed);
+        }
+
+    }
+
 }
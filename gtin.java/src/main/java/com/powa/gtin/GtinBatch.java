@@ -0,0 +1,341 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Validation of many GTINs at once, either held in a list or as ASCII bytes in an array at a
+ * fixed distance from each other, e.g. fixed width records or GTINs separated by a newline.
+ * <p>
+ * Lists with more GTINs than the parallel threshold are split into ranges which are processed
+ * in the common {@link ForkJoinPool}. The threshold defaults to
+ * {@value #DEFAULT_PARALLEL_THRESHOLD} and can be changed with the system property
+ * {@code com.powa.gtin.parallelThreshold}.
+ * <p>
+ * When the optional {@code gtin.java-vector} jar is on the class path and the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}, the checksums are calculated with SIMD
+ * instructions through the Vector API. Otherwise, or if the system property
+ * {@code com.powa.gtin.vector} is set to {@code false}, a scalar kernel is used, so the same
+ * code runs on every JVM.
+ */
+public final class GtinBatch {
+
+    /**
+     * System property which disables the Vector API kernel when set to {@code false}.
+     */
+    public static final String VECTOR_PROPERTY = "com.powa.gtin.vector";
+
+    /**
+     * System property setting the number of GTINs in a list above which it is processed in
+     * parallel.
+     */
+    public static final String PARALLEL_THRESHOLD_PROPERTY = "com.powa.gtin.parallelThreshold";
+
+    /**
+     * The default number of GTINs in a list above which it is processed in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 16384;
+
+    /**
+     * Shift from the index of a GTIN to the index of the word of its bit in a validity mask.
+     */
+    static final int WORD_SHIFT = 6;
+    static final int PARALLEL_THRESHOLD = Integer.getInteger(PARALLEL_THRESHOLD_PROPERTY,
+            DEFAULT_PARALLEL_THRESHOLD);
+
+    private static final String VECTOR_KERNEL = "com.powa.gtin.VectorBatchKernel";
+    private static final GtinBatchKernel KERNEL = loadKernel();
+
+    // Prevent instantiation
+    private GtinBatch() {
+    }
+
+    /**
+     * Loads the Vector API kernel if it is available and enabled, the scalar kernel otherwise.
+     */
+    static GtinBatchKernel loadKernel() {
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))) {
+            return new ScalarBatchKernel();
+        }
+        try {
+            return (GtinBatchKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (final ReflectiveOperationException e) {
+            // The vector jar is not on the class path
+            return new ScalarBatchKernel();
+        } catch (final LinkageError e) {
+            // The JVM is too old or runs without the jdk.incubator.vector module
+            return new ScalarBatchKernel();
+        }
+    }
+
+    /**
+     * @return {@code true} if batches are validated with the Vector API, {@code false} if they
+     * are validated by the scalar kernel.
+     */
+    public static boolean isVectorized() {
+        return !(KERNEL instanceof ScalarBatchKernel);
+    }
+
+    /**
+     * Validates {@code count} GTINs of the given format held as ASCII bytes, the first starting at
+     * {@code offset} and each following one {@code stride} bytes after the previous one.
+     *
+     * @param data the array holding the GTINs.
+     * @param offset the position of the first GTIN.
+     * @param stride the distance between the starts of consecutive GTINs, at least the length of
+     * the format.
+     * @param count the number of GTINs.
+     * @param format the format of the GTINs.
+     * @return a mask with bit {@code i} set if GTIN {@code i} is valid, stored in word
+     * {@code i / 64} as by {@link java.util.BitSet#valueOf(long[])}.
+     * @throws IndexOutOfBoundsException if the GTINs are outside of the array.
+     */
+    public static long[] validate(final byte[] data, final int offset, final int stride, final int count,
+            final GtinFormat format) {
+        return validate(KERNEL, data, offset, stride, count, format);
+    }
+
+    static long[] validate(final GtinBatchKernel kernel, final byte[] data, final int offset, final int stride,
+            final int count, final GtinFormat format) {
+        if (data == null || format == null) {
+            throw new IllegalArgumentException("data and format must not be null");
+        }
+        if (stride < format.length()) {
+            throw new IllegalArgumentException("Stride " + stride + " is shorter than " + format);
+        }
+        long end = offset + (long) stride * (count - 1) + format.length();
+        if (offset < 0 || count < 0 || count > 0 && end > data.length) {
+            throw new IndexOutOfBoundsException(count + " gtins with stride " + stride + " at offset " + offset
+                    + " are out of bounds for length " + data.length);
+        }
+        long start = GtinMetrics.ENABLED ? System.nanoTime() : 0;
+        long[] valid = new long[words(count)];
+        kernel.validate(data, offset, stride, count, format, valid);
+        if (GtinMetrics.ENABLED) {
+            GtinMetrics.recordBulk(GtinMetrics.Operation.BATCH_VALIDATE, format, start);
+        }
+        return valid;
+    }
+
+    /**
+     * Validates all GTINs in the array, see {@link #validateAll(List, GtinFormat)}.
+     *
+     * @param gtins the GTINs to check.
+     * @param format the GTIN format to check against, or {@code null} for any format.
+     * @return the set of indexes of valid GTINs.
+     */
+    public static BitSet validateAll(final CharSequence[] gtins, final GtinFormat format) {
+        return validateAll(Arrays.asList(gtins), format);
+    }
+
+    /**
+     * Validates all GTINs in the list as by {@link Gtin#isValid(CharSequence, GtinFormat)}, in
+     * parallel if the list is longer than the parallel threshold.
+     *
+     * @param gtins the GTINs to check.
+     * @param format the GTIN format to check against, or {@code null} for any format.
+     * @return the set of indexes of valid GTINs.
+     */
+    public static BitSet validateAll(final List<? extends CharSequence> gtins, final GtinFormat format) {
+        return BitSet.valueOf(validateAll(gtins, format, PARALLEL_THRESHOLD));
+    }
+
+    static long[] validateAll(final List<? extends CharSequence> gtins, final GtinFormat format,
+            final int threshold) {
+        long start = GtinMetrics.ENABLED ? System.nanoTime() : 0;
+        long[] valid = new long[words(gtins.size())];
+        run(new ValidateTask(randomAccess(gtins), format, valid, 0, gtins.size(), threshold));
+        if (GtinMetrics.ENABLED) {
+            GtinMetrics.recordBulk(GtinMetrics.Operation.BATCH_VALIDATE, format, start);
+        }
+        return valid;
+    }
+
+    /**
+     * Adds the check digit to all partial GTINs in the array, see
+     * {@link #withCheckDigitAll(List)}.
+     *
+     * @param gtinsWithoutCheckDigit the GTINs without the final check digit.
+     * @return the GTINs with check digit, in the same order.
+     * @throws GtinFormatException if any of the GTINs is not a valid partial GTIN.
+     */
+    public static String[] withCheckDigitAll(final CharSequence[] gtinsWithoutCheckDigit) {
+        return withCheckDigitAll(Arrays.asList(gtinsWithoutCheckDigit));
+    }
+
+    /**
+     * Adds the check digit to all partial GTINs in the list as by
+     * {@link Gtin#withCheckDigit(String)}, in parallel if the list is longer than the parallel
+     * threshold.
+     *
+     * @param gtinsWithoutCheckDigit the GTINs without the final check digit.
+     * @return the GTINs with check digit, in the same order.
+     * @throws GtinFormatException if any of the GTINs is not a valid partial GTIN.
+     */
+    public static String[] withCheckDigitAll(final List<? extends CharSequence> gtinsWithoutCheckDigit) {
+        return withCheckDigitAll(gtinsWithoutCheckDigit, PARALLEL_THRESHOLD);
+    }
+
+    static String[] withCheckDigitAll(final List<? extends CharSequence> gtinsWithoutCheckDigit,
+            final int threshold) {
+        long start = GtinMetrics.ENABLED ? System.nanoTime() : 0;
+        String[] gtins = new String[gtinsWithoutCheckDigit.size()];
+        run(new CheckDigitTask(randomAccess(gtinsWithoutCheckDigit), gtins, 0, gtins.length, threshold));
+        if (GtinMetrics.ENABLED) {
+            GtinMetrics.recordBulk(GtinMetrics.Operation.BATCH_CHECK_DIGIT, null, start);
+        }
+        return gtins;
+    }
+
+    /**
+     * Copies a list without fast access by index, such as a {@link java.util.LinkedList}, so
+     * that the tasks can read any range of it in linear time.
+     */
+    private static List<? extends CharSequence> randomAccess(final List<? extends CharSequence> gtins) {
+        return gtins instanceof RandomAccess ? gtins : new ArrayList<CharSequence>(gtins);
+    }
+
+    private static int words(final int count) {
+        return (count + Long.SIZE - 1) >>> WORD_SHIFT;
+    }
+
+    private static void run(final RangeTask task) {
+        if (task.to - task.from > task.threshold) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.computeRange();
+        }
+    }
+
+    /**
+     * Processes a range of a list, splitting it in half until it is no longer than the
+     * threshold. Ranges are split on multiples of 64, so that no two tasks write to the same
+     * word of a validity mask.
+     */
+    private abstract static class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        RangeTask(final int from, final int to, final int threshold) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected final void compute() {
+            int middle = (from + (to - from) / 2) & -Long.SIZE;
+            if (to - from <= threshold || middle <= from) {
+                computeRange();
+                return;
+            }
+            RangeTask right = split(middle, to);
+            right.fork();
+            split(from, middle).compute();
+            right.join();
+        }
+
+        int from() {
+            return from;
+        }
+
+        int to() {
+            return to;
+        }
+
+        int threshold() {
+            return threshold;
+        }
+
+        abstract RangeTask split(int splitFrom, int splitTo);
+
+        abstract void computeRange();
+
+    }
+
+    private static final class ValidateTask extends RangeTask {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<? extends CharSequence> gtins;
+        private final GtinFormat format;
+        private final long[] valid;
+
+        ValidateTask(final List<? extends CharSequence> gtins, final GtinFormat format, final long[] valid,
+                final int from, final int to, final int threshold) {
+            super(from, to, threshold);
+            this.gtins = gtins;
+            this.format = format;
+            this.valid = valid;
+        }
+
+        @Override
+        RangeTask split(final int splitFrom, final int splitTo) {
+            return new ValidateTask(gtins, format, valid, splitFrom, splitTo, threshold());
+        }
+
+        @Override
+        void computeRange() {
+            for (int i = from(); i < to(); i++) {
+                if (Gtin.isValid(gtins.get(i), format)) {
+                    valid[i >>> WORD_SHIFT] |= 1L << i;
+                }
+            }
+        }
+
+    }
+
+    private static final class CheckDigitTask extends RangeTask {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<? extends CharSequence> gtinsWithoutCheckDigit;
+        private final String[] gtins;
+
+        CheckDigitTask(final List<? extends CharSequence> gtinsWithoutCheckDigit, final String[] gtins,
+                final int from, final int to, final int threshold) {
+            super(from, to, threshold);
+            this.gtinsWithoutCheckDigit = gtinsWithoutCheckDigit;
+            this.gtins = gtins;
+        }
+
+        @Override
+        RangeTask split(final int splitFrom, final int splitTo) {
+            return new CheckDigitTask(gtinsWithoutCheckDigit, gtins, splitFrom, splitTo, threshold());
+        }
+
+        @Override
+        void computeRange() {
+            for (int i = from(); i < to(); i++) {
+                CharSequence gtin = gtinsWithoutCheckDigit.get(i);
+                gtins[i] = gtin + Integer.toString(Gtin.calculateCheckDigit(gtin));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+/**
+ * Validates batches of fixed length GTINs held as ASCII bytes in an array. Implemented by a
+ * scalar kernel and, on JVMs with the Vector API, by a SIMD kernel, see {@link GtinBatch}.
+ */
+interface GtinBatchKernel {
+
+    /**
+     * Validates {@code count} GTINs of the given format, the first starting at {@code offset}
+     * and each following one {@code stride} bytes after the previous one. The caller is
+     * responsible for checking the bounds of the array.
+     *
+     * @param data the array holding the GTINs.
+     * @param offset the position of the first GTIN.
+     * @param stride the distance between the starts of consecutive GTINs.
+     * @param count the number of GTINs.
+     * @param format the format of the GTINs.
+     * @param valid the mask to set the bit {@code i} of for each valid GTIN {@code i}, with the
+     * bits of GTIN {@code i} stored in {@code valid[i >>> 6]}.
+     */
+    void validate(byte[] data, int offset, int stride, int count, GtinFormat format, long[] valid);
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+/**
+ * The bits of a {@link GtinBloomFilter}, held in 64 bit words which are set atomically so that
+ * threads can insert concurrently without locks. Implemented on the heap and, on Java 9 or later,
+ * in direct or memory-mapped buffers.
+ */
+interface GtinBloomBits {
+
+    /**
+     * @return the number of 64 bit words.
+     */
+    long words();
+
+    /**
+     * Reads a word with volatile semantics.
+     *
+     * @param word the index of the word.
+     * @return the bits of the word.
+     */
+    long get(long word);
+
+    /**
+     * Atomically sets the bits of the mask in a word.
+     *
+     * @param word the index of the word.
+     * @param mask the bits to set.
+     * @return {@code true} if any of the bits was not set before, {@code false} otherwise.
+     */
+    boolean set(long word, long mask);
+
+    /**
+     * Writes changes to the storage device if the bits are memory-mapped from a file.
+     */
+    void force();
+
+}
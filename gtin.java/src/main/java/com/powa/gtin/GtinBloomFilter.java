@@ -0,0 +1,492 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Bloom filter of GTINs, answering whether a GTIN has been seen before with no false negatives
+ * and a false positive rate chosen when the filter is sized. A filter sized for a billion GTINs
+ * at a 1% false positive rate takes 1.2 GB, about a hundredth of a {@code HashSet<Gtin>} of as
+ * many GTINs, and can be held on the heap, in direct memory or in a memory-mapped file which
+ * outlives the process.
+ * <p>
+ * GTINs are hashed by their packed value, see {@link PackedGtin}, which is read from strings and
+ * ASCII bytes without creating a {@link Gtin}. Inserts and lookups are lock-free and thread safe:
+ * bits are only ever set, each word with a compare-and-set. With the {@link Layout#BLOCKED}
+ * layout all bits of a GTIN are in one 64 byte block, so that a lookup misses the cache once
+ * instead of once per hash function, at the cost of a slightly higher false positive rate.
+ * <p>
+ * Filters off the heap need the {@code gtin.java-x.y.z-offheap.jar} on the class path and Java 9
+ * or later. Memory is released when the filter is garbage collected, after {@link #close()} the
+ * filter must no longer be used.
+ */
+public final class GtinBloomFilter implements Closeable {
+
+    /**
+     * The layout of the bits of a GTIN in a filter.
+     */
+    public enum Layout {
+        /**
+         * Each bit of a GTIN anywhere in the filter, for the lowest false positive rate.
+         */
+        STANDARD,
+        /**
+         * All bits of a GTIN in one 512 bit block, the size of a cache line, for the fastest
+         * lookups.
+         */
+        BLOCKED
+    }
+
+    /**
+     * The largest number of bits of a filter, 32 GB.
+     */
+    public static final long MAX_BITS = 0x4000000000L;
+
+    private static final String OFF_HEAP_BITS = "com.powa.gtin.OffHeapBloomBits";
+    private static final int MAGIC = 0x4754424C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int BLOCK_SHIFT = 9;
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+    private static final int BLOCK_WORDS = 8;
+    private static final int WORD_SHIFT = 6;
+    private static final int HALF_SHIFT = 32;
+    private static final int MAX_HASH_FUNCTIONS = 32;
+    private static final double LN2 = Math.log(2);
+    private static final int MIX_SHIFT = 33;
+    private static final long MIX_1 = 0xFF51AFD7ED558CCDL;
+    private static final long MIX_2 = 0xC4CEB9FE1A85EC53L;
+
+    private final GtinBloomBits bits;
+    private final Layout layout;
+    private final int hashFunctions;
+    private final long slots;
+    private final FileChannel channel;
+
+    private GtinBloomFilter(final GtinBloomBits bits, final Layout layout, final int hashFunctions,
+            final FileChannel channel) {
+        this.bits = bits;
+        this.layout = layout;
+        this.hashFunctions = hashFunctions;
+        // Hashes pick a word of the standard layout or a block of the blocked layout
+        this.slots = layout == Layout.BLOCKED ? bits.words() / BLOCK_WORDS : bits.words();
+        this.channel = channel;
+    }
+
+    /**
+     * Creates a filter on the heap.
+     *
+     * @param expectedGtins the number of distinct GTINs expected to be inserted.
+     * @param falsePositiveRate the rate of false positives once the expected GTINs are inserted.
+     * @param layout the layout of the bits.
+     * @return the empty filter.
+     * @throws IllegalArgumentException if the number of GTINs is not positive, the rate is not
+     * between 0 and 1 or the filter would need more than {@link Integer#MAX_VALUE} words of 64
+     * bits, just under 2^37 bits or 16 GB, the most an array on the heap can hold. Larger filters,
+     * up to {@link #MAX_BITS} bits, must be off the heap.
+     */
+    public static GtinBloomFilter onHeap(final long expectedGtins, final double falsePositiveRate,
+            final Layout layout) {
+        long bitCount = optimalBits(expectedGtins, falsePositiveRate);
+        return new GtinBloomFilter(new HeapBloomBits(bitCount / Long.SIZE), layout,
+                optimalHashFunctions(expectedGtins, bitCount), null);
+    }
+
+    /**
+     * Creates a filter in direct memory, outside of the heap.
+     *
+     * @param expectedGtins the number of distinct GTINs expected to be inserted.
+     * @param falsePositiveRate the rate of false positives once the expected GTINs are inserted.
+     * @param layout the layout of the bits.
+     * @return the empty filter.
+     * @throws IllegalArgumentException if the number of GTINs is not positive, the rate is not
+     * between 0 and 1 or the filter would need more than {@link #MAX_BITS} bits.
+     * @throws UnsupportedOperationException if the off-heap jar or Java 9 is not available.
+     */
+    public static GtinBloomFilter offHeap(final long expectedGtins, final double falsePositiveRate,
+            final Layout layout) {
+        long bitCount = optimalBits(expectedGtins, falsePositiveRate);
+        GtinBloomBits bits;
+        try {
+            bits = newOffHeapBits(new Class<?>[] {long.class}, bitCount / Long.SIZE);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new GtinBloomFilter(bits, layout, optimalHashFunctions(expectedGtins, bitCount), null);
+    }
+
+    /**
+     * Creates a filter in a new memory-mapped file, which can be opened again with
+     * {@link #open(Path)}. The file holds a 64 byte header followed by the bits as 8 byte
+     * little-endian words.
+     *
+     * @param file the file to create.
+     * @param expectedGtins the number of distinct GTINs expected to be inserted.
+     * @param falsePositiveRate the rate of false positives once the expected GTINs are inserted.
+     * @param layout the layout of the bits.
+     * @return the empty filter.
+     * @throws IOException if the file already exists or cannot be created.
+     * @throws IllegalArgumentException if the number of GTINs is not positive, the rate is not
+     * between 0 and 1 or the filter would need more than {@link #MAX_BITS} bits.
+     * @throws UnsupportedOperationException if the off-heap jar or Java 9 is not available.
+     */
+    public static GtinBloomFilter create(final Path file, final long expectedGtins, final double falsePositiveRate,
+            final Layout layout) throws IOException {
+        long bitCount = optimalBits(expectedGtins, falsePositiveRate);
+        int hashFunctions = optimalHashFunctions(expectedGtins, bitCount);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean created = false;
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(layout.ordinal()).putInt(hashFunctions)
+                    .putLong(bitCount).rewind();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            GtinBloomFilter filter = mapped(channel, layout, hashFunctions, bitCount);
+            created = true;
+            return filter;
+        } finally {
+            if (!created) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Opens a filter in a memory-mapped file created by
+     * {@link #create(Path, long, double, Layout)}, keeping the GTINs inserted before.
+     *
+     * @param file the filter file.
+     * @return the filter.
+     * @throws IOException if the file cannot be read or is not a GTIN Bloom filter.
+     * @throws UnsupportedOperationException if the off-heap jar or Java 9 is not available.
+     */
+    public static GtinBloomFilter open(final Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean opened = false;
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("File '" + file + "' is not a gtin bloom filter");
+            }
+            int layout = header.getInt();
+            int hashFunctions = header.getInt();
+            long bitCount = header.getLong();
+            if (!isValidHeader(layout, hashFunctions, bitCount)) {
+                throw new IOException("File '" + file + "' has an invalid header");
+            }
+            if (channel.size() != HEADER_SIZE + bitCount / Byte.SIZE) {
+                throw new IOException("File '" + file + "' has the wrong size for " + bitCount + " bits");
+            }
+            GtinBloomFilter filter = mapped(channel, Layout.values()[layout], hashFunctions, bitCount);
+            opened = true;
+            return filter;
+        } finally {
+            if (!opened) {
+                channel.close();
+            }
+        }
+    }
+
+    private static boolean isValidHeader(final int layout, final int hashFunctions, final long bitCount) {
+        if (layout < 0 || layout >= Layout.values().length) {
+            return false;
+        }
+        if (hashFunctions < 1 || hashFunctions > MAX_HASH_FUNCTIONS) {
+            return false;
+        }
+        return bitCount > 0 && bitCount <= MAX_BITS && (bitCount & BLOCK_MASK) == 0;
+    }
+
+    private static GtinBloomFilter mapped(final FileChannel channel, final Layout layout, final int hashFunctions,
+            final long bitCount) throws IOException {
+        GtinBloomBits bits = newOffHeapBits(new Class<?>[] {FileChannel.class, long.class, long.class},
+                channel, (long) HEADER_SIZE, bitCount / Long.SIZE);
+        return new GtinBloomFilter(bits, layout, hashFunctions, channel);
+    }
+
+    private static GtinBloomBits newOffHeapBits(final Class<?>[] types, final Object... args) throws IOException {
+        try {
+            return (GtinBloomBits) Class.forName(OFF_HEAP_BITS).getDeclaredConstructor(types).newInstance(args);
+        } catch (final InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        } catch (final ReflectiveOperationException e) {
+            // The off-heap jar is not on the class path
+            throw new UnsupportedOperationException("Off-heap filters need the gtin.java offheap jar", e);
+        } catch (final LinkageError e) {
+            // The JVM is older than Java 9
+            throw new UnsupportedOperationException("Off-heap filters need Java 9 or later", e);
+        }
+    }
+
+    /**
+     * Calculates the number of bits a filter needs for the expected number of GTINs to have the
+     * given false positive rate, rounded up to whole 512 bit blocks.
+     *
+     * @param expectedGtins the number of distinct GTINs expected to be inserted.
+     * @param falsePositiveRate the rate of false positives once the expected GTINs are inserted.
+     * @return the number of bits.
+     * @throws IllegalArgumentException if the number of GTINs is not positive, the rate is not
+     * between 0 and 1 or the filter would need more than {@link #MAX_BITS} bits.
+     */
+    public static long optimalBits(final long expectedGtins, final double falsePositiveRate) {
+        if (expectedGtins <= 0) {
+            throw new IllegalArgumentException("Expected gtins must be positive: " + expectedGtins);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        double bitCount = Math.ceil(-expectedGtins * Math.log(falsePositiveRate) / (LN2 * LN2));
+        if (bitCount > MAX_BITS) {
+            throw new IllegalArgumentException("Filter needs more than " + MAX_BITS + " bits: " + bitCount);
+        }
+        return ((long) bitCount + BLOCK_MASK) & ~BLOCK_MASK;
+    }
+
+    private static int optimalHashFunctions(final long expectedGtins, final long bitCount) {
+        long count = Math.round((double) bitCount / expectedGtins * LN2);
+        return (int) Math.max(1, Math.min(MAX_HASH_FUNCTIONS, count));
+    }
+
+    /**
+     * Inserts the packed GTIN into this filter.
+     *
+     * @param packed the packed GTIN.
+     * @return {@code true} if the GTIN was definitely not in the filter before, {@code false} if
+     * it probably was. Threads inserting the same GTIN at the same time may all get {@code true}.
+     * @throws GtinFormatException if the value is not a valid packed GTIN.
+     */
+    public boolean put(final long packed) {
+        return insert(PackedGtin.checkValid(packed));
+    }
+
+    /**
+     * Inserts the GTIN into this filter.
+     *
+     * @param gtin the GTIN.
+     * @return {@code true} if the GTIN was definitely not in the filter before, {@code false} if
+     * it probably was.
+     */
+    public boolean put(final Gtin gtin) {
+        return insert(gtin.toLong());
+    }
+
+    /**
+     * Inserts the GTIN into this filter.
+     *
+     * @param gtin the GTIN string.
+     * @return {@code true} if the GTIN was definitely not in the filter before, {@code false} if
+     * it probably was.
+     * @throws GtinFormatException if the string is not a valid GTIN.
+     */
+    public boolean put(final CharSequence gtin) {
+        return insert(PackedGtin.pack(gtin));
+    }
+
+    /**
+     * Inserts the GTIN held as ASCII bytes into this filter.
+     *
+     * @param gtin the array holding the GTIN.
+     * @param offset the position of the first digit in the array.
+     * @param length the number of digits.
+     * @return {@code true} if the GTIN was definitely not in the filter before, {@code false} if
+     * it probably was.
+     * @throws GtinFormatException if the bytes are not a valid GTIN.
+     * @throws IndexOutOfBoundsException if the range is outside of the array.
+     */
+    public boolean put(final byte[] gtin, final int offset, final int length) {
+        long packed = PackedGtin.tryPack(gtin, offset, length);
+        if (packed == PackedGtin.INVALID) {
+            String ascii = new String(gtin, offset, length, StandardCharsets.US_ASCII);
+            throw Gtin.invalidGtin(ascii, GtinChecksum.check(ascii));
+        }
+        return insert(packed);
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return {@code true} if the GTIN was probably inserted, {@code false} if it definitely was
+     * not.
+     */
+    public boolean mightContain(final long packed) {
+        return find(packed);
+    }
+
+    /**
+     * @param gtin the GTIN.
+     * @return {@code true} if the GTIN was probably inserted, {@code false} if it definitely was
+     * not.
+     */
+    public boolean mightContain(final Gtin gtin) {
+        return find(gtin.toLong());
+    }
+
+    /**
+     * @param gtin the GTIN string.
+     * @return {@code true} if the GTIN was probably inserted, {@code false} if it definitely was
+     * not or the string is not a valid GTIN.
+     */
+    public boolean mightContain(final CharSequence gtin) {
+        long packed = PackedGtin.tryPack(gtin);
+        return packed != PackedGtin.INVALID && find(packed);
+    }
+
+    /**
+     * @param gtin the array holding the GTIN.
+     * @param offset the position of the first digit in the array.
+     * @param length the number of digits.
+     * @return {@code true} if the GTIN was probably inserted, {@code false} if it definitely was
+     * not or the bytes are not a valid GTIN.
+     * @throws IndexOutOfBoundsException if the range is outside of the array.
+     */
+    public boolean mightContain(final byte[] gtin, final int offset, final int length) {
+        long packed = PackedGtin.tryPack(gtin, offset, length);
+        return packed != PackedGtin.INVALID && find(packed);
+    }
+
+    /**
+     * Mixes all bits of the packed GTIN into the hash, as the finalizer of MurmurHash3.
+     */
+    static long hash(final long packed) {
+        long hash = packed;
+        hash = (hash ^ hash >>> MIX_SHIFT) * MIX_1;
+        hash = (hash ^ hash >>> MIX_SHIFT) * MIX_2;
+        return hash ^ hash >>> MIX_SHIFT;
+    }
+
+    /**
+     * Maps the high half of the hash to a slot by multiplying instead of dividing.
+     */
+    private long slot(final long hash) {
+        return (hash >>> HALF_SHIFT) * slots >>> HALF_SHIFT;
+    }
+
+    private boolean insert(final long packed) {
+        long hash = hash(packed);
+        // Double hashing, the odd step visits distinct bits of a block
+        long step = hash(hash) | 1;
+        boolean changed = false;
+        if (layout == Layout.BLOCKED) {
+            long block = slot(hash) * BLOCK_WORDS;
+            for (int i = 0, bit = (int) hash; i < hashFunctions; i++, bit += (int) step) {
+                changed |= bits.set(block + ((bit & BLOCK_MASK) >>> WORD_SHIFT), 1L << bit);
+            }
+        } else {
+            for (int i = 0; i < hashFunctions; i++, hash += step) {
+                changed |= bits.set(slot(hash), 1L << hash);
+            }
+        }
+        return changed;
+    }
+
+    private boolean find(final long packed) {
+        long hash = hash(packed);
+        long step = hash(hash) | 1;
+        if (layout == Layout.BLOCKED) {
+            long block = slot(hash) * BLOCK_WORDS;
+            for (int i = 0, bit = (int) hash; i < hashFunctions; i++, bit += (int) step) {
+                if ((bits.get(block + ((bit & BLOCK_MASK) >>> WORD_SHIFT)) & 1L << bit) == 0) {
+                    return false;
+                }
+            }
+        } else {
+            for (int i = 0; i < hashFunctions; i++, hash += step) {
+                if ((bits.get(slot(hash)) & 1L << hash) == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the false positive rate of this filter after inserting a number of distinct
+     * GTINs, to decide when a filter is too full and should be replaced.
+     *
+     * @param insertedGtins the number of distinct GTINs inserted.
+     * @return the expected rate of false positives.
+     */
+    public double falsePositiveRate(final long insertedGtins) {
+        double bitCount = bitSize();
+        return Math.pow(1 - Math.exp(-hashFunctions * insertedGtins / bitCount), hashFunctions);
+    }
+
+    /**
+     * @return the number of bits of this filter.
+     */
+    public long bitSize() {
+        return bits.words() * Long.SIZE;
+    }
+
+    /**
+     * @return the number of bits set for each GTIN.
+     */
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * @return the layout of the bits of this filter.
+     */
+    public Layout layout() {
+        return layout;
+    }
+
+    /**
+     * Writes the GTINs inserted into a memory-mapped filter to the storage device. Does nothing
+     * for a filter in memory.
+     */
+    public void force() {
+        bits.force();
+    }
+
+    /**
+     * Writes the GTINs inserted into a memory-mapped filter to the storage device and closes its
+     * file. Does nothing for a filter in memory.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            bits.force();
+            channel.close();
+        }
+    }
+
+}
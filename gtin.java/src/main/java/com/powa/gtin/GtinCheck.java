@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+/**
+ * Enumeration of the results of checking whether a string is a valid GTIN, see
+ * {@link Gtin#check(CharSequence)}.
+ */
+public enum GtinCheck {
+
+    /**
+     * A valid GTIN of any format.
+     */
+    VALID,
+
+    /**
+     * No GTIN, the input is {@code null}.
+     */
+    NULL,
+
+    /**
+     * The length does not match any GTIN format.
+     */
+    BAD_LENGTH,
+
+    /**
+     * The input contains a character other than a digit.
+     */
+    NON_DIGIT,
+
+    /**
+     * All characters are digits but the check digit does not match the checksum.
+     */
+    BAD_CHECKSUM;
+
+    /**
+     * @return {@code true} if this is the result of a valid GTIN, {@code false} otherwise.
+     */
+    public boolean isValid() {
+        return this == VALID;
+    }
+
+}
@@ -0,0 +1,254 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Single pass checksum calculation over the digits of a GTIN, using a precomputed table of
+ * weights for each GTIN format.
+ */
+final class GtinChecksum {
+
+    /**
+     * Returned by the weighted sum methods when a character is not a digit.
+     */
+    static final int NOT_A_NUMBER = -1;
+
+    private static final int RADIX = 10;
+    private static final int WEIGHT = 3;
+
+    // Word at a time digit check and sum of 8 ASCII bytes
+    private static final int WORD_BYTES = Long.SIZE / Byte.SIZE;
+    private static final long ZEROS = 0x3030303030303030L;
+    private static final long HIGH_NIBBLES = 0xF0F0F0F0F0F0F0F0L;
+    private static final long ABOVE_NINE = 0x0606060606060606L;
+    private static final long EVEN_BYTES = 0x00FF00FF00FF00FFL;
+    private static final long SUM_SHORTS = 0x0001000100010001L;
+    private static final int TOP_SHORT = 48;
+
+    private static final int[][] WEIGHTS = new int[GtinFormat.values().length][];
+    private static final GtinFormat[] FORMATS_BY_LENGTH;
+
+    static {
+        int maxLength = 0;
+        for (GtinFormat format : GtinFormat.values()) {
+            // Weights alternate 3, 1, 3, ... counting from the right, the check digit has weight 1
+            int[] weights = new int[format.length()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = (weights.length - i) % 2 == 0 ? 3 : 1;
+            }
+            WEIGHTS[format.ordinal()] = weights;
+            maxLength = Math.max(maxLength, format.length());
+        }
+        FORMATS_BY_LENGTH = new GtinFormat[maxLength + 1];
+        for (GtinFormat format : GtinFormat.values()) {
+            FORMATS_BY_LENGTH[format.length()] = format;
+        }
+    }
+
+    // Prevent instantiation
+    private GtinChecksum() {
+    }
+
+    /**
+     * Gets the GTIN format for the specified length.
+     *
+     * @param length the length of the GTIN.
+     * @return the format for the given length, or {@code null} if there is none.
+     */
+    static GtinFormat formatForLength(final int length) {
+        return length >= 0 && length < FORMATS_BY_LENGTH.length ? FORMATS_BY_LENGTH[length] : null;
+    }
+
+    /**
+     * Calculates the weighted sum of the first {@code count} characters of the input, using the
+     * weights of the given format. The caller is responsible for checking that the input has at
+     * least {@code count} characters and that {@code count} does not exceed the format length.
+     *
+     * @param digits the characters to sum.
+     * @param count the number of characters to sum.
+     * @param format the format whose weights should be used.
+     * @return the weighted sum, or {@link #NOT_A_NUMBER} if any character is not a digit.
+     */
+    static int weightedSum(final CharSequence digits, final int count, final GtinFormat format) {
+        int[] weights = WEIGHTS[format.ordinal()];
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = digits.charAt(i) - '0';
+            if (digit < 0 || digit >= RADIX) {
+                return NOT_A_NUMBER;
+            }
+            sum += digit * weights[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates the weighted sum of {@code count} ASCII bytes, using the weights of the given
+     * format. The caller is responsible for checking the bounds of the array.
+     *
+     * @param digits the bytes to sum.
+     * @param offset the position of the first byte.
+     * @param count the number of bytes to sum.
+     * @param format the format whose weights should be used.
+     * @return the weighted sum, or {@link #NOT_A_NUMBER} if any byte is not an ASCII digit.
+     */
+    static int weightedSum(final byte[] digits, final int offset, final int count, final GtinFormat format) {
+        int[] weights = WEIGHTS[format.ordinal()];
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = digits[offset + i] - '0';
+            if (digit < 0 || digit >= RADIX) {
+                return NOT_A_NUMBER;
+            }
+            sum += digit * weights[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates the weighted sum of {@code count} ASCII bytes, using the weights of the given
+     * format. The first 8 bytes are read and checked as a single {@code long}. The caller is
+     * responsible for checking the bounds of the buffer, the position of the buffer is not
+     * changed.
+     *
+     * @param digits the bytes to sum.
+     * @param offset the absolute position of the first byte.
+     * @param count the number of bytes to sum.
+     * @param format the format whose weights should be used.
+     * @return the weighted sum, or {@link #NOT_A_NUMBER} if any byte is not an ASCII digit.
+     */
+    static int weightedSum(final ByteBuffer digits, final int offset, final int count, final GtinFormat format) {
+        int[] weights = WEIGHTS[format.ordinal()];
+        int sum = 0;
+        int i = 0;
+        if (count >= WORD_BYTES) {
+            sum = wordSum(digits.getLong(offset), digits.order() == ByteOrder.LITTLE_ENDIAN, weights[0], weights[1]);
+            if (sum == NOT_A_NUMBER) {
+                return NOT_A_NUMBER;
+            }
+            i = WORD_BYTES;
+        }
+        for (; i < count; i++) {
+            int digit = digits.get(offset + i) - '0';
+            if (digit < 0 || digit >= RADIX) {
+                return NOT_A_NUMBER;
+            }
+            sum += digit * weights[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Checks and sums 8 ASCII digits held in a {@code long}, without a branch per digit.
+     *
+     * @param word the 8 bytes.
+     * @param littleEndian whether the first byte is the least significant byte of the word.
+     * @param evenWeight the weight of the bytes at even positions.
+     * @param oddWeight the weight of the bytes at odd positions.
+     * @return the weighted sum, or {@link #NOT_A_NUMBER} if any byte is not an ASCII digit.
+     */
+    static int wordSum(final long word, final boolean littleEndian, final int evenWeight, final int oddWeight) {
+        // Every byte must be 0x30 to 0x39: high nibble 3 and low nibble below 10
+        long values = word - ZEROS;
+        if ((word & HIGH_NIBBLES) != ZEROS || ((values + ABOVE_NINE) & HIGH_NIBBLES) != 0) {
+            return NOT_A_NUMBER;
+        }
+        // Add up the digits in alternate bytes by multiplying into the top 16 bits
+        int lowBytesSum = (int) (((values & EVEN_BYTES) * SUM_SHORTS) >>> TOP_SHORT);
+        int highBytesSum = (int) ((((values >>> Byte.SIZE) & EVEN_BYTES) * SUM_SHORTS) >>> TOP_SHORT);
+        if (littleEndian) {
+            return lowBytesSum * evenWeight + highBytesSum * oddWeight;
+        }
+        return highBytesSum * evenWeight + lowBytesSum * oddWeight;
+    }
+
+    /**
+     * Calculates the weighted sum modulo 10 of an item number, the value of a GTIN without its
+     * check digit, whose rightmost digit is weighted 3 as it is left of the check digit.
+     *
+     * @param itemNumber the item number.
+     * @return the weighted sum modulo 10.
+     */
+    static int itemNumberSum(final long itemNumber) {
+        int weightedSum = 0;
+        int weight = WEIGHT;
+        for (long rest = itemNumber; rest > 0; rest /= RADIX) {
+            weightedSum += (int) (rest % RADIX) * weight;
+            weight = WEIGHT + 1 - weight;
+        }
+        return weightedSum % RADIX;
+    }
+
+    /**
+     * Checks whether the first {@code count} characters of the input are all digits.
+     *
+     * @param chars the characters to check.
+     * @param count the number of characters to check.
+     * @return {@code true} if all characters are digits, {@code false} otherwise.
+     */
+    static boolean isDigits(final CharSequence chars, final int count) {
+        for (int i = 0; i < count; i++) {
+            int digit = chars.charAt(i) - '0';
+            if (digit < 0 || digit >= RADIX) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the character sequence is a valid GTIN like {@link Gtin#check(CharSequence)},
+     * without counting it in the metrics.
+     */
+    static GtinCheck check(final CharSequence gtin) {
+        if (gtin == null) {
+            return GtinCheck.NULL;
+        }
+        GtinFormat format = formatForLength(gtin.length());
+        int checkSum = format == null ? NOT_A_NUMBER : weightedSum(gtin, format.length(), format);
+        return isValidSum(checkSum) ? GtinCheck.VALID : reason(format, checkSum);
+    }
+
+    /**
+     * Gets the reason for an invalid GTIN from its format and weighted sum.
+     */
+    static GtinCheck reason(final GtinFormat format, final int checkSum) {
+        if (format == null) {
+            return GtinCheck.BAD_LENGTH;
+        }
+        return checkSum == NOT_A_NUMBER ? GtinCheck.NON_DIGIT : GtinCheck.BAD_CHECKSUM;
+    }
+
+    /**
+     * @param sum a weighted sum over a complete GTIN.
+     * @return {@code true} if the sum is a valid GTIN checksum, {@code false} otherwise.
+     */
+    static boolean isValidSum(final int sum) {
+        return sum != NOT_A_NUMBER && sum % RADIX == 0;
+    }
+
+    /**
+     * @param sum a weighted sum over a partial GTIN without check digit.
+     * @return the check digit which completes the GTIN.
+     */
+    static int checkDigit(final int sum) {
+        return (RADIX - sum % RADIX) % RADIX;
+    }
+
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary encodings of GTINs for streams and buffers, independent of Java serialization.
+ * <p>
+ * The fixed width encoding is the packed GTIN described by {@link PackedGtin} in 8 bytes. The
+ * variable width encoding is binary-coded decimal: the first half byte holds the format, as in
+ * the lowest bits of a packed GTIN, followed by one half byte for each digit except the check
+ * digit, which is calculated again when decoding. It takes 4 bytes for a GTIN-8, 6 bytes for a
+ * GTIN-12 and 7 bytes for a GTIN-13 or GTIN-14. All values are big-endian.
+ */
+public final class GtinCodec {
+
+    /**
+     * The length in bytes of the fixed width encoding.
+     */
+    public static final int PACKED_LENGTH = 8;
+
+    private static final int NIBBLE_BITS = 4;
+    private static final int NIBBLE_MASK = 0xF;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int RADIX = 10;
+    private static final GtinFormat[] FORMATS = GtinFormat.values();
+
+    // Prevent instantiation
+    private GtinCodec() {
+    }
+
+    /**
+     * Writes the GTIN in the fixed width encoding.
+     *
+     * @param out the output to write to.
+     * @param gtin the GTIN.
+     * @throws IOException if writing fails.
+     */
+    public static void writePacked(final DataOutput out, final Gtin gtin) throws IOException {
+        out.writeLong(gtin.toLong());
+    }
+
+    /**
+     * Reads a GTIN in the fixed width encoding.
+     *
+     * @param in the input to read from.
+     * @return the GTIN.
+     * @throws IOException if reading fails.
+     * @throws GtinFormatException if the bytes read are not a valid packed GTIN.
+     */
+    public static Gtin readPacked(final DataInput in) throws IOException {
+        return Gtin.fromLong(in.readLong());
+    }
+
+    /**
+     * Puts the GTIN in the fixed width encoding at the position of the buffer.
+     *
+     * @param buffer the buffer to write to.
+     * @param gtin the GTIN.
+     * @throws java.nio.BufferOverflowException if fewer than 8 bytes are remaining.
+     */
+    public static void putPacked(final ByteBuffer buffer, final Gtin gtin) {
+        buffer.putLong(gtin.toLong());
+    }
+
+    /**
+     * Gets a GTIN in the fixed width encoding from the position of the buffer.
+     *
+     * @param buffer the buffer to read from.
+     * @return the GTIN.
+     * @throws java.nio.BufferUnderflowException if fewer than 8 bytes are remaining.
+     * @throws GtinFormatException if the bytes are not a valid packed GTIN.
+     */
+    public static Gtin getPacked(final ByteBuffer buffer) {
+        return Gtin.fromLong(buffer.getLong());
+    }
+
+    /**
+     * @param format the GTIN format.
+     * @return the length in bytes of the variable width encoding of a GTIN of the format.
+     */
+    public static int bcdLength(final GtinFormat format) {
+        // One half byte for the format and each digit but the check digit, rounded up
+        return (format.length() + 1) / 2;
+    }
+
+    /**
+     * Writes the GTIN in the variable width encoding.
+     *
+     * @param out the output to write to.
+     * @param gtin the GTIN.
+     * @throws IOException if writing fails.
+     */
+    public static void writeBcd(final DataOutput out, final Gtin gtin) throws IOException {
+        long bcd = encode(gtin);
+        for (int i = bcdLength(gtin.format()) - 1; i >= 0; i--) {
+            out.writeByte((int) (bcd >>> i * Byte.SIZE));
+        }
+    }
+
+    /**
+     * Reads a GTIN in the variable width encoding.
+     *
+     * @param in the input to read from.
+     * @return the GTIN.
+     * @throws IOException if reading fails.
+     * @throws GtinFormatException if the bytes read are not a valid encoded GTIN.
+     */
+    public static Gtin readBcd(final DataInput in) throws IOException {
+        int first = in.readUnsignedByte();
+        GtinFormat format = format(first);
+        long bcd = first;
+        for (int i = 1; i < bcdLength(format); i++) {
+            bcd = bcd << Byte.SIZE | in.readUnsignedByte();
+        }
+        return decode(bcd, format);
+    }
+
+    /**
+     * Puts the GTIN in the variable width encoding at the position of the buffer.
+     *
+     * @param buffer the buffer to write to.
+     * @param gtin the GTIN.
+     * @throws java.nio.BufferOverflowException if too few bytes are remaining.
+     */
+    public static void putBcd(final ByteBuffer buffer, final Gtin gtin) {
+        long bcd = encode(gtin);
+        for (int i = bcdLength(gtin.format()) - 1; i >= 0; i--) {
+            buffer.put((byte) (bcd >>> i * Byte.SIZE));
+        }
+    }
+
+    /**
+     * Gets a GTIN in the variable width encoding from the position of the buffer.
+     *
+     * @param buffer the buffer to read from.
+     * @return the GTIN.
+     * @throws java.nio.BufferUnderflowException if too few bytes are remaining.
+     * @throws GtinFormatException if the bytes are not a valid encoded GTIN.
+     */
+    public static Gtin getBcd(final ByteBuffer buffer) {
+        int first = buffer.get() & BYTE_MASK;
+        GtinFormat format = format(first);
+        long bcd = first;
+        for (int i = 1; i < bcdLength(format); i++) {
+            bcd = bcd << Byte.SIZE | buffer.get() & BYTE_MASK;
+        }
+        return decode(bcd, format);
+    }
+
+    /**
+     * Encodes the format and all digits but the check digit into the lowest bytes of a long.
+     */
+    private static long encode(final Gtin gtin) {
+        int length = gtin.length();
+        long bcd = gtin.format().ordinal();
+        for (int i = 0; i < length - 1; i++) {
+            bcd = bcd << NIBBLE_BITS | gtin.digitAt(i);
+        }
+        // Pad to whole bytes
+        return length % 2 == 0 ? bcd : bcd << NIBBLE_BITS;
+    }
+
+    private static GtinFormat format(final int first) {
+        int ordinal = first >>> NIBBLE_BITS;
+        if (ordinal >= FORMATS.length) {
+            throw new GtinFormatException("Byte", Integer.toString(first), "encoded gtin format", GtinCheck.BAD_LENGTH);
+        }
+        return FORMATS[ordinal];
+    }
+
+    private static Gtin decode(final long bcd, final GtinFormat format) {
+        int length = format.length();
+        char[] digits = new char[length];
+        long remaining = length % 2 == 0 ? bcd : bcd >>> NIBBLE_BITS;
+        int checkSum = 0;
+        for (int i = length - 2; i >= 0; i--) {
+            int digit = (int) (remaining & NIBBLE_MASK);
+            if (digit >= RADIX) {
+                throw new GtinFormatException("Value", Long.toHexString(bcd), "encoded gtin", GtinCheck.NON_DIGIT);
+            }
+            digits[i] = (char) ('0' + digit);
+            // Weights alternate 3, 1, 3, ... counting from the digit left of the check digit
+            checkSum += (length - i) % 2 == 0 ? digit * 3 : digit;
+            remaining >>>= NIBBLE_BITS;
+        }
+        digits[length - 1] = (char) ('0' + GtinChecksum.checkDigit(checkSum));
+        return Gtin.create(new String(digits));
+    }
+
+}
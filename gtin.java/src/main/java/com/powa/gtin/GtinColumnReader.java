@@ -0,0 +1,283 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.powa.gtin.GtinColumnWriter.BLOCK_HEADER_SIZE;
+import static com.powa.gtin.GtinColumnWriter.HEADER_SIZE;
+import static com.powa.gtin.GtinColumnWriter.RECORD_BYTES;
+
+/**
+ * Reads the columnar GTIN files written by {@link GtinColumnWriter} from memory. The file is
+ * memory-mapped and read through a {@link Cursor}, which does not allocate per GTIN. Range and
+ * prefix scans skip the blocks whose smallest and largest GTIN or format rule out a match
+ * without reading their GTINs.
+ * <p>
+ * A reader may be used by many threads, each with its own cursor. Mapped memory is released
+ * when the reader is garbage collected, after {@link #close()} it must no longer be used.
+ */
+public final class GtinColumnReader implements Closeable {
+
+    private static final int RECORD_BITS = RECORD_BYTES * Byte.SIZE;
+    private static final long RECORD_MASK = (1L << RECORD_BITS) - 1;
+    private static final int FORMAT_OFFSET = 4;
+    private static final int MIN_OFFSET = 8;
+    private static final int MAX_OFFSET = 16;
+    private static final int RADIX = 10;
+
+    private final FileChannel channel;
+    private final ByteBuffer[] segments;
+    private final int blockBytes;
+    private final int blocksPerSegment;
+    private final int blockCount;
+    private final long size;
+
+    private GtinColumnReader(final FileChannel channel, final ByteBuffer[] segments, final int blockSize,
+            final int blocksPerSegment, final int blockCount, final long size) {
+        this.channel = channel;
+        this.segments = segments;
+        this.blockBytes = GtinColumnWriter.blockBytes(blockSize);
+        this.blocksPerSegment = blocksPerSegment;
+        this.blockCount = blockCount;
+        this.size = size;
+    }
+
+    /**
+     * Opens a columnar GTIN file for reading.
+     *
+     * @param file the file.
+     * @return the reader.
+     * @throws IOException if the file cannot be read or is not a columnar GTIN file.
+     */
+    public static GtinColumnReader open(final Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        boolean opened = false;
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != GtinColumnWriter.MAGIC
+                    || header.getInt() != GtinColumnWriter.VERSION) {
+                throw new IOException("File '" + file + "' is not a gtin column file");
+            }
+            int blockSize = header.getInt();
+            header.getInt();
+            long size = header.getLong();
+            if (blockSize <= 0 || blockSize > GtinColumnWriter.MAX_BLOCK_SIZE || size < 0
+                    || (size + blockSize - 1) / blockSize > Integer.MAX_VALUE) {
+                throw new IOException("File '" + file + "' has an invalid header");
+            }
+            int blockBytes = GtinColumnWriter.blockBytes(blockSize);
+            int blockCount = (int) ((size + blockSize - 1) / blockSize);
+            long lastBlock = size % blockSize == 0 ? 0 : blockSize - size % blockSize;
+            long fileSize = HEADER_SIZE + (long) blockCount * blockBytes - lastBlock * RECORD_BYTES;
+            if (channel.size() != fileSize) {
+                throw new IOException("File '" + file + "' has the wrong size for " + size + " gtins");
+            }
+            int blocksPerSegment = Integer.MAX_VALUE / blockBytes;
+            ByteBuffer[] segments = new ByteBuffer[(blockCount + blocksPerSegment - 1) / blocksPerSegment];
+            for (int i = 0; i < segments.length; i++) {
+                long offset = HEADER_SIZE + (long) i * blocksPerSegment * blockBytes;
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min((long) blocksPerSegment * blockBytes, fileSize - offset));
+                segments[i] = segment;
+            }
+            GtinColumnReader reader = new GtinColumnReader(channel, segments, blockSize, blocksPerSegment,
+                    blockCount, size);
+            opened = true;
+            return reader;
+        } finally {
+            if (!opened) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * @return the number of GTINs in the file.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the number of blocks in the file.
+     */
+    public int blockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return a cursor over all GTINs in the order they were written.
+     */
+    public Cursor cursor() {
+        return new Cursor(0, Long.MAX_VALUE, GtinColumnWriter.MIXED);
+    }
+
+    /**
+     * Creates a cursor over the GTINs in a range of packed GTINs, which is the range of their
+     * numeric values, see {@link PackedGtin}.
+     *
+     * @param from the smallest packed GTIN to include.
+     * @param to the largest packed GTIN to include.
+     * @return a cursor over the GTINs in the range in the order they were written.
+     */
+    public Cursor cursor(final long from, final long to) {
+        return new Cursor(from, to, GtinColumnWriter.MIXED);
+    }
+
+    /**
+     * Creates a cursor over the GTINs of a format starting with a prefix, such as a GS1 company
+     * prefix.
+     *
+     * @param prefix the leading digits of the GTINs.
+     * @param format the format of the GTINs.
+     * @return a cursor over the matching GTINs in the order they were written.
+     * @throws IllegalArgumentException if the prefix is not a string of digits no longer than
+     * the format.
+     */
+    public Cursor cursor(final CharSequence prefix, final GtinFormat format) {
+        if (prefix == null || format == null || prefix.length() > format.length()) {
+            throw new IllegalArgumentException("Prefix '" + prefix + "' does not match format " + format);
+        }
+        long value = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int digit = prefix.charAt(i) - '0';
+            if (digit < 0 || digit >= RADIX) {
+                throw new IllegalArgumentException("Prefix '" + prefix + "' is not a string of digits");
+            }
+            value = value * RADIX + digit;
+        }
+        long scale = 1;
+        for (int i = prefix.length(); i < format.length(); i++) {
+            scale *= RADIX;
+        }
+        return new Cursor(PackedGtin.packValue(value * scale, format),
+                PackedGtin.packValue((value + 1) * scale - 1, format), (byte) format.ordinal());
+    }
+
+    /**
+     * Closes the file of this reader.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Iterates over the GTINs of a reader, one at a time:
+     * <pre>
+     * GtinColumnReader.Cursor cursor = reader.cursor();
+     * while (cursor.next()) {
+     *     long packed = cursor.packed();
+     * }
+     * </pre>
+     * A cursor must only be used by one thread.
+     */
+    public final class Cursor {
+
+        private final long from;
+        private final long to;
+        private final byte format;
+        private int block = -1;
+        private ByteBuffer segment;
+        private int position;
+        private int end;
+        private long packed;
+
+        Cursor(final long from, final long to, final byte format) {
+            this.from = from;
+            this.to = to;
+            this.format = format;
+        }
+
+        /**
+         * Moves to the next matching GTIN.
+         *
+         * @return {@code true} if there is a next GTIN, {@code false} if the cursor is past the
+         * last one.
+         */
+        public boolean next() {
+            while (true) {
+                while (position < end) {
+                    // The byte before each GTIN is the end of the block header or the previous GTIN
+                    long current = segment.getLong(position - 1) & RECORD_MASK;
+                    position += RECORD_BYTES;
+                    if (current >= from && current <= to && matches((byte) PackedGtin.format(current).ordinal())) {
+                        packed = current;
+                        return true;
+                    }
+                }
+                if (!nextBlock()) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Moves to the next block which may hold matching GTINs.
+         */
+        private boolean nextBlock() {
+            while (++block < blockCount) {
+                segment = segments[block / blocksPerSegment];
+                int start = block % blocksPerSegment * blockBytes;
+                byte blockFormat = segment.get(start + FORMAT_OFFSET);
+                if (segment.getLong(start + MIN_OFFSET) <= to && segment.getLong(start + MAX_OFFSET) >= from
+                        && (blockFormat == GtinColumnWriter.MIXED || matches(blockFormat))) {
+                    position = start + BLOCK_HEADER_SIZE;
+                    end = position + segment.getInt(start) * RECORD_BYTES;
+                    return true;
+                }
+            }
+            position = 0;
+            end = 0;
+            return false;
+        }
+
+        private boolean matches(final byte gtinFormat) {
+            return format == GtinColumnWriter.MIXED || gtinFormat == format;
+        }
+
+        /**
+         * @return the current GTIN in packed form.
+         */
+        public long packed() {
+            return packed;
+        }
+
+        /**
+         * @return the current GTIN.
+         */
+        public Gtin gtin() {
+            return Gtin.fromLong(packed);
+        }
+
+    }
+
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams GTINs to a columnar file, read with {@link GtinColumnReader}.
+ * <p>
+ * The file holds a 24 byte header of the magic number {@code 0x47544943} ("GTIC"), the format
+ * version, the number of GTINs per block and the total number of GTINs, followed by the
+ * blocks. Each block starts with a 24 byte header of the number of GTINs in the block, the
+ * ordinal of the {@link GtinFormat} shared by all of them or {@code -1} if they are of
+ * different formats, and the smallest and largest packed GTIN in the block. It is followed by
+ * the packed GTINs, see {@link PackedGtin}, as 7 byte big-endian values in the order they
+ * were written. All blocks but the last are full.
+ * <p>
+ * GTINs are buffered one block at a time and the total is written to the header on
+ * {@link #close()}, a file which was not closed cannot be read.
+ */
+public final class GtinColumnWriter implements Closeable {
+
+    /**
+     * The number of GTINs per block of a writer created without a block size.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    static final int MAGIC = 0x47544943;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int BLOCK_HEADER_SIZE = 24;
+    static final int RECORD_BYTES = 7;
+    static final int MAX_BLOCK_SIZE = (Integer.MAX_VALUE - BLOCK_HEADER_SIZE) / RECORD_BYTES;
+    static final byte MIXED = -1;
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final ByteBuffer block;
+    private long count;
+    private int blockCount;
+    private int blockFormat;
+    private long blockMin;
+    private long blockMax;
+
+    /**
+     * Creates a writer with {@link #DEFAULT_BLOCK_SIZE} GTINs per block.
+     *
+     * @param file the file to write, replacing any existing file.
+     * @throws IOException if the file cannot be created.
+     */
+    public GtinColumnWriter(final Path file) throws IOException {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param file the file to write, replacing any existing file.
+     * @param blockSize the number of GTINs per block.
+     * @throws IOException if the file cannot be created.
+     */
+    public GtinColumnWriter(final Path file, final int blockSize) throws IOException {
+        if (blockSize <= 0 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Block size " + blockSize + " is out of range");
+        }
+        this.blockSize = blockSize;
+        block = ByteBuffer.allocate(blockBytes(blockSize));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        // Reserve the header, it is written on close
+        channel.position(HEADER_SIZE);
+    }
+
+    /**
+     * @return the size in bytes of a full block.
+     */
+    static int blockBytes(final int blockSize) {
+        return BLOCK_HEADER_SIZE + blockSize * RECORD_BYTES;
+    }
+
+    /**
+     * Appends a packed GTIN.
+     *
+     * @param packed the packed GTIN.
+     * @throws GtinFormatException if the value is not a valid packed GTIN.
+     * @throws IOException if a full block cannot be written.
+     */
+    public void write(final long packed) throws IOException {
+        PackedGtin.checkValid(packed);
+        int format = PackedGtin.format(packed).ordinal();
+        if (blockCount == 0) {
+            blockFormat = format;
+            blockMin = packed;
+            blockMax = packed;
+        } else {
+            blockFormat = blockFormat == format ? format : MIXED;
+            blockMin = Math.min(blockMin, packed);
+            blockMax = Math.max(blockMax, packed);
+        }
+        int position = BLOCK_HEADER_SIZE + blockCount * RECORD_BYTES;
+        for (int i = 0; i < RECORD_BYTES; i++) {
+            block.put(position + i, (byte) (packed >>> (RECORD_BYTES - 1 - i) * Byte.SIZE));
+        }
+        blockCount++;
+        count++;
+        if (blockCount == blockSize) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Appends a GTIN.
+     *
+     * @param gtin the GTIN.
+     * @throws IOException if a full block cannot be written.
+     */
+    public void write(final Gtin gtin) throws IOException {
+        write(gtin.toLong());
+    }
+
+    /**
+     * Appends a GTIN.
+     *
+     * @param gtin the GTIN string.
+     * @throws GtinFormatException if the string is not a valid GTIN.
+     * @throws IOException if a full block cannot be written.
+     */
+    public void write(final CharSequence gtin) throws IOException {
+        write(PackedGtin.pack(gtin));
+    }
+
+    /**
+     * @return the number of GTINs written so far.
+     */
+    public long count() {
+        return count;
+    }
+
+    private void flushBlock() throws IOException {
+        block.clear();
+        block.putInt(blockCount).put((byte) blockFormat).position(Long.SIZE / Byte.SIZE);
+        block.putLong(blockMin).putLong(blockMax);
+        block.clear().limit(BLOCK_HEADER_SIZE + blockCount * RECORD_BYTES);
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+        block.clear();
+        blockCount = 0;
+    }
+
+    /**
+     * Writes the last block and the header and closes the file.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            if (blockCount > 0) {
+                flushBlock();
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(blockSize).putInt(0).putLong(count).flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,521 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable set of GTINs compressed with Elias-Fano coding, taking 2 to 3 bytes per GTIN for
+ * sets of millions of GTINs, and supporting lookups, ranks and iteration in the order of packed
+ * GTINs, see {@link PackedGtin}, without decompressing. GTINs can be looked up as {@link Gtin}
+ * objects, character sequences or packed values without allocating.
+ * <p>
+ * Each GTIN is stored as its item number and format, dropping the check digit which follows
+ * from them, relative to the smallest GTIN. The lower bits of each of these keys are stored
+ * verbatim and the upper bits in unary, as the gaps between the upper bits of consecutive keys,
+ * so that {@code n} GTINs spread over a range of {@code u} keys take {@code n} times
+ * {@code 2 + log2(u / n)} bits. A lookup finds the keys sharing its upper bits through samples
+ * of every 256th position, and compares their lower bits.
+ * <p>
+ * Sets are built by a {@link Builder} from GTINs in ascending order, which holds the gaps between
+ * them in variable length bytes until the set is built. Sets are thread safe.
+ */
+public final class GtinCompactSet {
+
+    private static final int FORMAT_BITS = 2;
+    private static final long FORMAT_MASK = (1L << FORMAT_BITS) - 1;
+    private static final int RADIX = 10;
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = Long.SIZE - 1;
+    private static final int SAMPLE_SHIFT = 8;
+    private static final long SAMPLE_MASK = (1L << SAMPLE_SHIFT) - 1;
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT
+            | Spliterator.IMMUTABLE;
+    private static final GtinFormat[] FORMATS = GtinFormat.values();
+
+    private final int size;
+    private final long min;
+    private final long max;
+    private final int lowBits;
+    private final long lowMask;
+    private final long[] low;
+    private final long[] high;
+    private final long highLength;
+    private final long[] oneSamples;
+    private final long[] zeroSamples;
+
+    private GtinCompactSet(final int size, final long min, final long max, final PrimitiveIterator.OfLong keys) {
+        this.size = size;
+        this.min = min;
+        this.max = max;
+        long range = max - min;
+        // The largest number of lower bits which keeps the upper bits at most 2 bits per key
+        this.lowBits = size == 0 ? 0 : Math.max(0, Long.SIZE - 1 - Long.numberOfLeadingZeros(range / size));
+        this.lowMask = (1L << lowBits) - 1;
+        // One more word, so that keys without lower bits read and write a word which exists
+        this.low = new long[words((long) size * lowBits) + 1];
+        this.highLength = size + (range >>> lowBits) + 1;
+        this.high = new long[words(highLength)];
+        for (int i = 0; i < size; i++) {
+            long key = keys.nextLong() - min;
+            setLow(i, key & lowMask);
+            long position = (key >>> lowBits) + i;
+            high[(int) (position >>> WORD_SHIFT)] |= 1L << position;
+        }
+        this.oneSamples = samples(true, size);
+        this.zeroSamples = samples(false, highLength - size);
+    }
+
+    /**
+     * Creates a set of the given packed GTINs, which do not need to be sorted and may be
+     * repeated.
+     *
+     * @param packed the packed GTINs.
+     * @return the set.
+     * @throws GtinFormatException if any of the values is not a valid packed GTIN.
+     */
+    public static GtinCompactSet of(final long... packed) {
+        long[] sorted = packed.clone();
+        GtinSort.sort(sorted);
+        Builder builder = new Builder();
+        for (long gtin : sorted) {
+            builder.add(gtin);
+        }
+        return builder.build();
+    }
+
+    private static int words(final long bits) {
+        return (int) ((bits + WORD_MASK) >>> WORD_SHIFT);
+    }
+
+    /**
+     * Turns a packed GTIN into its key, its item number and format.
+     */
+    static long key(final long packed) {
+        return PackedGtin.value(packed) / RADIX << FORMAT_BITS | packed & FORMAT_MASK;
+    }
+
+    /**
+     * Turns a key back into a packed GTIN by calculating the check digit of the item number.
+     */
+    static long packed(final long key) {
+        long itemNumber = key >>> FORMAT_BITS;
+        int checkDigit = GtinChecksum.checkDigit(GtinChecksum.itemNumberSum(itemNumber));
+        return PackedGtin.packValue(itemNumber * RADIX + checkDigit, FORMATS[(int) (key & FORMAT_MASK)]);
+    }
+
+    private void setLow(final int index, final long value) {
+        long bit = (long) index * lowBits;
+        int word = (int) (bit >>> WORD_SHIFT);
+        int offset = (int) (bit & WORD_MASK);
+        low[word] |= value << offset;
+        if (offset + lowBits > Long.SIZE) {
+            low[word + 1] |= value >>> (Long.SIZE - offset);
+        }
+    }
+
+    private long low(final long index) {
+        long bit = index * lowBits;
+        int word = (int) (bit >>> WORD_SHIFT);
+        int offset = (int) (bit & WORD_MASK);
+        long value = low[word] >>> offset;
+        if (offset + lowBits > Long.SIZE) {
+            value |= low[word + 1] << (Long.SIZE - offset);
+        }
+        return value & lowMask;
+    }
+
+    private long highWord(final int word, final boolean ones) {
+        return ones ? high[word] : ~high[word];
+    }
+
+    private boolean isOne(final long position) {
+        return (high[(int) (position >>> WORD_SHIFT)] & 1L << position) != 0;
+    }
+
+    /**
+     * Records the position of every 256th one or zero of the upper bits.
+     */
+    private long[] samples(final boolean ones, final long count) {
+        long[] samples = new long[(int) ((count + SAMPLE_MASK) >>> SAMPLE_SHIFT)];
+        long seen = 0;
+        for (int word = 0; word < high.length && seen < count; word++) {
+            long bits = highWord(word, ones);
+            int bitCount = Long.bitCount(bits);
+            // The first bit of the word to record, as the next sample is the next multiple of 256
+            long next = (seen + SAMPLE_MASK) & ~SAMPLE_MASK;
+            while (next < seen + bitCount && next < count) {
+                samples[(int) (next >>> SAMPLE_SHIFT)] = (long) word << WORD_SHIFT | selectInWord(bits, next - seen);
+                next += SAMPLE_MASK + 1;
+            }
+            seen += bitCount;
+        }
+        return samples;
+    }
+
+    /**
+     * @return the position of the set bit of the given rank in the word, found by halving the
+     * word down to a byte and clearing the lower bits of the byte.
+     */
+    private static int selectInWord(final long word, final long rank) {
+        long bits = word;
+        long remaining = rank;
+        int position = 0;
+        for (int width = Integer.SIZE; width >= Byte.SIZE; width >>>= 1) {
+            long lower = bits & (1L << width) - 1;
+            int count = Long.bitCount(lower);
+            if (remaining >= count) {
+                remaining -= count;
+                bits >>>= width;
+                position += width;
+            } else {
+                bits = lower;
+            }
+        }
+        for (; remaining > 0; remaining--) {
+            bits &= bits - 1;
+        }
+        return position + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * @return the position of the one or zero of the given rank in the upper bits.
+     */
+    private long select(final boolean ones, final long rank) {
+        long sample = (ones ? oneSamples : zeroSamples)[(int) (rank >>> SAMPLE_SHIFT)];
+        long remaining = rank & SAMPLE_MASK;
+        int word = (int) (sample >>> WORD_SHIFT);
+        long bits = highWord(word, ones) & -1L << sample;
+        for (int count = Long.bitCount(bits); remaining >= count; count = Long.bitCount(bits)) {
+            remaining -= count;
+            bits = highWord(++word, ones);
+        }
+        return (long) word << WORD_SHIFT | selectInWord(bits, remaining);
+    }
+
+    /**
+     * @return the position in the upper bits of the first key with the given upper bits, if any.
+     */
+    private long bucket(final long upper) {
+        // Keys with upper bits u follow the u-th zero
+        return upper == 0 ? 0 : select(false, upper - 1) + 1;
+    }
+
+    private boolean containsKey(final long key) {
+        if (size == 0 || key < min || key > max) {
+            return false;
+        }
+        long upper = (key - min) >>> lowBits;
+        long lower = (key - min) & lowMask;
+        long position = bucket(upper);
+        for (long index = position - upper; isOne(position); position++, index++) {
+            long value = low(index);
+            if (value >= lower) {
+                return value == lower;
+            }
+        }
+        return false;
+    }
+
+    private int rankKey(final long key) {
+        if (size == 0 || key <= min) {
+            return 0;
+        } else if (key > max) {
+            return size;
+        }
+        long upper = (key - min) >>> lowBits;
+        long lower = (key - min) & lowMask;
+        long position = bucket(upper);
+        long index = position - upper;
+        for (; isOne(position) && low(index) < lower; position++) {
+            index++;
+        }
+        return (int) index;
+    }
+
+    private long keyAt(final long position, final long index) {
+        return min + ((position - index) << lowBits | low(index));
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return {@code true} if this set contains the GTIN, {@code false} otherwise.
+     */
+    public boolean contains(final long packed) {
+        return PackedGtin.isValid(packed) && containsKey(key(packed));
+    }
+
+    /**
+     * @param gtin the GTIN.
+     * @return {@code true} if this set contains the GTIN, {@code false} otherwise.
+     */
+    public boolean contains(final Gtin gtin) {
+        return containsKey(key(gtin.toLong()));
+    }
+
+    /**
+     * @param gtin the GTIN string.
+     * @return {@code true} if this set contains the GTIN, {@code false} otherwise or if the
+     * string is not a valid GTIN.
+     */
+    public boolean contains(final CharSequence gtin) {
+        long packed = PackedGtin.tryPack(gtin);
+        return packed != PackedGtin.INVALID && containsKey(key(packed));
+    }
+
+    /**
+     * Counts the GTINs of this set which are smaller than the given GTIN in the order of packed
+     * GTINs, which is also the index of the GTIN in this set if it is contained.
+     *
+     * @param packed the packed GTIN.
+     * @return the number of smaller GTINs.
+     * @throws GtinFormatException if the value is not a valid packed GTIN.
+     */
+    public int rank(final long packed) {
+        return rankKey(key(PackedGtin.checkValid(packed)));
+    }
+
+    /**
+     * Counts the GTINs of this set which are smaller than the given GTIN in the order of packed
+     * GTINs, which is also the index of the GTIN in this set if it is contained.
+     *
+     * @param gtin the GTIN.
+     * @return the number of smaller GTINs.
+     */
+    public int rank(final Gtin gtin) {
+        return rankKey(key(gtin.toLong()));
+    }
+
+    /**
+     * Counts the GTINs of this set which are smaller than the given GTIN in the order of packed
+     * GTINs, which is also the index of the GTIN in this set if it is contained.
+     *
+     * @param gtin the GTIN string.
+     * @return the number of smaller GTINs.
+     * @throws GtinFormatException if the string is not a valid GTIN.
+     */
+    public int rank(final CharSequence gtin) {
+        return rankKey(key(PackedGtin.pack(gtin)));
+    }
+
+    /**
+     * @param index the index of the GTIN in the order of packed GTINs.
+     * @return the packed GTIN.
+     * @throws IndexOutOfBoundsException if the index is not between 0 and size - 1.
+     */
+    public long get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return packed(keyAt(select(true, index), index));
+    }
+
+    /**
+     * @return the number of GTINs in this set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true} if this set contains no GTINs, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of bytes taken by the arrays of this set.
+     */
+    public long sizeInBytes() {
+        return (long) (low.length + high.length + oneSamples.length + zeroSamples.length) * Long.BYTES;
+    }
+
+    /**
+     * @return an iterator over the packed GTINs of this set in ascending order.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int index;
+            private long position;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public long nextLong() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                int word = (int) (position >>> WORD_SHIFT);
+                long bits = high[word] & -1L << position;
+                while (bits == 0) {
+                    bits = high[++word];
+                }
+                position = (long) word << WORD_SHIFT | Long.numberOfTrailingZeros(bits);
+                long key = keyAt(position++, index++);
+                return packed(key);
+            }
+        };
+    }
+
+    /**
+     * @return a sequential stream of the packed GTINs of this set in ascending order.
+     */
+    public LongStream stream() {
+        return StreamSupport.longStream(Spliterators.spliterator(iterator(), size, CHARACTERISTICS), false);
+    }
+
+    /**
+     * Builds a {@link GtinCompactSet} from GTINs added in ascending order of their packed GTINs,
+     * such as the GTINs of a sorted file or the output of {@link GtinSort}. A GTIN equal to the
+     * previous one is ignored. The builder holds about 3 bytes per GTIN and can be used again
+     * after building a set. This class is not thread safe.
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+        private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+        private static final int MAX_VARINT_BYTES = 10;
+        private static final int VARINT_SHIFT = 7;
+        private static final int VARINT_MORE = 0x80;
+        private static final int VARINT_MASK = 0x7F;
+
+        private byte[] gaps = new byte[INITIAL_CAPACITY];
+        private int length;
+        private int size;
+        private long first;
+        private long last;
+
+        /**
+         * Adds the packed GTIN.
+         *
+         * @param packed the packed GTIN.
+         * @return this builder.
+         * @throws GtinFormatException if the value is not a valid packed GTIN.
+         * @throws IllegalArgumentException if the GTIN is smaller than the previous GTIN.
+         */
+        public Builder add(final long packed) {
+            return addKey(key(PackedGtin.checkValid(packed)));
+        }
+
+        /**
+         * Adds the GTIN.
+         *
+         * @param gtin the GTIN.
+         * @return this builder.
+         * @throws IllegalArgumentException if the GTIN is smaller than the previous GTIN.
+         */
+        public Builder add(final Gtin gtin) {
+            return addKey(key(gtin.toLong()));
+        }
+
+        /**
+         * Adds the GTIN.
+         *
+         * @param gtin the GTIN string.
+         * @return this builder.
+         * @throws GtinFormatException if the string is not a valid GTIN.
+         * @throws IllegalArgumentException if the GTIN is smaller than the previous GTIN.
+         */
+        public Builder add(final CharSequence gtin) {
+            return addKey(key(PackedGtin.pack(gtin)));
+        }
+
+        private Builder addKey(final long key) {
+            if (size > 0 && key <= last) {
+                if (key == last) {
+                    return this;
+                }
+                throw new IllegalArgumentException("GTIN " + PackedGtin.toString(packed(key))
+                        + " added after larger GTIN " + PackedGtin.toString(packed(last)));
+            }
+            if (size == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many GTINs: " + size);
+            }
+            if (length + MAX_VARINT_BYTES > gaps.length) {
+                grow();
+            }
+            long gap = size == 0 ? 0 : key - last;
+            while (gap > VARINT_MASK) {
+                gaps[length++] = (byte) (gap | VARINT_MORE);
+                gap >>>= VARINT_SHIFT;
+            }
+            gaps[length++] = (byte) gap;
+            if (size == 0) {
+                first = key;
+            }
+            last = key;
+            size++;
+            return this;
+        }
+
+        private void grow() {
+            if (gaps.length == MAX_CAPACITY) {
+                throw new IllegalStateException("Too many GTINs: " + size);
+            }
+            gaps = Arrays.copyOf(gaps, (int) Math.min(MAX_CAPACITY, 2L * gaps.length));
+        }
+
+        /**
+         * @return the number of distinct GTINs added.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Builds a set of the GTINs added so far.
+         *
+         * @return the set.
+         */
+        public GtinCompactSet build() {
+            return new GtinCompactSet(size, first, last, new PrimitiveIterator.OfLong() {
+                private int offset;
+                private long key = first;
+
+                @Override
+                public boolean hasNext() {
+                    return offset < length;
+                }
+
+                @Override
+                public long nextLong() {
+                    long gap = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = gaps[offset++];
+                        gap |= (long) (b & VARINT_MASK) << shift;
+                        shift += VARINT_SHIFT;
+                    } while ((b & VARINT_MORE) != 0);
+                    key += gap;
+                    return key;
+                }
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * Orders GTINs by their numeric value regardless of format, so that e.g. the UPC-A (GTIN-12)
+ * {@code 012345678905} and its EAN-13 form {@code 0012345678905} are equal. GTINs are compared
+ * digit by digit, ignoring leading zeros, without creating padded copies.
+ * <p>
+ * This comparator is not consistent with {@link String#equals(Object)} or
+ * {@link Gtin#equals(Object)}, which tell the formats apart.
+ */
+public final class GtinComparator implements Comparator<CharSequence>, Serializable {
+
+    /**
+     * The comparator instance.
+     */
+    public static final GtinComparator INSTANCE = new GtinComparator();
+
+    private static final long serialVersionUID = 1L;
+
+    // Prevent instantiation
+    private GtinComparator() {
+    }
+
+    /**
+     * Compares two GTINs by numeric value.
+     *
+     * @param gtin1 the first GTIN, of any format.
+     * @param gtin2 the second GTIN, of any format.
+     * @return a negative number, zero or a positive number if the first GTIN is less than, equal
+     * to or greater than the second.
+     * @throws IllegalArgumentException if either GTIN is null.
+     */
+    @Override
+    public int compare(final CharSequence gtin1, final CharSequence gtin2) {
+        return compareDigits(gtin1, gtin2);
+    }
+
+    /**
+     * Checks if two GTINs identify the same item, i.e. have the same GTIN-14 form.
+     *
+     * @param gtin1 the first GTIN, of any format.
+     * @param gtin2 the second GTIN, of any format.
+     * @return {@code true} if both GTINs have the same numeric value, {@code false} otherwise.
+     * @throws IllegalArgumentException if either GTIN is null.
+     */
+    public static boolean equivalent(final CharSequence gtin1, final CharSequence gtin2) {
+        return compareDigits(gtin1, gtin2) == 0;
+    }
+
+    /**
+     * Compares two strings of digits as decimal numbers.
+     */
+    static int compareDigits(final CharSequence digits1, final CharSequence digits2) {
+        if (digits1 == null || digits2 == null) {
+            throw new IllegalArgumentException("gtin is null");
+        }
+        int start1 = firstNonZero(digits1);
+        int start2 = firstNonZero(digits2);
+        int length1 = digits1.length() - start1;
+        int length2 = digits2.length() - start2;
+        if (length1 != length2) {
+            return length1 < length2 ? -1 : 1;
+        }
+        for (int i = 0; i < length1; i++) {
+            int difference = digits1.charAt(start1 + i) - digits2.charAt(start2 + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+
+    private static int firstNonZero(final CharSequence digits) {
+        int start = 0;
+        while (start < digits.length() && digits.charAt(start) == '0') {
+            start++;
+        }
+        return start;
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Result of validating a file of GTINs with a {@link GtinFileValidator}: the number of valid
+ * GTINs of each format and the position of every invalid line.
+ */
+public final class GtinFileReport {
+
+    private final long[] formatCounts = new long[GtinFormat.values().length];
+    private long lines;
+    private long[] invalidOffsets = new long[0];
+    private long[] invalidLines = new long[0];
+    private int invalidCount;
+    private IOException failure;
+
+    GtinFileReport() {
+    }
+
+    void addValid(final GtinFormat format) {
+        formatCounts[format.ordinal()]++;
+        lines++;
+    }
+
+    void addInvalid(final long offset) {
+        if (invalidCount == invalidOffsets.length) {
+            int capacity = Math.max(GtinFormat.GTIN_8.length(), invalidCount * 2);
+            invalidOffsets = Arrays.copyOf(invalidOffsets, capacity);
+            invalidLines = Arrays.copyOf(invalidLines, capacity);
+        }
+        invalidOffsets[invalidCount] = offset;
+        invalidLines[invalidCount] = lines;
+        invalidCount++;
+        lines++;
+    }
+
+    void fail(final IOException e) {
+        failure = e;
+    }
+
+    /**
+     * Appends the report of the part of the file that follows this one.
+     *
+     * @param next the report of the following part.
+     * @return this report.
+     */
+    GtinFileReport append(final GtinFileReport next) {
+        for (int i = 0; i < formatCounts.length; i++) {
+            formatCounts[i] += next.formatCounts[i];
+        }
+        invalidOffsets = Arrays.copyOf(invalidOffsets, invalidCount + next.invalidCount);
+        invalidLines = Arrays.copyOf(invalidLines, invalidCount + next.invalidCount);
+        System.arraycopy(next.invalidOffsets, 0, invalidOffsets, invalidCount, next.invalidCount);
+        for (int i = 0; i < next.invalidCount; i++) {
+            invalidLines[invalidCount + i] = lines + next.invalidLines[i];
+        }
+        invalidCount += next.invalidCount;
+        lines += next.lines;
+        if (failure == null) {
+            failure = next.failure;
+        }
+        return this;
+    }
+
+    IOException failure() {
+        return failure;
+    }
+
+    /**
+     * @return the number of lines in the file.
+     */
+    public long lines() {
+        return lines;
+    }
+
+    /**
+     * @return the number of valid GTINs.
+     */
+    public long validCount() {
+        return lines - invalidCount;
+    }
+
+    /**
+     * @param format the GTIN format.
+     * @return the number of valid GTINs of the given format.
+     */
+    public long validCount(final GtinFormat format) {
+        return formatCounts[format.ordinal()];
+    }
+
+    /**
+     * @return the number of lines which are not a valid GTIN.
+     */
+    public int invalidCount() {
+        return invalidCount;
+    }
+
+    /**
+     * @return the byte offsets of the start of the invalid lines, in file order.
+     */
+    public long[] invalidOffsets() {
+        return Arrays.copyOf(invalidOffsets, invalidCount);
+    }
+
+    /**
+     * @return the line numbers of the invalid lines, counting from 1, in file order.
+     */
+    public long[] invalidLines() {
+        long[] result = new long[invalidCount];
+        for (int i = 0; i < invalidCount; i++) {
+            result[i] = invalidLines[i] + 1;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Validates files of GTINs, one per line, in parallel. The file is memory-mapped and split into
+ * chunks which are validated straight from the mapped bytes by the tasks of a fork join pool.
+ * <p>
+ * Lines are separated by {@code '\n'} and may end with {@code '\r'}. A line is valid if it is
+ * a GTIN-8, GTIN-12, GTIN-13 or GTIN-14 without any other characters, so empty lines are
+ * reported as invalid.
+ */
+public final class GtinFileValidator {
+
+    /**
+     * Default number of bytes validated by a single task, 8 MiB.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8388608;
+
+    // Longest line which could be valid, with a '\r' and one more byte to show it is too long
+    private static final int LONGEST_LINE = GtinFormat.GTIN_14.length() + 2;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * Creates a validator running in the common pool.
+     */
+    public GtinFileValidator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a validator running in the given pool.
+     *
+     * @param pool the pool to run the validation tasks in.
+     * @param chunkSize the number of bytes validated by a single task.
+     * @throws IllegalArgumentException if the chunk size is not positive.
+     */
+    public GtinFileValidator(final ForkJoinPool pool, final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size " + chunkSize + " is not positive");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Validates every line of the given file.
+     *
+     * @param file the file of GTINs, one per line.
+     * @return the report of valid and invalid lines.
+     * @throws IOException if the file cannot be read.
+     */
+    public GtinFileReport validate(final Path file) throws IOException {
+        long start = GtinMetrics.ENABLED ? System.nanoTime() : 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunks = (size + chunkSize - 1) / chunkSize;
+            GtinFileReport report = pool.invoke(new ChunkTask(channel, size, chunkSize, 0, chunks));
+            if (report.failure() != null) {
+                throw report.failure();
+            }
+            if (GtinMetrics.ENABLED) {
+                GtinMetrics.recordBulk(GtinMetrics.Operation.FILE_VALIDATE, null, start);
+            }
+            return report;
+        }
+    }
+
+    /**
+     * Validates the lines which start in a range of bytes of the file.
+     */
+    static GtinFileReport validate(final FileChannel channel, final long size, final long start, final long end)
+            throws IOException {
+        // Map the byte before the range to find the first line start, and enough bytes after it
+        // to find the end of a valid last line
+        long windowStart = Math.max(0, start - 1);
+        long windowEnd = Math.min(size, end + LONGEST_LINE);
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+        int limit = window.limit();
+        int rangeEnd = (int) (end - windowStart);
+        int position = (int) (start - windowStart);
+        while (position > 0 && position < rangeEnd && window.get(position - 1) != '\n') {
+            position++;
+        }
+        GtinFileReport report = new GtinFileReport();
+        while (position < rangeEnd) {
+            int lineEnd = position;
+            while (lineEnd < limit && window.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int length = lineEnd - position;
+            if (length > 0 && window.get(lineEnd - 1) == '\r') {
+                length--;
+            }
+            GtinFormat format = GtinChecksum.formatForLength(length);
+            if (format != null && GtinChecksum.isValidSum(GtinChecksum.weightedSum(window, position, length, format))) {
+                report.addValid(format);
+            } else {
+                report.addInvalid(windowStart + position);
+            }
+            position = lineEnd + 1;
+        }
+        return report;
+    }
+
+    /**
+     * Validates a range of chunks, splitting it in half until there is a single chunk.
+     */
+    private static final class ChunkTask extends RecursiveTask<GtinFileReport> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long size;
+        private final long chunkSize;
+        private final long first;
+        private final long last;
+
+        ChunkTask(final FileChannel channel, final long size, final long chunkSize, final long first,
+                final long last) {
+            this.channel = channel;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected GtinFileReport compute() {
+            if (last - first > 1) {
+                long middle = (first + last) >>> 1;
+                ChunkTask right = new ChunkTask(channel, size, chunkSize, middle, last);
+                right.fork();
+                GtinFileReport left = new ChunkTask(channel, size, chunkSize, first, middle).compute();
+                return left.append(right.join());
+            }
+            try {
+                return validate(channel, size, first * chunkSize, Math.min(size, last * chunkSize));
+            } catch (final IOException e) {
+                GtinFileReport report = new GtinFileReport();
+                report.fail(e);
+                return report;
+            }
+        }
+
+    }
+
+}
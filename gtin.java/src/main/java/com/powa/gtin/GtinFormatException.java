@@ -17,9 +17,28 @@ package com.powa.gtin;
 
 /**
  * Indicates an attempt to perform an operation on a string that is not a valid GTIN.
+ * <p>
+ * Exceptions thrown by this library carry the invalid input and the reason it is invalid, and
+ * only build their message when it is requested. When the system property
+ * {@code com.powa.gtin.stacklessExceptions} is set to {@code true} the stack trace is not
+ * captured either, which makes throwing about as cheap as returning a result, for applications
+ * that expect many invalid GTINs and do not need to know where they were rejected.
  */
 public class GtinFormatException extends IllegalArgumentException {
 
+    /**
+     * System property which disables capturing the stack trace when set to {@code true}.
+     */
+    public static final String STACKLESS_PROPERTY = "com.powa.gtin.stacklessExceptions";
+
+    private static final long serialVersionUID = 1L;
+    private static final boolean STACKLESS = Boolean.getBoolean(STACKLESS_PROPERTY);
+
+    private final String subject;
+    private final String input;
+    private final String expected;
+    private final GtinCheck reason;
+
     /**
      * Constructs a new {@code GtinFormatException} with the specified detail message. The
      * cause is not initialized, and may subsequently be initialized by a call to {@link #initCause}.
@@ -27,7 +46,64 @@ public class GtinFormatException extends IllegalArgumentException {
      * @param message the detail message.
      */
     public GtinFormatException(final String message) {
+        this(message, null, null, null, null);
+    }
+
+    /**
+     * Constructs an exception for invalid input with a message built on demand, such as
+     * "String '123' is not a valid gtin".
+     *
+     * @param subject what the input is, e.g. "String".
+     * @param input the invalid input.
+     * @param expected what the input should have been, e.g. "gtin".
+     * @param reason the reason the input is invalid.
+     */
+    GtinFormatException(final String subject, final String input, final String expected, final GtinCheck reason) {
+        this(null, subject, input, expected, reason);
+    }
+
+    private GtinFormatException(final String message, final String subject, final String input,
+            final String expected, final GtinCheck reason) {
         super(message);
+        this.subject = subject;
+        this.input = input;
+        this.expected = expected;
+        this.reason = reason;
+    }
+
+    /**
+     * @return the invalid input, or {@code null} if the exception was constructed with a
+     * message only.
+     */
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * @return the reason the input is invalid, or {@code null} if the exception was constructed
+     * with a message only.
+     */
+    public GtinCheck getReason() {
+        return reason;
+    }
+
+    @Override
+    public String getMessage() {
+        String message = super.getMessage();
+        if (message == null && subject != null) {
+            return subject + " '" + input + "' is not a valid " + expected;
+        }
+        return message;
+    }
+
+    /**
+     * Captures the stack trace, unless stackless exceptions are enabled.
+     *
+     * @return this exception.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return STACKLESS ? this : super.fillInStackTrace();
     }
 
 }
@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash table of packed GTINs with linear probing, the base of the primitive GTIN
+ * collections. Keys are stored in a {@code long[]} and values, if any, in a parallel array
+ * created by the subclass. Packed GTINs are never negative, so free slots are marked by a
+ * negative key and no separate array is needed to track them.
+ */
+abstract class GtinHashTable {
+
+    /**
+     * Key of a free slot.
+     */
+    static final long FREE = -1L;
+
+    /**
+     * Returned by {@link #find(long)} if the key is not in the table.
+     */
+    static final int NOT_FOUND = -1;
+
+    /**
+     * Multiplier spreading packed GTINs over the slots of a table.
+     */
+    static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_CAPACITY = Integer.highestOneBit(Integer.MAX_VALUE);
+    private static final int LONG_BITS = 64;
+
+    private long[] keys;
+    private Object values;
+    private int shift;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * @param expectedSize the number of entries the table should hold without resizing.
+     */
+    GtinHashTable(final int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size " + expectedSize + " is negative");
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < MAX_CAPACITY && resizeAt(capacity) < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private static int resizeAt(final int capacity) {
+        // Load factor of 0.75
+        return capacity - (capacity >>> 2);
+    }
+
+    /**
+     * Creates the array holding the values of a table with the given capacity.
+     *
+     * @param capacity the capacity of the table.
+     * @return the array of values, or {@code null} if the table has no values.
+     */
+    abstract Object newValues(int capacity);
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        values = newValues(capacity);
+        shift = LONG_BITS - Integer.numberOfTrailingZeros(capacity);
+        mask = capacity - 1;
+        resizeAt = resizeAt(capacity);
+    }
+
+    private int home(final long key) {
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+
+    /**
+     * Finds the slot holding the given key.
+     *
+     * @param key the packed GTIN.
+     * @return the slot of the key, or {@link #NOT_FOUND} if the key is not in the table.
+     */
+    final int find(final long key) {
+        long[] table = keys;
+        int slot = home(key);
+        long current = table[slot];
+        while (current != FREE) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+            current = table[slot];
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Finds the slot holding the given key, adding the key to the table if it is missing.
+     *
+     * @param key a valid packed GTIN.
+     * @return the slot of the key if it was already in the table, otherwise {@code -slot - 1}
+     * for the slot the key was added in.
+     */
+    final int insert(final long key) {
+        if (size >= resizeAt && keys.length < MAX_CAPACITY) {
+            grow();
+        }
+        int slot = home(key);
+        long current = keys[slot];
+        while (current != FREE) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+            current = keys[slot];
+        }
+        if (size == mask) {
+            // Always keep one free slot so that probing terminates
+            throw new IllegalStateException("Table is full");
+        }
+        keys[slot] = key;
+        size++;
+        return -slot - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE) {
+                int slot = home(key);
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                if (values != null) {
+                    System.arraycopy(oldValues, i, values, slot, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the key in the given slot, shifting back the keys that follow it so that no
+     * tombstones are needed.
+     *
+     * @param slot the slot of the key to remove.
+     */
+    final void removeAt(final int slot) {
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = home(keys[next]);
+            // Move the key back if its home is not between the free slot and its current slot
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                if (values != null) {
+                    System.arraycopy(values, next, values, free, 1);
+                }
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = FREE;
+        if (values instanceof Object[]) {
+            ((Object[]) values)[free] = null;
+        }
+        size--;
+    }
+
+    /**
+     * Removes all entries, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        if (values instanceof Object[]) {
+            Arrays.fill((Object[]) values, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * @return the number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true} if there are no entries, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the packed GTINs of all entries, in no particular order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int index = 0;
+        for (long key : keys) {
+            if (key != FREE) {
+                result[index++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the values array created by {@link #newValues(int)}.
+     */
+    final Object values() {
+        return values;
+    }
+
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read only set of packed GTINs, see {@link PackedGtin}, served from a memory-mapped file. The
+ * GTINs are never loaded onto the heap, so opening an index is almost instant whatever its size
+ * and the pages of the file are shared through the page cache by all processes using it.
+ * <p>
+ * The file holds a 16 byte header of the magic number {@code 0x4754494E} ("GTIN"), the format
+ * version and the number of GTINs, followed by the sorted GTINs as 8 byte big-endian values in
+ * Eytzinger order: the sorted values are laid out as an implicit binary search tree in breadth
+ * first order, so that a lookup reads the top levels of the tree from the same few pages and
+ * each step of the search is a single comparison without an unpredictable branch.
+ * <p>
+ * Lookups are thread safe. Mapped memory is released when the index is garbage collected, after
+ * {@link #close()} the index must no longer be used.
+ */
+public final class GtinIndex implements Closeable {
+
+    private static final int MAGIC = 0x4754494E;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int SEGMENT_SHIFT = 27;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private static final int VALUE_BYTES = Long.SIZE / Byte.SIZE;
+    private static final long SEGMENT_BYTES = (long) VALUE_BYTES << SEGMENT_SHIFT;
+
+    private final FileChannel channel;
+    private final LongBuffer[] segments;
+    private final long size;
+
+    private GtinIndex(final FileChannel channel, final LongBuffer[] segments, final long size) {
+        this.channel = channel;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * Writes an index file of the given packed GTINs. The GTINs do not need to be sorted and
+     * duplicates are removed.
+     *
+     * @param packed the packed GTINs.
+     * @param file the file to write, replacing any existing file.
+     * @throws GtinFormatException if any of the values is not a valid packed GTIN.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(final long[] packed, final Path file) throws IOException {
+        long[] sorted = packed.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            PackedGtin.checkValid(sorted[i]);
+            if (count == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(count).flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            MappedByteBuffer[] buffers = map(out, FileChannel.MapMode.READ_WRITE, count);
+            writeEytzinger(sorted, count, longBuffers(buffers));
+            for (MappedByteBuffer buffer : buffers) {
+                buffer.force();
+            }
+        }
+    }
+
+    /**
+     * Writes the sorted values to the tree by visiting its nodes in order.
+     */
+    private static void writeEytzinger(final long[] sorted, final int count, final LongBuffer[] segments) {
+        long node = leftmost(1, count);
+        for (int i = 0; i < count; i++) {
+            put(segments, node - 1, sorted[i]);
+            if ((node << 1 | 1) <= count) {
+                node = leftmost(node << 1 | 1, count);
+            } else {
+                // Climb while the node is a right child, then once more to its parent
+                node >>>= Long.numberOfTrailingZeros(~node) + 1;
+            }
+        }
+    }
+
+    private static long leftmost(final long node, final int count) {
+        long leftmost = node;
+        while (leftmost << 1 <= count) {
+            leftmost <<= 1;
+        }
+        return leftmost;
+    }
+
+    /**
+     * Opens an index file for lookups.
+     *
+     * @param file the index file.
+     * @return the index.
+     * @throws IOException if the file cannot be read or is not a GTIN index.
+     */
+    public static GtinIndex open(final Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        boolean opened = false;
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("File '" + file + "' is not a gtin index");
+            }
+            long size = header.getLong();
+            if (size < 0 || channel.size() != HEADER_SIZE + size * VALUE_BYTES) {
+                throw new IOException("File '" + file + "' has the wrong size for " + size + " gtins");
+            }
+            LongBuffer[] segments = longBuffers(map(channel, FileChannel.MapMode.READ_ONLY, size));
+            GtinIndex index = new GtinIndex(channel, segments, size);
+            opened = true;
+            return index;
+        } finally {
+            if (!opened) {
+                channel.close();
+            }
+        }
+    }
+
+    private static MappedByteBuffer[] map(final FileChannel channel, final FileChannel.MapMode mode, final long count)
+            throws IOException {
+        long bytes = count * VALUE_BYTES;
+        MappedByteBuffer[] buffers = new MappedByteBuffer[(int) ((count + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < buffers.length; i++) {
+            long offset = i * SEGMENT_BYTES;
+            buffers[i] = channel.map(mode, HEADER_SIZE + offset, Math.min(SEGMENT_BYTES, bytes - offset));
+        }
+        return buffers;
+    }
+
+    private static LongBuffer[] longBuffers(final MappedByteBuffer[] buffers) {
+        LongBuffer[] segments = new LongBuffer[buffers.length];
+        for (int i = 0; i < buffers.length; i++) {
+            segments[i] = buffers[i].asLongBuffer();
+        }
+        return segments;
+    }
+
+    private static void put(final LongBuffer[] segments, final long index, final long value) {
+        segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), value);
+    }
+
+    private long get(final long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return {@code true} if the index contains the GTIN, {@code false} otherwise.
+     */
+    public boolean contains(final long packed) {
+        long node = 1;
+        while (node <= size) {
+            // Go right if the node is smaller than the GTIN, left otherwise
+            node = node << 1 | (get(node - 1) < packed ? 1 : 0);
+        }
+        // Undo the right turns after the last left turn, which was at the smallest node >= packed
+        node >>>= Long.numberOfTrailingZeros(~node) + 1;
+        return node != 0 && get(node - 1) == packed;
+    }
+
+    /**
+     * @param gtin the GTIN.
+     * @return {@code true} if the index contains the GTIN, {@code false} otherwise.
+     */
+    public boolean contains(final Gtin gtin) {
+        return contains(gtin.toLong());
+    }
+
+    /**
+     * @param gtin the GTIN string.
+     * @return {@code true} if the index contains the GTIN, {@code false} otherwise or if the
+     * string is not a valid GTIN.
+     */
+    public boolean contains(final CharSequence gtin) {
+        return contains(PackedGtin.tryPack(gtin));
+    }
+
+    /**
+     * @return the number of GTINs in the index.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Closes the file of this index.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+/**
+ * Map from GTINs to primitive {@code long} values, stored in an open addressing hash table of
+ * packed GTINs, see {@link PackedGtin}. Each slot takes 16 bytes, 8 for the key and 8 for the
+ * value, and the table grows when it is 3/4 full, so an entry takes from about 21 bytes, or 43
+ * bytes just after growing. The table does not shrink when entries are removed. GTINs can be
+ * looked up as {@link Gtin} objects, character sequences or packed values without allocating.
+ * <p>
+ * Absent values are reported as a configurable {@code noValue}, {@code 0} by default. This class
+ * is not thread safe.
+ */
+public final class GtinLongMap extends GtinHashTable {
+
+    private final long noValue;
+
+    /**
+     * Creates an empty map returning {@code 0} for absent values.
+     */
+    public GtinLongMap() {
+        this(0, 0);
+    }
+
+    /**
+     * Creates an empty map which holds the expected number of entries without resizing.
+     *
+     * @param expectedSize the expected number of entries.
+     * @param noValue the value returned for absent entries.
+     * @throws IllegalArgumentException if the expected size is negative.
+     */
+    public GtinLongMap(final int expectedSize, final long noValue) {
+        super(expectedSize);
+        this.noValue = noValue;
+    }
+
+    @Override
+    Object newValues(final int capacity) {
+        return new long[capacity];
+    }
+
+    private long putKey(final long packed, final long value) {
+        int slot = insert(packed);
+        long[] values = (long[]) values();
+        if (slot < 0) {
+            values[-slot - 1] = value;
+            return noValue;
+        }
+        long previous = values[slot];
+        values[slot] = value;
+        return previous;
+    }
+
+    private long getKey(final long packed) {
+        int slot = find(packed);
+        return slot == NOT_FOUND ? noValue : ((long[]) values())[slot];
+    }
+
+    /**
+     * Associates the value with the packed GTIN.
+     *
+     * @param packed the packed GTIN.
+     * @param value the value.
+     * @return the previous value, or the no value if there was none.
+     * @throws GtinFormatException if the key is not a valid packed GTIN.
+     */
+    public long put(final long packed, final long value) {
+        return putKey(PackedGtin.checkValid(packed), value);
+    }
+
+    /**
+     * Associates the value with the GTIN.
+     *
+     * @param gtin the GTIN.
+     * @param value the value.
+     * @return the previous value, or the no value if there was none.
+     */
+    public long put(final Gtin gtin, final long value) {
+        return putKey(gtin.toLong(), value);
+    }
+
+    /**
+     * Associates the value with the GTIN.
+     *
+     * @param gtin the GTIN string.
+     * @param value the value.
+     * @return the previous value, or the no value if there was none.
+     * @throws GtinFormatException if the string is not a valid GTIN.
+     */
+    public long put(final CharSequence gtin, final long value) {
+        return putKey(PackedGtin.pack(gtin), value);
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return the value of the GTIN, or the no value if there is none.
+     */
+    public long get(final long packed) {
+        return getKey(packed);
+    }
+
+    /**
+     * @param gtin the GTIN.
+     * @return the value of the GTIN, or the no value if there is none.
+     */
+    public long get(final Gtin gtin) {
+        return getKey(gtin.toLong());
+    }
+
+    /**
+     * @param gtin the GTIN string.
+     * @return the value of the GTIN, or the no value if there is none or the string is not a
+     * valid GTIN.
+     */
+    public long get(final CharSequence gtin) {
+        return getKey(PackedGtin.tryPack(gtin));
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return {@code true} if this map contains the GTIN, {@code false} otherwise.
+     */
+    public boolean containsKey(final long packed) {
+        return find(packed) != NOT_FOUND;
+    }
+
+    /**
+     * @param gtin the GTIN.
+     * @return {@code true} if this map contains the GTIN, {@code false} otherwise.
+     */
+    public boolean containsKey(final Gtin gtin) {
+        return find(gtin.toLong()) != NOT_FOUND;
+    }
+
+    /**
+     * @param gtin the GTIN string.
+     * @return {@code true} if this map contains the GTIN, {@code false} otherwise or if the
+     * string is not a valid GTIN.
+     */
+    public boolean containsKey(final CharSequence gtin) {
+        return find(PackedGtin.tryPack(gtin)) != NOT_FOUND;
+    }
+
+    /**
+     * Removes the entry of the packed GTIN.
+     *
+     * @param packed the packed GTIN.
+     * @return the removed value, or the no value if there was none.
+     */
+    public long remove(final long packed) {
+        int slot = find(packed);
+        if (slot == NOT_FOUND) {
+            return noValue;
+        }
+        long previous = ((long[]) values())[slot];
+        removeAt(slot);
+        return previous;
+    }
+
+    /**
+     * Removes the entry of the GTIN.
+     *
+     * @param gtin the GTIN.
+     * @return the removed value, or the no value if there was none.
+     */
+    public long remove(final Gtin gtin) {
+        return remove(gtin.toLong());
+    }
+
+    /**
+     * Removes the entry of the GTIN.
+     *
+     * @param gtin the GTIN string.
+     * @return the removed value, or the no value if there was none or the string is not a valid
+     * GTIN.
+     */
+    public long remove(final CharSequence gtin) {
+        return remove(PackedGtin.tryPack(gtin));
+    }
+
+    /**
+     * @return the value returned for absent entries.
+     */
+    public long noValue() {
+        return noValue;
+    }
+
+}
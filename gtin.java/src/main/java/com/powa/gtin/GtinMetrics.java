@@ -0,0 +1,396 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Counts GTIN operations by format and by the result of the validation, and measures the time
+ * taken by bulk operations, when the system property {@code com.powa.gtin.metrics} is set to
+ * {@code true}. Bulk operations are counted by format only, as one call covers many results.
+ * <p>
+ * The property is read once into a static final field which guards every call into this class,
+ * so with metrics disabled the just-in-time compiler removes the guarded code and the
+ * operations run as if it was not there. With metrics enabled every count is a striped
+ * {@link LongAdder}, so threads validating GTINs concurrently do not contend.
+ * <p>
+ * The counts can be read through {@link #snapshot()} or, once {@link #registerMBean()} was
+ * called, through JMX as the {@link GtinMetricsMXBean} {@value #OBJECT_NAME}.
+ */
+public final class GtinMetrics {
+
+    /**
+     * The system property which enables metrics when set to {@code true}.
+     */
+    public static final String PROPERTY = "com.powa.gtin.metrics";
+
+    /**
+     * The JMX object name of the metrics.
+     */
+    public static final String OBJECT_NAME = "com.powa.gtin:type=GtinMetrics";
+
+    /**
+     * The number of latency histogram buckets, bucket {@code i} counting the operations which
+     * took from {@code 2^(i - 1)} up to {@code 2^i - 1} nanoseconds.
+     */
+    public static final int LATENCY_BUCKETS = Long.SIZE;
+
+    static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    private static final GtinFormat[] FORMATS = GtinFormat.values();
+    private static final GtinCheck[] CHECKS = GtinCheck.values();
+    private static final Operation[] OPERATIONS = Operation.values();
+    // The last format slot counts input without a format
+    private static final int FORMAT_SLOTS = FORMATS.length + 1;
+    private static final int COUNTERS = OPERATIONS.length * FORMAT_SLOTS * CHECKS.length;
+    private static final String SEPARATOR = ".";
+
+    /**
+     * The operations counted.
+     */
+    public enum Operation {
+
+        /**
+         * Validating a GTIN, by {@link Gtin#isValid(CharSequence)}, {@link Gtin#check(CharSequence)}
+         * and their overloads.
+         */
+        VALIDATE(false),
+
+        /**
+         * Creating a GTIN, by {@link Gtin#create(String)}, {@link Gtin#tryCreate(CharSequence)}
+         * and their overloads.
+         */
+        CREATE(false),
+
+        /**
+         * Calculating a check digit, by {@link Gtin#calculateCheckDigit(CharSequence)} and its
+         * overloads.
+         */
+        CHECK_DIGIT(false),
+
+        /**
+         * Validating GTINs in bulk, by the validate methods of {@link GtinBatch}.
+         */
+        BATCH_VALIDATE(true),
+
+        /**
+         * Calculating check digits in bulk, by {@link GtinBatch#withCheckDigitAll(java.util.List)}.
+         */
+        BATCH_CHECK_DIGIT(true),
+
+        /**
+         * Validating a file, by {@link GtinFileValidator#validate(java.nio.file.Path)}.
+         */
+        FILE_VALIDATE(true);
+
+        private final boolean bulk;
+
+        Operation(final boolean bulk) {
+            this.bulk = bulk;
+        }
+
+        /**
+         * @return {@code true} if the operation covers many GTINs and is counted by format only,
+         * {@code false} if it is counted by format and result.
+         */
+        public boolean isBulk() {
+            return bulk;
+        }
+
+    }
+
+    /**
+     * The counters, only created once metrics are used.
+     */
+    private static final class Counters {
+
+        private static final LongAdder[] COUNTS = adders(COUNTERS);
+        private static final LongAdder[] BULK_COUNTS = adders(OPERATIONS.length * FORMAT_SLOTS);
+        private static final LongAdder[] LATENCIES = adders(OPERATIONS.length * LATENCY_BUCKETS);
+
+        private static LongAdder[] adders(final int count) {
+            LongAdder[] adders = new LongAdder[count];
+            for (int i = 0; i < count; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+
+    }
+
+    /**
+     * Exports the metrics through JMX.
+     */
+    private static final class MXBean implements GtinMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return GtinMetrics.isEnabled();
+        }
+
+        @Override
+        public Map<String, Long> getCounts() {
+            return snapshot().counts();
+        }
+
+        @Override
+        public Map<String, Long> getLatencies() {
+            return snapshot().latencies();
+        }
+
+        @Override
+        public void reset() {
+            GtinMetrics.reset();
+        }
+
+    }
+
+    /**
+     * The counts at one point in time.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long[] bulkCounts;
+        private final long[] latencies;
+
+        private Snapshot(final long[] counts, final long[] bulkCounts, final long[] latencies) {
+            this.counts = counts;
+            this.bulkCounts = bulkCounts;
+            this.latencies = latencies;
+        }
+
+        /**
+         * @param operation the operation.
+         * @return the number of times the operation was performed.
+         */
+        public long count(final Operation operation) {
+            long count = 0;
+            for (int format = 0; format < FORMAT_SLOTS; format++) {
+                count += count(operation, format);
+            }
+            return count;
+        }
+
+        /**
+         * @param operation the operation.
+         * @param format the format of the input, or {@code null} for input without a format.
+         * @return the number of times the operation was performed on the format.
+         */
+        public long count(final Operation operation, final GtinFormat format) {
+            return count(operation, slot(format));
+        }
+
+        /**
+         * @param operation the operation.
+         * @param check the result of the validation.
+         * @return the number of times the operation was performed with the result.
+         * @throws IllegalArgumentException if the operation is a bulk operation, which has no
+         * result.
+         */
+        public long count(final Operation operation, final GtinCheck check) {
+            checkNotBulk(operation);
+            long count = 0;
+            for (int format = 0; format < FORMAT_SLOTS; format++) {
+                count += counts[index(operation, format, check)];
+            }
+            return count;
+        }
+
+        /**
+         * @param operation the operation.
+         * @param format the format of the input, or {@code null} for input which has the length
+         * of no format or is {@code null}.
+         * @param check the result of the validation.
+         * @return the number of times the operation was performed on the format with the result.
+         * @throws IllegalArgumentException if the operation is a bulk operation, which has no
+         * result.
+         */
+        public long count(final Operation operation, final GtinFormat format, final GtinCheck check) {
+            checkNotBulk(operation);
+            return counts[index(operation, slot(format), check)];
+        }
+
+        private static void checkNotBulk(final Operation operation) {
+            if (operation.isBulk()) {
+                throw new IllegalArgumentException(operation + " is counted without a result");
+            }
+        }
+
+        private long count(final Operation operation, final int format) {
+            long count = bulkCounts[bulkIndex(operation, format)];
+            for (GtinCheck check : CHECKS) {
+                count += counts[index(operation, format, check)];
+            }
+            return count;
+        }
+
+        /**
+         * @param operation the operation.
+         * @return the latency histogram of the operation, see {@link #LATENCY_BUCKETS}, only
+         * recorded for bulk operations.
+         */
+        public long[] latencyHistogram(final Operation operation) {
+            int offset = operation.ordinal() * LATENCY_BUCKETS;
+            return Arrays.copyOfRange(latencies, offset, offset + LATENCY_BUCKETS);
+        }
+
+        /**
+         * @return the counts which are not zero, keyed by operation, format and result such as
+         * {@code VALIDATE.GTIN_13.BAD_CHECKSUM}, or by operation and format only for bulk
+         * operations such as {@code BATCH_VALIDATE.GTIN_13}, with {@code NONE} for input without
+         * a format.
+         */
+        public Map<String, Long> counts() {
+            Map<String, Long> map = new LinkedHashMap<String, Long>();
+            for (Operation operation : OPERATIONS) {
+                for (int format = 0; format < FORMAT_SLOTS; format++) {
+                    String key = operation + SEPARATOR + (format < FORMATS.length ? FORMATS[format].name() : "NONE");
+                    long bulkCount = bulkCounts[bulkIndex(operation, format)];
+                    if (bulkCount != 0) {
+                        map.put(key, bulkCount);
+                    }
+                    for (GtinCheck check : CHECKS) {
+                        long count = counts[index(operation, format, check)];
+                        if (count != 0) {
+                            map.put(key + SEPARATOR + check, count);
+                        }
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(map);
+        }
+
+        /**
+         * @return the latency buckets which are not zero, keyed by operation and the upper bound
+         * of the bucket in nanoseconds, such as {@code BATCH_VALIDATE.1023}.
+         */
+        public Map<String, Long> latencies() {
+            Map<String, Long> map = new LinkedHashMap<String, Long>();
+            for (Operation operation : OPERATIONS) {
+                for (int bucket = 0; bucket < LATENCY_BUCKETS; bucket++) {
+                    long count = latencies[operation.ordinal() * LATENCY_BUCKETS + bucket];
+                    if (count != 0) {
+                        map.put(operation + SEPARATOR + ((1L << bucket) - 1), count);
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(map);
+        }
+
+    }
+
+    // Prevent instantiation
+    private GtinMetrics() {
+    }
+
+    /**
+     * @return {@code true} if metrics are recorded, {@code false} otherwise.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @return the current counts, all zero if metrics are disabled.
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot(sums(Counters.COUNTS), sums(Counters.BULK_COUNTS), sums(Counters.LATENCIES));
+    }
+
+    /**
+     * Sets all counts to zero. Operations counted concurrently may or may not be included.
+     */
+    public static void reset() {
+        for (LongAdder adder : Counters.COUNTS) {
+            adder.reset();
+        }
+        for (LongAdder adder : Counters.BULK_COUNTS) {
+            adder.reset();
+        }
+        for (LongAdder adder : Counters.LATENCIES) {
+            adder.reset();
+        }
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as {@value #OBJECT_NAME}, unless they
+     * are registered already.
+     *
+     * @return the object name of the metrics.
+     * @throws JMException if the metrics cannot be registered.
+     */
+    public static synchronized ObjectName registerMBean() throws JMException {
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new StandardMBean(new MXBean(), GtinMetricsMXBean.class, true), name);
+        }
+        return name;
+    }
+
+    /**
+     * Counts an operation. Callers check {@link #ENABLED} first.
+     *
+     * @param format the format of the input, or {@code null} if it has none.
+     */
+    static void record(final Operation operation, final GtinFormat format, final GtinCheck check) {
+        Counters.COUNTS[index(operation, slot(format), check)].increment();
+    }
+
+    /**
+     * Counts a bulk operation and records the time it took. Callers check {@link #ENABLED}
+     * first.
+     *
+     * @param startNanos the {@link System#nanoTime()} when the operation started.
+     */
+    static void recordBulk(final Operation operation, final GtinFormat format, final long startNanos) {
+        Counters.BULK_COUNTS[bulkIndex(operation, slot(format))].increment();
+        long nanos = Math.max(0, System.nanoTime() - startNanos);
+        int bucket = Math.min(LATENCY_BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(nanos));
+        Counters.LATENCIES[operation.ordinal() * LATENCY_BUCKETS + bucket].increment();
+    }
+
+    private static long[] sums(final LongAdder[] adders) {
+        long[] sums = new long[adders.length];
+        for (int i = 0; i < sums.length; i++) {
+            sums[i] = adders[i].sum();
+        }
+        return sums;
+    }
+
+    private static int slot(final GtinFormat format) {
+        return format == null ? FORMATS.length : format.ordinal();
+    }
+
+    private static int bulkIndex(final Operation operation, final int formatSlot) {
+        return operation.ordinal() * FORMAT_SLOTS + formatSlot;
+    }
+
+    private static int index(final Operation operation, final int formatSlot, final GtinCheck check) {
+        return (operation.ordinal() * FORMAT_SLOTS + formatSlot) * CHECKS.length + check.ordinal();
+    }
+
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link GtinMetrics}, registered by {@link GtinMetrics#registerMBean()}.
+ */
+public interface GtinMetricsMXBean {
+
+    /**
+     * @return {@code true} if metrics are recorded, {@code false} otherwise.
+     */
+    boolean isEnabled();
+
+    /**
+     * @return the counts which are not zero, see {@link GtinMetrics.Snapshot#counts()}.
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * @return the latency buckets which are not zero, see
+     * {@link GtinMetrics.Snapshot#latencies()}.
+     */
+    Map<String, Long> getLatencies();
+
+    /**
+     * Sets all counts to zero.
+     */
+    void reset();
+
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+/**
+ * Map from GTINs to objects, stored in an open addressing hash table of packed GTINs, see
+ * {@link PackedGtin}. Each slot takes 8 bytes for the key plus a reference to the value, and the
+ * table grows when it is 3/4 full. The table does not shrink when entries are removed. GTINs can
+ * be looked up as {@link Gtin} objects, character sequences or packed values without allocating.
+ * <p>
+ * Null values are not permitted. This class is not thread safe.
+ *
+ * @param <V> the type of the values.
+ */
+public final class GtinObjectMap<V> extends GtinHashTable {
+
+    /**
+     * Creates an empty map.
+     */
+    public GtinObjectMap() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty map which holds the expected number of entries without resizing.
+     *
+     * @param expectedSize the expected number of entries.
+     * @throws IllegalArgumentException if the expected size is negative.
+     */
+    public GtinObjectMap(final int expectedSize) {
+        super(expectedSize);
+    }
+
+    @Override
+    Object newValues(final int capacity) {
+        return new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(final int slot) {
+        return (V) ((Object[]) values())[slot];
+    }
+
+    private V putKey(final long packed, final V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value is null");
+        }
+        int slot = insert(packed);
+        Object[] values = (Object[]) values();
+        if (slot < 0) {
+            values[-slot - 1] = value;
+            return null;
+        }
+        V previous = valueAt(slot);
+        values[slot] = value;
+        return previous;
+    }
+
+    private V getKey(final long packed) {
+        int slot = find(packed);
+        return slot == NOT_FOUND ? null : valueAt(slot);
+    }
+
+    /**
+     * Associates the value with the packed GTIN.
+     *
+     * @param packed the packed GTIN.
+     * @param value the value.
+     * @return the previous value, or {@code null} if there was none.
+     * @throws GtinFormatException if the key is not a valid packed GTIN.
+     * @throws IllegalArgumentException if the value is null.
+     */
+    public V put(final long packed, final V value) {
+        return putKey(PackedGtin.checkValid(packed), value);
+    }
+
+    /**
+     * Associates the value with the GTIN.
+     *
+     * @param gtin the GTIN.
+     * @param value the value.
+     * @return the previous value, or {@code null} if there was none.
+     * @throws IllegalArgumentException if the value is null.
+     */
+    public V put(final Gtin gtin, final V value) {
+        return putKey(gtin.toLong(), value);
+    }
+
+    /**
+     * Associates the value with the GTIN.
+     *
+     * @param gtin the GTIN string.
+     * @param value the value.
+     * @return the previous value, or {@code null} if there was none.
+     * @throws GtinFormatException if the string is not a valid GTIN.
+     * @throws IllegalArgumentException if the value is null.
+     */
+    public V put(final CharSequence gtin, final V value) {
+        return putKey(PackedGtin.pack(gtin), value);
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return the value of the GTIN, or {@code null} if there is none.
+     */
+    public V get(final long packed) {
+        return getKey(packed);
+    }
+
+    /**
+     * @param gtin the GTIN.
+     * @return the value of the GTIN, or {@code null} if there is none.
+     */
+    public V get(final Gtin gtin) {
+        return getKey(gtin.toLong());
+    }
+
+    /**
+     * @param gtin the GTIN string.
+     * @return the value of the GTIN, or {@code null} if there is none or the string is not a
+     * valid GTIN.
+     */
+    public V get(final CharSequence gtin) {
+        return getKey(PackedGtin.tryPack(gtin));
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return {@code true} if this map contains the GTIN, {@code false} otherwise.
+     */
+    public boolean containsKey(final long packed) {
+        return find(packed) != NOT_FOUND;
+    }
+
+    /**
+     * @param gtin the GTIN.
+     * @return {@code true} if this map contains the GTIN, {@code false} otherwise.
+     */
+    public boolean containsKey(final Gtin gtin) {
+        return find(gtin.toLong()) != NOT_FOUND;
+    }
+
+    /**
+     * @param gtin the GTIN string.
+     * @return {@code true} if this map contains the GTIN, {@code false} otherwise or if the
+     * string is not a valid GTIN.
+     */
+    public boolean containsKey(final CharSequence gtin) {
+        return find(PackedGtin.tryPack(gtin)) != NOT_FOUND;
+    }
+
+    /**
+     * Removes the entry of the packed GTIN.
+     *
+     * @param packed the packed GTIN.
+     * @return the removed value, or {@code null} if there was none.
+     */
+    public V remove(final long packed) {
+        int slot = find(packed);
+        if (slot == NOT_FOUND) {
+            return null;
+        }
+        V previous = valueAt(slot);
+        removeAt(slot);
+        return previous;
+    }
+
+    /**
+     * Removes the entry of the GTIN.
+     *
+     * @param gtin the GTIN.
+     * @return the removed value, or {@code null} if there was none.
+     */
+    public V remove(final Gtin gtin) {
+        return remove(gtin.toLong());
+    }
+
+    /**
+     * Removes the entry of the GTIN.
+     *
+     * @param gtin the GTIN string.
+     * @return the removed value, or {@code null} if there was none or the string is not a valid
+     * GTIN.
+     */
+    public V remove(final CharSequence gtin) {
+        return remove(PackedGtin.tryPack(gtin));
+    }
+
+}
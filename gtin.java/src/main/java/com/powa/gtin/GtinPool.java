@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A size-bounded pool of canonical {@link Gtin} instances, so that repeated GTINs share one
+ * instance which can be compared by reference.
+ * <p>
+ * The pool is a direct-mapped cache of a fixed number of slots, indexed by a hash of the packed
+ * GTIN. A GTIN which hashes to an occupied slot evicts the GTIN held there. Lookups and updates
+ * are lock-free and a lookup of a pooled GTIN does not allocate. While a GTIN stays in the pool
+ * all threads get the same instance back.
+ */
+public final class GtinPool {
+
+    /**
+     * The number of slots of a pool created without a capacity.
+     */
+    public static final int DEFAULT_CAPACITY = 65536;
+
+    private static final int MAX_CAPACITY = Integer.highestOneBit(Integer.MAX_VALUE);
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int shift;
+
+    /**
+     * Creates a pool with {@link #DEFAULT_CAPACITY} slots.
+     */
+    public GtinPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the maximum number of GTINs in the pool, rounded up to a power of two of at
+     * least 2.
+     */
+    public GtinPool(final int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is out of range");
+        }
+        int slots = 2;
+        while (slots < capacity) {
+            slots <<= 1;
+        }
+        entries = new AtomicReferenceArray<Entry>(slots);
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(slots);
+    }
+
+    /**
+     * Gets the canonical instance of the given GTIN.
+     *
+     * @param gtin the GTIN, may be GTIN-8, GTIN-12, GTIN-13 or GTIN-14 format.
+     * @return the pooled GTIN.
+     * @throws GtinFormatException if the character sequence is not a valid GTIN.
+     */
+    public Gtin intern(final CharSequence gtin) throws GtinFormatException {
+        long packed = PackedGtin.tryPack(gtin);
+        if (packed == PackedGtin.INVALID) {
+            throw Gtin.invalidGtin(gtin, GtinChecksum.check(gtin));
+        }
+        Gtin pooled = get(packed);
+        return pooled != null ? pooled : put(packed, Gtin.fromLong(packed));
+    }
+
+    /**
+     * Gets the canonical instance of the given packed GTIN.
+     *
+     * @param packed the GTIN packed as described by {@link PackedGtin}.
+     * @return the pooled GTIN.
+     * @throws GtinFormatException if the value is not a valid packed GTIN.
+     */
+    public Gtin intern(final long packed) throws GtinFormatException {
+        Gtin pooled = get(PackedGtin.checkValid(packed));
+        return pooled != null ? pooled : put(packed, Gtin.fromLong(packed));
+    }
+
+    /**
+     * Gets the canonical instance equal to the given GTIN, adding the GTIN to the pool if there
+     * is none.
+     *
+     * @param gtin the GTIN.
+     * @return the pooled GTIN.
+     */
+    public Gtin intern(final Gtin gtin) {
+        if (gtin == null) {
+            throw new IllegalArgumentException("gtin is null");
+        }
+        long packed = gtin.toLong();
+        Gtin pooled = get(packed);
+        return pooled != null ? pooled : put(packed, gtin);
+    }
+
+    /**
+     * @return the maximum number of GTINs in the pool.
+     */
+    public int capacity() {
+        return entries.length();
+    }
+
+    /**
+     * Removes all GTINs from the pool.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, null);
+        }
+    }
+
+    private int slot(final long packed) {
+        return (int) (packed * GtinHashTable.GOLDEN_RATIO >>> shift);
+    }
+
+    private Gtin get(final long packed) {
+        Entry entry = entries.get(slot(packed));
+        return entry != null && entry.packed == packed ? entry.gtin : null;
+    }
+
+    private Gtin put(final long packed, final Gtin gtin) {
+        int slot = slot(packed);
+        Entry current = entries.get(slot);
+        while (current == null || current.packed != packed) {
+            if (entries.compareAndSet(slot, current, new Entry(packed, gtin))) {
+                return gtin;
+            }
+            current = entries.get(slot);
+        }
+        // Another thread added the same GTIN first
+        return current.gtin;
+    }
+
+    /**
+     * A pooled GTIN with its packed value, compared on lookup.
+     */
+    private static final class Entry {
+
+        private final long packed;
+        private final Gtin gtin;
+
+        Entry(final long packed, final Gtin gtin) {
+            this.packed = packed;
+            this.gtin = gtin;
+        }
+
+    }
+
+}
@@ -0,0 +1,281 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classifies GTINs by the longest of a table of prefixes they start with, such as the GS1
+ * prefixes of the member organisations, the restricted circulation prefixes {@code 02} and
+ * {@code 2}, the coupon prefixes {@code 98} and {@code 99} or the ISBN prefixes {@code 978} and
+ * {@code 979}.
+ * <p>
+ * Prefixes are matched against the GTIN-13 form of GTIN-12, GTIN-13 and GTIN-14 codes: a GTIN-12
+ * is matched as if it had a leading zero and the indicator digit of a GTIN-14 is skipped, so
+ * UPC codes are matched by prefixes starting with {@code 0}. A GTIN-8 is matched against its own
+ * digits, as GS1-8 prefixes share the numbering of GS1 prefixes.
+ * <p>
+ * The prefixes are held in a digit trie whose first three levels are a direct table, so most
+ * GTINs are classified with one or two array reads. The prefix table can be replaced with
+ * {@link #reload(Map)} while other threads classify GTINs, which see either the old or the new
+ * table.
+ *
+ * @param <V> the type of the classes.
+ */
+public final class GtinPrefixIndex<V> {
+
+    private static final int RADIX = 10;
+    private static final int TOP_DIGITS = 3;
+    private static final int TOP_SIZE = 1000;
+    private static final int GTIN_13_LENGTH = GtinFormat.GTIN_13.length();
+    private static final long[] POWERS_OF_TEN = new long[GtinFormat.GTIN_14.length() + 1];
+    private static final int FORMAT_BITS = 2;
+    private static final int FORMAT_MASK = (1 << FORMAT_BITS) - 1;
+    private static final GtinFormat[] FORMATS = GtinFormat.values();
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * RADIX;
+        }
+    }
+
+    private volatile Table table;
+
+    /**
+     * Creates an index of the given prefixes.
+     *
+     * @param prefixes the classes of the prefixes, each prefix having 1 to 13 digits.
+     * @throws IllegalArgumentException if the prefixes or a class are null or a prefix is not a
+     * string of 1 to 13 digits.
+     */
+    public GtinPrefixIndex(final Map<String, ? extends V> prefixes) {
+        table = new Table(prefixes);
+    }
+
+    /**
+     * Replaces the prefixes of this index. Threads classifying GTINs during the reload are not
+     * blocked and use the previous prefixes until the new ones are in place.
+     *
+     * @param prefixes the classes of the prefixes, each prefix having 1 to 13 digits.
+     * @throws IllegalArgumentException if the prefixes or a class are null or a prefix is not a
+     * string of 1 to 13 digits, in which case the previous prefixes stay in place.
+     */
+    public void reload(final Map<String, ? extends V> prefixes) {
+        table = new Table(prefixes);
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return the class of the longest prefix of the GTIN, or {@code null} if no prefix matches
+     * or the value is not a packed GTIN. The check digit is not validated.
+     */
+    @SuppressWarnings("unchecked")
+    public V classify(final long packed) {
+        return (V) table.classify(packed);
+    }
+
+    /**
+     * @param gtin the GTIN.
+     * @return the class of the longest prefix of the GTIN, or {@code null} if no prefix matches.
+     */
+    public V classify(final Gtin gtin) {
+        return classify(gtin.toLong());
+    }
+
+    /**
+     * @param gtin the GTIN string.
+     * @return the class of the longest prefix of the GTIN, or {@code null} if no prefix matches
+     * or the string is not a valid GTIN.
+     */
+    public V classify(final CharSequence gtin) {
+        return classify(PackedGtin.tryPack(gtin));
+    }
+
+    /**
+     * Classifies packed GTINs, all by the same prefixes even if the index is reloaded meanwhile.
+     *
+     * @param packed the packed GTINs.
+     * @param classes receives the class of each GTIN, see {@link #classify(long)}, must be at
+     * least as long as the packed GTINs.
+     * @throws IllegalArgumentException if the array of classes is shorter than the packed GTINs.
+     */
+    public void classifyAll(final long[] packed, final V[] classes) {
+        if (classes.length < packed.length) {
+            throw new IllegalArgumentException("Array of " + classes.length + " classes is shorter than "
+                    + packed.length + " GTINs");
+        }
+        Table current = table;
+        for (int i = 0; i < packed.length; i++) {
+            @SuppressWarnings("unchecked")
+            V value = (V) current.classify(packed[i]);
+            classes[i] = value;
+        }
+    }
+
+    /**
+     * Classifies GTINs, all by the same prefixes even if the index is reloaded meanwhile.
+     *
+     * @param gtins the GTINs.
+     * @return the class of each GTIN, see {@link #classify(Gtin)}.
+     */
+    public List<V> classifyAll(final List<Gtin> gtins) {
+        Table current = table;
+        List<V> classes = new ArrayList<V>(gtins.size());
+        for (Gtin gtin : gtins) {
+            @SuppressWarnings("unchecked")
+            V value = (V) current.classify(gtin.toLong());
+            classes.add(value);
+        }
+        return classes;
+    }
+
+    /**
+     * An immutable digit trie. The nodes at depth 3 are found through a direct table of the
+     * first three digits, and the children of a node are the 10 entries from {@code node * 10}
+     * in an array of node numbers. Node 0 has no class and no children, every node holds the
+     * class of its longest prefix.
+     */
+    private static final class Table {
+
+        private final int[] top = new int[TOP_SIZE];
+        private int[] children = new int[RADIX];
+        private Object[] classes = new Object[1];
+        private int nodes = 1;
+
+        Table(final Map<String, ?> prefixes) {
+            if (prefixes == null) {
+                throw new IllegalArgumentException("prefixes is null");
+            }
+            List<Map.Entry<String, ?>> entries = new ArrayList<Map.Entry<String, ?>>(prefixes.entrySet());
+            for (Map.Entry<String, ?> entry : entries) {
+                checkPrefix(entry.getKey(), entry.getValue());
+            }
+            // Shorter prefixes first, so longer prefixes override the classes they inherit
+            Collections.sort(entries, new Comparator<Map.Entry<String, ?>>() {
+                @Override
+                public int compare(final Map.Entry<String, ?> a, final Map.Entry<String, ?> b) {
+                    return a.getKey().length() - b.getKey().length();
+                }
+            });
+            for (Map.Entry<String, ?> entry : entries) {
+                put(entry.getKey(), entry.getValue());
+            }
+            children = Arrays.copyOf(children, nodes * RADIX);
+            classes = Arrays.copyOf(classes, nodes);
+        }
+
+        private static void checkPrefix(final String prefix, final Object value) {
+            if (prefix == null || prefix.isEmpty() || prefix.length() > GTIN_13_LENGTH
+                    || !GtinChecksum.isDigits(prefix, prefix.length())) {
+                throw new IllegalArgumentException("Prefix " + prefix + " is not a string of 1 to "
+                        + GTIN_13_LENGTH + " digits");
+            }
+            if (value == null) {
+                throw new IllegalArgumentException("Class of prefix " + prefix + " is null");
+            }
+        }
+
+        /**
+         * Sets the class of the nodes below a prefix, which have not been set by a longer
+         * prefix as prefixes are added from the shortest.
+         */
+        private void put(final String prefix, final Object value) {
+            if (prefix.length() <= TOP_DIGITS) {
+                // Covers a range of the top table
+                int scale = (int) POWERS_OF_TEN[TOP_DIGITS - prefix.length()];
+                int first = Integer.parseInt(prefix) * scale;
+                for (int i = first; i < first + scale; i++) {
+                    setTree(topNode(i), value);
+                }
+                return;
+            }
+            int node = topNode(Integer.parseInt(prefix.substring(0, TOP_DIGITS)));
+            for (int i = TOP_DIGITS; i < prefix.length(); i++) {
+                int slot = node * RADIX + prefix.charAt(i) - '0';
+                if (children[slot] == 0) {
+                    // Grows the array, so it must not be read before
+                    int child = newNode(classes[node]);
+                    children[slot] = child;
+                }
+                node = children[slot];
+            }
+            setTree(node, value);
+        }
+
+        private int topNode(final int digits) {
+            if (top[digits] == 0) {
+                top[digits] = newNode(null);
+            }
+            return top[digits];
+        }
+
+        private int newNode(final Object value) {
+            if (nodes == classes.length) {
+                classes = Arrays.copyOf(classes, nodes * 2);
+                children = Arrays.copyOf(children, nodes * 2 * RADIX);
+            }
+            classes[nodes] = value;
+            return nodes++;
+        }
+
+        /**
+         * Sets the class of a node and of all nodes below it.
+         */
+        private void setTree(final int node, final Object value) {
+            classes[node] = value;
+            for (int i = 0; i < RADIX; i++) {
+                int child = children[node * RADIX + i];
+                if (child != 0) {
+                    setTree(child, value);
+                }
+            }
+        }
+
+        Object classify(final long packed) {
+            int length = FORMATS[(int) (packed & FORMAT_MASK)].length();
+            long value = packed >>> FORMAT_BITS;
+            if (packed < 0 || value >= POWERS_OF_TEN[length]) {
+                return null;
+            }
+            if (length == GtinFormat.GTIN_14.length()) {
+                // Skip the indicator digit of a GTIN-14
+                value %= POWERS_OF_TEN[GTIN_13_LENGTH];
+            }
+            if (length != GtinFormat.GTIN_8.length()) {
+                length = GTIN_13_LENGTH;
+            }
+            int digit = length - TOP_DIGITS;
+            int node = top[(int) (value / POWERS_OF_TEN[digit])];
+            while (node != 0 && digit > 0) {
+                digit--;
+                int child = children[node * RADIX + (int) (value / POWERS_OF_TEN[digit] % RADIX)];
+                if (child == 0) {
+                    break;
+                }
+                node = child;
+            }
+            return classes[node];
+        }
+
+    }
+
+}
@@ -0,0 +1,249 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.util.Comparator;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The valid GTINs of one format between two item numbers, which are the GTINs without their
+ * check digit, e.g. all GTINs of a GS1 company prefix. The GTINs are enumerated in ascending
+ * order as packed GTINs, see {@link PackedGtin}, without allocating and without calculating
+ * each checksum from scratch: when the item number is incremented, only the digits which
+ * changed update the checksum.
+ * <p>
+ * The {@link Spliterator} of a range splits it in halves of equal size, so a parallel stream
+ * spreads the work evenly over all threads.
+ */
+public final class GtinRange {
+
+    private static final int RADIX = 10;
+    private static final int WEIGHT = 3;
+
+    private final GtinFormat format;
+    private final long first;
+    private final long last;
+
+    private GtinRange(final GtinFormat format, final long first, final long last) {
+        this.format = format;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Creates the range of GTINs of the given format between two item numbers.
+     *
+     * @param format the format of the GTINs.
+     * @param first the first item number, the digits of the first GTIN without the check digit.
+     * @param last the last item number, included in the range.
+     * @return the range.
+     * @throws IllegalArgumentException if an item number does not fit the format or the first
+     * item number is larger than the last.
+     */
+    public static GtinRange of(final GtinFormat format, final long first, final long last) {
+        if (format == null) {
+            throw new IllegalArgumentException("format is null");
+        }
+        if (first < 0 || first > last || last >= itemNumbers(format)) {
+            throw new IllegalArgumentException("Range [" + first + ", " + last + "] does not fit " + format);
+        }
+        return new GtinRange(format, first, last);
+    }
+
+    /**
+     * Creates the range of all GTINs of the given format starting with a prefix, such as a GS1
+     * company prefix.
+     *
+     * @param prefix the leading digits of the GTINs, at most all digits but the check digit.
+     * @param format the format of the GTINs.
+     * @return the range.
+     * @throws IllegalArgumentException if the prefix is not a string of digits shorter than the
+     * format.
+     */
+    public static GtinRange forPrefix(final CharSequence prefix, final GtinFormat format) {
+        if (prefix == null || format == null || prefix.length() >= format.length()) {
+            throw new IllegalArgumentException("Prefix '" + prefix + "' does not fit " + format);
+        }
+        long value = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int digit = prefix.charAt(i) - '0';
+            if (digit < 0 || digit >= RADIX) {
+                throw new IllegalArgumentException("Prefix '" + prefix + "' is not a string of digits");
+            }
+            value = value * RADIX + digit;
+        }
+        long scale = 1;
+        for (int i = prefix.length(); i < format.length() - 1; i++) {
+            scale *= RADIX;
+        }
+        return new GtinRange(format, value * scale, (value + 1) * scale - 1);
+    }
+
+    private static long itemNumbers(final GtinFormat format) {
+        long count = 1;
+        for (int i = 1; i < format.length(); i++) {
+            count *= RADIX;
+        }
+        return count;
+    }
+
+    /**
+     * @return the format of the GTINs.
+     */
+    public GtinFormat format() {
+        return format;
+    }
+
+    /**
+     * @return the number of GTINs in the range.
+     */
+    public long size() {
+        return last - first + 1;
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return {@code true} if the range contains the packed GTIN, {@code false} otherwise.
+     */
+    public boolean contains(final long packed) {
+        if (!PackedGtin.isValid(packed) || PackedGtin.format(packed) != format) {
+            return false;
+        }
+        long itemNumber = PackedGtin.value(packed) / RADIX;
+        return itemNumber >= first && itemNumber <= last;
+    }
+
+    /**
+     * @return the packed GTINs of the range in ascending order.
+     */
+    public LongStream stream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    /**
+     * @return an iterator over the packed GTINs of the range in ascending order.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * @return a spliterator over the packed GTINs of the range in ascending order.
+     */
+    public Spliterator.OfLong spliterator() {
+        return new RangeSpliterator(format, first, last);
+    }
+
+    @Override
+    public String toString() {
+        return format + " [" + first + ", " + last + "]";
+    }
+
+    /**
+     * Enumerates the GTINs of a range, keeping the weighted sum of the current item number
+     * modulo 10.
+     */
+    private static final class RangeSpliterator implements Spliterator.OfLong {
+
+        private static final int ORDER = ORDERED | SORTED | DISTINCT;
+        private static final int SIZE = SIZED | SUBSIZED;
+
+        private final GtinFormat format;
+        private final long end;
+        private long next;
+        private int sum;
+
+        RangeSpliterator(final GtinFormat format, final long next, final long last) {
+            this.format = format;
+            this.next = next;
+            this.end = last + 1;
+            this.sum = GtinChecksum.itemNumberSum(next);
+        }
+
+        private long current() {
+            return PackedGtin.packValue(next * RADIX + GtinChecksum.checkDigit(sum), format);
+        }
+
+        /**
+         * Moves to the next item number. A digit 9 rolling over to 0 changes the sum by -9 times
+         * its weight, which is the same as adding its weight modulo 10, and the digit left of it
+         * adds its weight once more.
+         */
+        private void advance() {
+            int weight = WEIGHT;
+            int delta = weight;
+            for (long rest = next; rest % RADIX == RADIX - 1; rest /= RADIX) {
+                weight = WEIGHT + 1 - weight;
+                delta += weight;
+            }
+            sum = (sum + delta) % RADIX;
+            next++;
+        }
+
+        @Override
+        public boolean tryAdvance(final LongConsumer action) {
+            if (next >= end) {
+                return false;
+            }
+            action.accept(current());
+            advance();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final LongConsumer action) {
+            while (next < end) {
+                action.accept(current());
+                advance();
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long middle = next + (end - next) / 2;
+            if (middle == next) {
+                return null;
+            }
+            RangeSpliterator prefix = new RangeSpliterator(format, next, middle - 1);
+            next = middle;
+            sum = GtinChecksum.itemNumberSum(middle);
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - next;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDER | SIZE | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            // Natural order of the packed GTINs
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Repairs GTINs with the errors most common in manual entry and character recognition: one
+ * wrong digit, two adjacent digits swapped or one unreadable character.
+ * <p>
+ * The candidates are solved for rather than searched for. The checksum is a sum of the digits
+ * weighted 3 and 1, modulo 10, and 3 has an inverse modulo 10, so for every position there is
+ * exactly one digit which makes the checksum valid. Swapping two adjacent digits changes the
+ * sum by twice their difference, so each swap is checked with one comparison. Candidates are
+ * returned as packed GTINs, see {@link PackedGtin}, without building a string per candidate.
+ */
+public final class GtinRepair {
+
+    /**
+     * The largest number of candidates for a GTIN, one substitution for each of the 14 digits
+     * of a GTIN-14 and one transposition for each of its 13 pairs of adjacent digits.
+     */
+    public static final int MAX_CANDIDATES = 2 * GtinFormat.GTIN_14.length() - 1;
+
+    private static final int RADIX = 10;
+    private static final int WEIGHT = 3;
+    private static final int INVERSE_OF_WEIGHT = 7;
+
+    // Prevent instantiation
+    private GtinRepair() {
+    }
+
+    /**
+     * Finds the valid GTINs which differ from the input by one error, see
+     * {@link #repair(CharSequence, long[])}.
+     *
+     * @param gtin the GTIN to repair.
+     * @return the candidates in ascending order, empty if there are none.
+     * @throws IllegalArgumentException if the GTIN is null.
+     */
+    public static List<Gtin> candidates(final CharSequence gtin) {
+        long[] packed = new long[MAX_CANDIDATES];
+        int count = repair(gtin, packed);
+        List<Gtin> candidates = new ArrayList<Gtin>(count);
+        for (int i = 0; i < count; i++) {
+            candidates.add(Gtin.fromLong(packed[i]));
+        }
+        return candidates;
+    }
+
+    /**
+     * Finds the valid GTINs which differ from the input by one error, see
+     * {@link #repair(CharSequence, long[])}.
+     *
+     * @param gtin the GTIN to repair.
+     * @return the packed candidates in ascending order, empty if there are none.
+     * @throws IllegalArgumentException if the GTIN is null.
+     */
+    public static long[] repair(final CharSequence gtin) {
+        long[] candidates = new long[MAX_CANDIDATES];
+        return Arrays.copyOf(candidates, repair(gtin, candidates));
+    }
+
+    /**
+     * Finds the valid GTINs which differ from the input by one error, without allocating.
+     * <ul>
+     * <li>If the input has one wrong digit or two adjacent digits swapped, the candidates are
+     * all GTINs with one digit replaced or two adjacent digits swapped which have a valid
+     * checksum. There is one candidate for each digit replaced, and usually a few swaps.</li>
+     * <li>If exactly one character is not a digit, such as a character which could not be
+     * recognized, the only candidate is the GTIN with the digit which makes it valid.</li>
+     * <li>If the input is a valid GTIN, it is the only candidate.</li>
+     * </ul>
+     * Input which does not have the length of a GTIN or has more than one character which is not
+     * a digit has no candidates.
+     *
+     * @param gtin the GTIN to repair.
+     * @param candidates receives the packed candidates in ascending order, must have space for
+     * {@link #MAX_CANDIDATES}.
+     * @return the number of candidates.
+     * @throws IllegalArgumentException if the GTIN or the array is null or the array is too
+     * short.
+     */
+    public static int repair(final CharSequence gtin, final long[] candidates) {
+        if (gtin == null) {
+            throw new IllegalArgumentException("gtin is null");
+        }
+        if (candidates == null || candidates.length < MAX_CANDIDATES) {
+            throw new IllegalArgumentException("candidates must have space for " + MAX_CANDIDATES + " GTINs");
+        }
+        int length = gtin.length();
+        GtinFormat format = GtinChecksum.formatForLength(length);
+        if (format == null) {
+            return 0;
+        }
+        long value = 0;
+        int sum = 0;
+        int unreadable = -1;
+        for (int i = 0; i < length; i++) {
+            int digit = gtin.charAt(i) - '0';
+            if (digit < 0 || digit >= RADIX) {
+                if (unreadable >= 0) {
+                    return 0;
+                }
+                unreadable = i;
+                digit = 0;
+            }
+            value = value * RADIX + digit;
+            sum += digit * weight(length, i);
+        }
+        int remainder = sum % RADIX;
+        if (unreadable >= 0) {
+            long place = placeValue(length - 1 - unreadable);
+            candidates[0] = PackedGtin.packValue(value + solve(remainder, weight(length, unreadable)) * place, format);
+            return 1;
+        }
+        if (remainder == 0) {
+            candidates[0] = PackedGtin.packValue(value, format);
+            return 1;
+        }
+        return repairChecksum(gtin, value, remainder, format, candidates);
+    }
+
+    /**
+     * Finds the substitutions and transpositions of digits which correct the remainder of the
+     * checksum of a string of digits.
+     */
+    private static int repairChecksum(final CharSequence gtin, final long value, final int remainder,
+            final GtinFormat format, final long[] candidates) {
+        int length = gtin.length();
+        int count = 0;
+        long place = 1;
+        int right = -1;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = gtin.charAt(i) - '0';
+            int weight = weight(length, i);
+            int replacement = (digit + solve(remainder, weight)) % RADIX;
+            candidates[count++] = PackedGtin.packValue(value + (replacement - digit) * place, format);
+            // Swapping with the digit to the right adds (weight - other weight) * (right - digit)
+            if (right >= 0 && (remainder + (weight - weight(length, i + 1)) * (right - digit)) % RADIX == 0) {
+                long swapped = value + (right - digit) * (place - place / RADIX);
+                candidates[count++] = PackedGtin.packValue(swapped, format);
+            }
+            right = digit;
+            place *= RADIX;
+        }
+        Arrays.sort(candidates, 0, count);
+        return count;
+    }
+
+    /**
+     * @return the digit to add at a position of the given weight to make a checksum with the
+     * given remainder valid.
+     */
+    private static int solve(final int remainder, final int weight) {
+        int missing = (RADIX - remainder) % RADIX;
+        return weight == 1 ? missing : missing * INVERSE_OF_WEIGHT % RADIX;
+    }
+
+    private static int weight(final int length, final int position) {
+        return (length - position) % 2 == 0 ? WEIGHT : 1;
+    }
+
+    private static long placeValue(final int exponent) {
+        long place = 1;
+        for (int i = 0; i < exponent; i++) {
+            place *= RADIX;
+        }
+        return place;
+    }
+
+}
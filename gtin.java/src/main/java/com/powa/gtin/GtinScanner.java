@@ -0,0 +1,220 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+/**
+ * Finds the valid GTINs in text in a single pass, such as GTINs in documents, emails or web
+ * pages converted to text.
+ * <p>
+ * Every run of consecutive digits is searched for windows of 8, 12, 13 and 14 digits with a
+ * valid checksum, so a GTIN is found even if it is part of a longer number, and a run can hold
+ * GTINs of several formats which overlap. Two running sums of the run weigh its digits for
+ * windows ending at an odd and at an even position, so each character is read once and the
+ * checksum of a window of any length is the difference of two running sums. Matches are
+ * reported as packed GTINs, see {@link PackedGtin}, without allocating per GTIN.
+ */
+public final class GtinScanner {
+
+    private static final int GTIN_8_LENGTH = GtinFormat.GTIN_8.length();
+    private static final int GTIN_12_LENGTH = GtinFormat.GTIN_12.length();
+    private static final int GTIN_13_LENGTH = GtinFormat.GTIN_13.length();
+    private static final int GTIN_14_LENGTH = GtinFormat.GTIN_14.length();
+    private static final int RADIX = 10;
+    private static final int WEIGHT = 3;
+
+    // The running sums of the digit run, kept for the last positions in a ring
+    private static final int RING_SIZE = 16;
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    /**
+     * Receives the GTINs found by a scan, in the order they end and with the shorter GTIN first
+     * when several end at the same position.
+     */
+    public interface Listener {
+
+        /**
+         * Called for each valid GTIN found.
+         *
+         * @param offset the position of the first digit of the GTIN in the input.
+         * @param format the format of the GTIN.
+         * @param packed the packed GTIN.
+         */
+        void found(int offset, GtinFormat format, long packed);
+
+    }
+
+    private final Listener listener;
+    // Weighted sums of the digits of the run for a window ending at an odd or even position
+    private final int[] oddEndSums = new int[RING_SIZE];
+    private final int[] evenEndSums = new int[RING_SIZE];
+    private final int[] digits = new int[RING_SIZE];
+    private int runLength;
+    private int oddEndSum;
+    private int evenEndSum;
+    private int found;
+
+    private GtinScanner(final Listener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener is null");
+        }
+        this.listener = listener;
+    }
+
+    /**
+     * Finds the valid GTINs in a character sequence.
+     *
+     * @param text the text to scan.
+     * @param listener receives the GTINs found.
+     * @return the number of GTINs found.
+     * @throws IllegalArgumentException if the text or the listener is null.
+     */
+    public static int scan(final CharSequence text, final Listener listener) {
+        if (text == null) {
+            throw new IllegalArgumentException("text is null");
+        }
+        GtinScanner scanner = new GtinScanner(listener);
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            scanner.next(text.charAt(i) - '0', i);
+        }
+        return scanner.found;
+    }
+
+    /**
+     * Finds the valid GTINs in a range of a character array.
+     *
+     * @param text the text to scan.
+     * @param offset the position of the first character to scan.
+     * @param length the number of characters to scan.
+     * @param listener receives the GTINs found, with offsets relative to the start of the array.
+     * @return the number of GTINs found.
+     * @throws IllegalArgumentException if the text or the listener is null.
+     * @throws IndexOutOfBoundsException if the range is out of the bounds of the array.
+     */
+    public static int scan(final char[] text, final int offset, final int length, final Listener listener) {
+        checkRange(text, text == null ? 0 : text.length, offset, length);
+        GtinScanner scanner = new GtinScanner(listener);
+        for (int i = offset; i < offset + length; i++) {
+            scanner.next(text[i] - '0', i);
+        }
+        return scanner.found;
+    }
+
+    /**
+     * Finds the valid GTINs in a range of an array of ASCII or UTF-8 bytes.
+     *
+     * @param text the text to scan.
+     * @param offset the position of the first byte to scan.
+     * @param length the number of bytes to scan.
+     * @param listener receives the GTINs found, with offsets relative to the start of the array.
+     * @return the number of GTINs found.
+     * @throws IllegalArgumentException if the text or the listener is null.
+     * @throws IndexOutOfBoundsException if the range is out of the bounds of the array.
+     */
+    public static int scan(final byte[] text, final int offset, final int length, final Listener listener) {
+        checkRange(text, text == null ? 0 : text.length, offset, length);
+        GtinScanner scanner = new GtinScanner(listener);
+        for (int i = offset; i < offset + length; i++) {
+            scanner.next(text[i] - '0', i);
+        }
+        return scanner.found;
+    }
+
+    private static void checkRange(final Object text, final int limit, final int offset, final int length) {
+        if (text == null) {
+            throw new IllegalArgumentException("text is null");
+        }
+        if (offset < 0 || length < 0 || offset > limit - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length
+                    + ") is out of bounds for length " + limit);
+        }
+    }
+
+    /**
+     * Adds a character to the current digit run, or ends the run if it is not a digit, and
+     * reports the valid GTINs ending at the character.
+     */
+    private void next(final int digit, final int position) {
+        if (digit < 0 || digit >= RADIX) {
+            runLength = 0;
+            return;
+        }
+        boolean odd = extendRun(digit);
+        if (runLength < GTIN_8_LENGTH) {
+            return;
+        }
+        int sum = odd ? oddEndSum : evenEndSum;
+        int[] sums = odd ? oddEndSums : evenEndSums;
+        // Unrolled for constant lengths, which is faster than a loop over the formats
+        match(sum, sums, position, GtinFormat.GTIN_8, GTIN_8_LENGTH);
+        if (runLength >= GTIN_12_LENGTH) {
+            match(sum, sums, position, GtinFormat.GTIN_12, GTIN_12_LENGTH);
+            if (runLength >= GTIN_13_LENGTH) {
+                match(sum, sums, position, GtinFormat.GTIN_13, GTIN_13_LENGTH);
+                if (runLength >= GTIN_14_LENGTH) {
+                    match(sum, sums, position, GtinFormat.GTIN_14, GTIN_14_LENGTH);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a digit to the current run, updating the running sums.
+     *
+     * @return whether the run has an odd length.
+     */
+    private boolean extendRun(final int digit) {
+        if (runLength == 0) {
+            oddEndSum = 0;
+            evenEndSum = 0;
+            oddEndSums[0] = 0;
+            evenEndSums[0] = 0;
+        }
+        runLength++;
+        int slot = runLength & RING_MASK;
+        boolean odd = (runLength & 1) != 0;
+        oddEndSum += odd ? digit : WEIGHT * digit;
+        evenEndSum += odd ? WEIGHT * digit : digit;
+        oddEndSums[slot] = oddEndSum;
+        evenEndSums[slot] = evenEndSum;
+        digits[slot] = digit;
+        return odd;
+    }
+
+    /**
+     * Reports the GTIN of the given length ending at a position if its checksum is valid.
+     */
+    private void match(final int sum, final int[] sums, final int position, final GtinFormat format,
+            final int length) {
+        int start = (runLength - length) & RING_MASK;
+        if ((sum - sums[start]) % RADIX == 0) {
+            found++;
+            listener.found(position - length + 1, format, PackedGtin.packValue(value(start, length), format));
+        }
+    }
+
+    /**
+     * @return the numeric value of the digits of the run following the given ring position.
+     */
+    private long value(final int start, final int length) {
+        long value = 0;
+        for (int i = 1; i <= length; i++) {
+            value = value * RADIX + digits[(start + i) & RING_MASK];
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+/**
+ * Set of GTINs stored as packed {@code long} values in a single open addressing hash table, see
+ * {@link PackedGtin}. Each slot takes 8 bytes and the table grows when it is 3/4 full, so an
+ * entry takes from about 11 bytes, or 21 bytes just after growing. The table does not shrink
+ * when GTINs are removed. GTINs can be looked up as {@link Gtin} objects, character sequences or
+ * packed values without allocating.
+ * <p>
+ * GTINs are compared by their digits and format, as by {@link Gtin#equals(Object)}. This class
+ * is not thread safe.
+ */
+public final class GtinSet extends GtinHashTable {
+
+    /**
+     * Creates an empty set.
+     */
+    public GtinSet() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty set which holds the expected number of GTINs without resizing.
+     *
+     * @param expectedSize the expected number of GTINs.
+     * @throws IllegalArgumentException if the expected size is negative.
+     */
+    public GtinSet(final int expectedSize) {
+        super(expectedSize);
+    }
+
+    @Override
+    Object newValues(final int capacity) {
+        return null;
+    }
+
+    /**
+     * Adds the packed GTIN to this set.
+     *
+     * @param packed the packed GTIN.
+     * @return {@code true} if the GTIN was added, {@code false} if it was already present.
+     * @throws GtinFormatException if the value is not a valid packed GTIN.
+     */
+    public boolean add(final long packed) {
+        return insert(PackedGtin.checkValid(packed)) < 0;
+    }
+
+    /**
+     * Adds the GTIN to this set.
+     *
+     * @param gtin the GTIN.
+     * @return {@code true} if the GTIN was added, {@code false} if it was already present.
+     */
+    public boolean add(final Gtin gtin) {
+        return insert(gtin.toLong()) < 0;
+    }
+
+    /**
+     * Adds the GTIN to this set.
+     *
+     * @param gtin the GTIN string.
+     * @return {@code true} if the GTIN was added, {@code false} if it was already present.
+     * @throws GtinFormatException if the string is not a valid GTIN.
+     */
+    public boolean add(final CharSequence gtin) {
+        return insert(PackedGtin.pack(gtin)) < 0;
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return {@code true} if this set contains the GTIN, {@code false} otherwise.
+     */
+    public boolean contains(final long packed) {
+        return find(packed) != NOT_FOUND;
+    }
+
+    /**
+     * @param gtin the GTIN.
+     * @return {@code true} if this set contains the GTIN, {@code false} otherwise.
+     */
+    public boolean contains(final Gtin gtin) {
+        return find(gtin.toLong()) != NOT_FOUND;
+    }
+
+    /**
+     * @param gtin the GTIN string.
+     * @return {@code true} if this set contains the GTIN, {@code false} otherwise or if the
+     * string is not a valid GTIN.
+     */
+    public boolean contains(final CharSequence gtin) {
+        return find(PackedGtin.tryPack(gtin)) != NOT_FOUND;
+    }
+
+    /**
+     * Removes the packed GTIN from this set.
+     *
+     * @param packed the packed GTIN.
+     * @return {@code true} if the GTIN was removed, {@code false} if it was not present.
+     */
+    public boolean remove(final long packed) {
+        int slot = find(packed);
+        if (slot == NOT_FOUND) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    /**
+     * Removes the GTIN from this set.
+     *
+     * @param gtin the GTIN.
+     * @return {@code true} if the GTIN was removed, {@code false} if it was not present.
+     */
+    public boolean remove(final Gtin gtin) {
+        return remove(gtin.toLong());
+    }
+
+    /**
+     * Removes the GTIN from this set.
+     *
+     * @param gtin the GTIN string.
+     * @return {@code true} if the GTIN was removed, {@code false} if it was not present or the
+     * string is not a valid GTIN.
+     */
+    public boolean remove(final CharSequence gtin) {
+        return remove(PackedGtin.tryPack(gtin));
+    }
+
+}
@@ -0,0 +1,441 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorting and deduplication of large arrays of GTINs. Packed GTINs, see {@link PackedGtin}, are
+ * sorted with a least significant digit radix sort, which needs an array of the same size as
+ * scratch space but no comparisons. {@link Gtin} objects and GTIN strings are sorted by their
+ * packed GTIN, which orders GTINs by numeric value across formats, with GTINs of equal value
+ * ordered by format. Sorting objects is stable.
+ * <p>
+ * Keys are sorted 11 bits at a time, relative to the smallest key, so that passes over bits
+ * which all keys share are skipped: GTINs of one company prefix are sorted in fewer passes than
+ * GTINs of any value. The parallel sorts split each pass into chunks, counted and then moved in
+ * the common {@link ForkJoinPool}, for arrays longer than the parallel threshold of
+ * {@link GtinBatch}.
+ */
+public final class GtinSort {
+
+    private static final int DIGIT_BITS = 11;
+    private static final int BUCKETS = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = BUCKETS - 1;
+    private static final int RADIX_THRESHOLD = 256;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    // Prevent instantiation
+    private GtinSort() {
+    }
+
+    /**
+     * Sorts the packed GTINs into ascending order.
+     *
+     * @param packed the packed GTINs.
+     */
+    public static void sort(final long[] packed) {
+        sort(packed, 0, packed.length);
+    }
+
+    /**
+     * Sorts a range of the packed GTINs into ascending order.
+     *
+     * @param packed the packed GTINs.
+     * @param from the index of the first GTIN to sort.
+     * @param to the index after the last GTIN to sort.
+     * @throws IllegalArgumentException if {@code from} is greater than {@code to}.
+     * @throws ArrayIndexOutOfBoundsException if the range is outside of the array.
+     */
+    public static void sort(final long[] packed, final int from, final int to) {
+        checkRange(packed.length, from, to);
+        sort(packed, null, from, to, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sorts the packed GTINs into ascending order, in parallel if there are more GTINs than the
+     * parallel threshold.
+     *
+     * @param packed the packed GTINs.
+     */
+    public static void parallelSort(final long[] packed) {
+        parallelSort(packed, 0, packed.length);
+    }
+
+    /**
+     * Sorts a range of the packed GTINs into ascending order, in parallel if the range is longer
+     * than the parallel threshold.
+     *
+     * @param packed the packed GTINs.
+     * @param from the index of the first GTIN to sort.
+     * @param to the index after the last GTIN to sort.
+     * @throws IllegalArgumentException if {@code from} is greater than {@code to}.
+     * @throws ArrayIndexOutOfBoundsException if the range is outside of the array.
+     */
+    public static void parallelSort(final long[] packed, final int from, final int to) {
+        checkRange(packed.length, from, to);
+        sort(packed, null, from, to, GtinBatch.PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Sorts the GTINs into ascending order of their packed GTINs.
+     *
+     * @param gtins the GTINs.
+     */
+    public static void sort(final Gtin[] gtins) {
+        sort(gtins, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sorts the GTINs into ascending order of their packed GTINs, in parallel if there are more
+     * GTINs than the parallel threshold.
+     *
+     * @param gtins the GTINs.
+     */
+    public static void parallelSort(final Gtin[] gtins) {
+        sort(gtins, GtinBatch.PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Sorts the GTIN strings into ascending order of their packed GTINs.
+     *
+     * @param gtins the GTIN strings.
+     * @throws GtinFormatException if any of the strings is not a valid GTIN, leaving the array
+     * unchanged.
+     */
+    public static void sort(final CharSequence[] gtins) {
+        sort(gtins, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sorts the GTIN strings into ascending order of their packed GTINs, in parallel if there
+     * are more GTINs than the parallel threshold.
+     *
+     * @param gtins the GTIN strings.
+     * @throws GtinFormatException if any of the strings is not a valid GTIN, leaving the array
+     * unchanged.
+     */
+    public static void parallelSort(final CharSequence[] gtins) {
+        sort(gtins, GtinBatch.PARALLEL_THRESHOLD);
+    }
+
+    static void sort(final Gtin[] gtins, final int threshold) {
+        long[] keys = new long[gtins.length];
+        for (int i = 0; i < gtins.length; i++) {
+            keys[i] = gtins[i].toLong();
+        }
+        permute(gtins, sortedOrder(keys, threshold));
+    }
+
+    static void sort(final CharSequence[] gtins, final int threshold) {
+        long[] keys = new long[gtins.length];
+        for (int i = 0; i < gtins.length; i++) {
+            keys[i] = PackedGtin.pack(gtins[i]);
+        }
+        permute(gtins, sortedOrder(keys, threshold));
+    }
+
+    /**
+     * Sorts the keys and returns the original index of each sorted key.
+     */
+    private static int[] sortedOrder(final long[] keys, final int threshold) {
+        int[] order = new int[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        sort(keys, order, 0, keys.length, threshold);
+        return order;
+    }
+
+    private static void permute(final Object[] values, final int[] order) {
+        Object[] original = values.clone();
+        for (int i = 0; i < order.length; i++) {
+            values[i] = original[order[i]];
+        }
+    }
+
+    /**
+     * Sorts a range of keys, moving the order along with them if it is not null.
+     */
+    static void sort(final long[] keys, final int[] order, final int from, final int to, final int threshold) {
+        if (to - from > RADIX_THRESHOLD) {
+            new RadixSort(keys, order, from, to, to - from > threshold).sort();
+        } else if (order == null) {
+            Arrays.sort(keys, from, to);
+        } else {
+            insertionSort(keys, order, from, to);
+        }
+    }
+
+    /**
+     * Sorts short ranges, keeping keys which are equal in order.
+     */
+    private static void insertionSort(final long[] keys, final int[] order, final int from, final int to) {
+        for (int i = from + 1; i < to; i++) {
+            long key = keys[i];
+            int index = order[i];
+            int j = i - 1;
+            for (; j >= from && keys[j] > key; j--) {
+                keys[j + 1] = keys[j];
+                order[j + 1] = order[j];
+            }
+            keys[j + 1] = key;
+            order[j + 1] = index;
+        }
+    }
+
+    /**
+     * Removes repeated packed GTINs from a sorted array, moving the distinct GTINs to the front
+     * in ascending order.
+     *
+     * @param sorted the sorted packed GTINs.
+     * @return the number of distinct GTINs, the values after them are unspecified.
+     */
+    public static int dedupe(final long[] sorted) {
+        return dedupe(sorted, 0, sorted.length);
+    }
+
+    /**
+     * Removes repeated packed GTINs from a sorted range, moving the distinct GTINs to the front
+     * of the range in ascending order.
+     *
+     * @param sorted the packed GTINs.
+     * @param from the index of the first GTIN of the sorted range.
+     * @param to the index after the last GTIN of the sorted range.
+     * @return the index after the last distinct GTIN, the values after it in the range are
+     * unspecified.
+     * @throws IllegalArgumentException if {@code from} is greater than {@code to}.
+     * @throws ArrayIndexOutOfBoundsException if the range is outside of the array.
+     */
+    public static int dedupe(final long[] sorted, final int from, final int to) {
+        checkRange(sorted.length, from, to);
+        int end = from;
+        for (int i = from; i < to; i++) {
+            if (end == from || sorted[end - 1] != sorted[i]) {
+                sorted[end++] = sorted[i];
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Removes repeated GTINs from an array sorted by {@link #sort(Gtin[])} or
+     * {@link #sort(CharSequence[])}, moving the distinct GTINs to the front in ascending order.
+     * GTINs are compared with {@link Object#equals(Object)}, so strings must be of the same
+     * class to be found equal.
+     *
+     * @param sorted the sorted GTINs or GTIN strings.
+     * @return the number of distinct GTINs, the elements after them are set to {@code null}.
+     */
+    public static int dedupe(final Object[] sorted) {
+        int end = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (end == 0 || !sorted[end - 1].equals(sorted[i])) {
+                sorted[end++] = sorted[i];
+            }
+        }
+        Arrays.fill(sorted, end, sorted.length, null);
+        return end;
+    }
+
+    private static void checkRange(final int length, final int from, final int to) {
+        if (from > to) {
+            throw new IllegalArgumentException("from(" + from + ") > to(" + to + ")");
+        }
+        if (from < 0) {
+            throw new ArrayIndexOutOfBoundsException(from);
+        }
+        if (to > length) {
+            throw new ArrayIndexOutOfBoundsException(to);
+        }
+    }
+
+    /**
+     * A radix sort of a range of keys. Each pass counts the digits of the keys in each chunk of
+     * the range, turns the counts into the position of the first key of each digit and chunk,
+     * and moves the keys of each chunk to their positions in the other array.
+     */
+    private static final class RadixSort {
+
+        private final long[] keys;
+        private final int[] order;
+        private final int from;
+        private final int length;
+        private final boolean parallel;
+        private final int[][] counts;
+        private long min;
+        private int shift;
+        private long[] sourceKeys;
+        private int[] sourceOrder;
+        private int sourceBase;
+        private long[] targetKeys;
+        private int[] targetOrder;
+        private int targetBase;
+
+        RadixSort(final long[] keys, final int[] order, final int from, final int to, final boolean parallel) {
+            this.keys = keys;
+            this.order = order;
+            this.from = from;
+            this.length = to - from;
+            this.parallel = parallel;
+            int chunks = parallel ? ForkJoinPool.commonPool().getParallelism() * CHUNKS_PER_THREAD : 1;
+            this.counts = new int[Math.max(1, Math.min(chunks, length / RADIX_THRESHOLD))][BUCKETS];
+        }
+
+        void sort() {
+            long max = Long.MIN_VALUE;
+            min = Long.MAX_VALUE;
+            for (int i = from; i < from + length; i++) {
+                min = Math.min(min, keys[i]);
+                max = Math.max(max, keys[i]);
+            }
+            // The difference is correct as an unsigned value even if it overflows
+            int bits = Long.SIZE - Long.numberOfLeadingZeros(max - min);
+            sourceKeys = keys;
+            sourceOrder = order;
+            sourceBase = from;
+            for (shift = 0; shift < bits; shift += DIGIT_BITS) {
+                run(false);
+                if (offsets()) {
+                    if (targetKeys == null) {
+                        targetKeys = new long[length];
+                        targetOrder = order == null ? null : new int[length];
+                    }
+                    run(true);
+                    swap();
+                }
+            }
+            if (sourceKeys != keys) {
+                System.arraycopy(sourceKeys, 0, keys, from, length);
+                if (order != null) {
+                    System.arraycopy(sourceOrder, 0, order, from, length);
+                }
+            }
+        }
+
+        private void run(final boolean move) {
+            if (parallel && counts.length > 1) {
+                ForkJoinPool.commonPool().invoke(new PassTask(this, 0, counts.length, move));
+            } else if (move) {
+                move(0);
+            } else {
+                count(0);
+            }
+        }
+
+        private int chunkStart(final int chunk) {
+            return (int) ((long) length * chunk / counts.length);
+        }
+
+        private int digit(final long key) {
+            return (int) ((key - min) >>> shift) & DIGIT_MASK;
+        }
+
+        void count(final int chunk) {
+            int[] chunkCounts = counts[chunk];
+            Arrays.fill(chunkCounts, 0);
+            for (int i = sourceBase + chunkStart(chunk), end = sourceBase + chunkStart(chunk + 1); i < end; i++) {
+                chunkCounts[digit(sourceKeys[i])]++;
+            }
+        }
+
+        /**
+         * Turns the counts into positions in the target array.
+         *
+         * @return {@code false} if all keys have the same digit and the pass can be skipped.
+         */
+        private boolean offsets() {
+            int position = 0;
+            for (int digit = 0; digit < BUCKETS; digit++) {
+                int total = 0;
+                for (int[] chunkCounts : counts) {
+                    int count = chunkCounts[digit];
+                    chunkCounts[digit] = position + total;
+                    total += count;
+                }
+                if (total == length) {
+                    return false;
+                }
+                position += total;
+            }
+            return true;
+        }
+
+        void move(final int chunk) {
+            int[] positions = counts[chunk];
+            int base = targetBase();
+            for (int i = sourceBase + chunkStart(chunk), end = sourceBase + chunkStart(chunk + 1); i < end; i++) {
+                long key = sourceKeys[i];
+                int target = base + positions[digit(key)]++;
+                targetKeys[target] = key;
+                if (targetOrder != null) {
+                    targetOrder[target] = sourceOrder[i];
+                }
+            }
+        }
+
+        private int targetBase() {
+            return targetKeys == keys ? from : 0;
+        }
+
+        private void swap() {
+            long[] swapKeys = sourceKeys;
+            int[] swapOrder = sourceOrder;
+            sourceKeys = targetKeys;
+            sourceOrder = targetOrder;
+            targetKeys = swapKeys;
+            targetOrder = swapOrder;
+            sourceBase = sourceKeys == keys ? from : 0;
+        }
+
+    }
+
+    /**
+     * Counts or moves the keys of a range of chunks, splitting it in half down to one chunk.
+     */
+    private static final class PassTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient RadixSort sort;
+        private final int from;
+        private final int to;
+        private final boolean move;
+
+        PassTask(final RadixSort sort, final int from, final int to, final boolean move) {
+            this.sort = sort;
+            this.from = from;
+            this.to = to;
+            this.move = move;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PassTask(sort, from, middle, move), new PassTask(sort, middle, to, move));
+            } else if (move) {
+                sort.move(from);
+            } else {
+                sort.count(from);
+            }
+        }
+
+    }
+
+}
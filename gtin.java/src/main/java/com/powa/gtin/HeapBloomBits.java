@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter bits on the heap, available on every JVM.
+ */
+final class HeapBloomBits implements GtinBloomBits {
+
+    private final AtomicLongArray words;
+
+    HeapBloomBits(final long words) {
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many bits for the heap: " + words * Long.SIZE);
+        }
+        this.words = new AtomicLongArray((int) words);
+    }
+
+    @Override
+    public long words() {
+        return words.length();
+    }
+
+    @Override
+    public long get(final long word) {
+        return words.get((int) word);
+    }
+
+    @Override
+    public boolean set(final long word, final long mask) {
+        int index = (int) word;
+        long bits;
+        do {
+            bits = words.get(index);
+            if ((bits & mask) == mask) {
+                // Already set, skip the write to keep the cache line shared between readers
+                return false;
+            }
+        } while (!words.compareAndSet(index, bits, bits | mask));
+        return true;
+    }
+
+    @Override
+    public void force() {
+    }
+
+}
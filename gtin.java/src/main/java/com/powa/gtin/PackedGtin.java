@@ -0,0 +1,259 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+/**
+ * Static methods for GTIN codes packed into a primitive {@code long}, for storing large numbers
+ * of GTINs in {@code long[]} without a {@link Gtin} or {@link String} for each of them.
+ * <p>
+ * The numeric value of the GTIN is held in the upper bits and the {@link GtinFormat} in the
+ * lowest two bits, so leading zeros survive packing: {@code 0} for GTIN-8, {@code 1} for
+ * GTIN-12, {@code 2} for GTIN-13 and {@code 3} for GTIN-14. A packed GTIN is always
+ * positive, and packed GTINs sort in the numeric order of the codes, which is the order of
+ * their GTIN-14 forms, with codes of equal value ordered by format.
+ * <p>
+ * Apart from {@link #isValid(long)} the methods expect a valid packed GTIN and the result is
+ * unspecified for any other value.
+ */
+public final class PackedGtin {
+
+    /**
+     * Returned by {@link #tryPack(CharSequence)} for invalid GTINs, never a valid packed GTIN.
+     */
+    static final long INVALID = -1L;
+
+    private static final int FORMAT_BITS = 2;
+    private static final long FORMAT_MASK = (1L << FORMAT_BITS) - 1;
+    private static final int RADIX = 10;
+
+    private static final GtinFormat[] FORMATS = GtinFormat.values();
+    private static final long[] POWERS_OF_TEN = new long[GtinFormat.GTIN_14.length() + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * RADIX;
+        }
+    }
+
+    // Prevent instantiation
+    private PackedGtin() {
+    }
+
+    /**
+     * Packs the given GTIN into a {@code long}.
+     *
+     * @param gtin the GTIN string, may be GTIN-8, GTIN-12, GTIN-13 or GTIN-14 format.
+     * @return the packed GTIN.
+     * @throws GtinFormatException if the string is not a valid GTIN.
+     */
+    public static long pack(final CharSequence gtin) {
+        GtinCheck check = GtinChecksum.check(gtin);
+        if (check != GtinCheck.VALID) {
+            throw Gtin.invalidGtin(gtin, check);
+        }
+        return packValid(gtin);
+    }
+
+    /**
+     * Packs the given GTIN for a lookup without allocating or throwing if it is invalid.
+     *
+     * @return the packed GTIN, or {@link #INVALID} if the input is not a valid GTIN.
+     * @throws IllegalArgumentException if the GTIN is null.
+     */
+    static long tryPack(final CharSequence gtin) {
+        if (gtin == null) {
+            throw new IllegalArgumentException("gtin is null");
+        }
+        return GtinChecksum.check(gtin) == GtinCheck.VALID ? packValid(gtin) : INVALID;
+    }
+
+    /**
+     * Packs the GTIN held as ASCII bytes for a lookup without allocating or throwing if it is
+     * invalid.
+     *
+     * @return the packed GTIN, or {@link #INVALID} if the bytes are not a valid GTIN.
+     * @throws IndexOutOfBoundsException if the range is outside of the array.
+     */
+    static long tryPack(final byte[] gtin, final int offset, final int length) {
+        GtinFormat format = Gtin.bytesFormat(gtin, gtin == null ? 0 : gtin.length, offset, length, 0);
+        if (format == null || !GtinChecksum.isValidSum(GtinChecksum.weightedSum(gtin, offset, length, format))) {
+            return INVALID;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            value = value * RADIX + (gtin[i] - '0');
+        }
+        return value << FORMAT_BITS | GtinChecksum.formatForLength(length).ordinal();
+    }
+
+    /**
+     * Checks a value expected to be a packed GTIN.
+     *
+     * @return the packed GTIN.
+     * @throws GtinFormatException if the value is not a valid packed GTIN.
+     */
+    static long checkValid(final long packed) {
+        if (!isValid(packed)) {
+            boolean fits = packed >= 0 && packed >>> FORMAT_BITS < POWERS_OF_TEN[length(packed)];
+            throw new GtinFormatException("Value", Long.toString(packed), "packed gtin",
+                    fits ? GtinCheck.BAD_CHECKSUM : GtinCheck.BAD_LENGTH);
+        }
+        return packed;
+    }
+
+    /**
+     * Packs a numeric value with a format, without checking that it is a valid GTIN.
+     */
+    static long packValue(final long value, final GtinFormat format) {
+        return value << FORMAT_BITS | format.ordinal();
+    }
+
+    /**
+     * Packs a GTIN known to be valid.
+     */
+    static long packValid(final CharSequence gtin) {
+        int length = gtin.length();
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = value * RADIX + (gtin.charAt(i) - '0');
+        }
+        return value << FORMAT_BITS | GtinChecksum.formatForLength(length).ordinal();
+    }
+
+    /**
+     * Checks if the value is a packed GTIN with a numeric value that fits its format and a
+     * valid check digit.
+     *
+     * @param packed the value to check.
+     * @return {@code true} if the value is a valid packed GTIN, {@code false} otherwise.
+     */
+    public static boolean isValid(final long packed) {
+        if (packed < 0) {
+            return false;
+        }
+        long value = packed >>> FORMAT_BITS;
+        int length = length(packed);
+        if (value >= POWERS_OF_TEN[length]) {
+            return false;
+        }
+        // Weights alternate 1, 3, 1, ... counting from the check digit on the right
+        int checkSum = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = (int) (value % RADIX);
+            checkSum += i % 2 == 0 ? digit : digit * 3;
+            value /= RADIX;
+        }
+        return checkSum % RADIX == 0;
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return the format or type of the GTIN.
+     */
+    public static GtinFormat format(final long packed) {
+        return FORMATS[(int) (packed & FORMAT_MASK)];
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return the length of the GTIN.
+     */
+    public static int length(final long packed) {
+        return format(packed).length();
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return the numeric value of the GTIN, which is equal for GTINs which only differ by
+     * leading zeros.
+     */
+    public static long value(final long packed) {
+        return packed >>> FORMAT_BITS;
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return the check digit of the GTIN.
+     */
+    public static int checkDigit(final long packed) {
+        return (int) ((packed >>> FORMAT_BITS) % RADIX);
+    }
+
+    /**
+     * Gets the digit at the specified position.
+     *
+     * @param packed the packed GTIN.
+     * @param position the position, from 0 to length - 1.
+     * @return the digit at the specified position.
+     * @throws java.lang.IndexOutOfBoundsException if the position is not between 0 and length - 1.
+     */
+    public static int digitAt(final long packed, final int position) {
+        int length = length(packed);
+        if (position < 0 || position >= length) {
+            throw new IndexOutOfBoundsException("Position " + position + " is outside of a gtin of length " + length);
+        }
+        return (int) ((packed >>> FORMAT_BITS) / POWERS_OF_TEN[length - 1 - position] % RADIX);
+    }
+
+    /**
+     * Writes the digits of the GTIN into the given array.
+     *
+     * @param packed the packed GTIN.
+     * @param destination the array to write the digits to.
+     * @param offset the position in the array of the first digit.
+     * @return the number of digits written, i.e. the length of the GTIN.
+     * @throws java.lang.IndexOutOfBoundsException if the GTIN does not fit in the array.
+     */
+    public static int getChars(final long packed, final char[] destination, final int offset) {
+        int length = length(packed);
+        if (offset < 0 || offset > destination.length - length) {
+            throw new IndexOutOfBoundsException("Gtin of length " + length + " does not fit at offset " + offset);
+        }
+        long value = packed >>> FORMAT_BITS;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            destination[i] = (char) ('0' + value % RADIX);
+            value /= RADIX;
+        }
+        return length;
+    }
+
+    /**
+     * Appends the digits of the GTIN to the given builder.
+     *
+     * @param packed the packed GTIN.
+     * @param builder the builder to append to.
+     * @return the builder.
+     */
+    public static StringBuilder appendTo(final long packed, final StringBuilder builder) {
+        long value = packed >>> FORMAT_BITS;
+        for (int i = length(packed) - 1; i >= 0; i--) {
+            builder.append((char) ('0' + value / POWERS_OF_TEN[i] % RADIX));
+        }
+        return builder;
+    }
+
+    /**
+     * @param packed the packed GTIN.
+     * @return the GTIN code as a string.
+     */
+    public static String toString(final long packed) {
+        char[] chars = new char[length(packed)];
+        getChars(packed, chars, 0);
+        return new String(chars);
+    }
+
+}
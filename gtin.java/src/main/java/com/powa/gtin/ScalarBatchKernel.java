@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+/**
+ * Batch kernel validating one GTIN at a time, available on every JVM.
+ */
+final class ScalarBatchKernel implements GtinBatchKernel {
+
+    @Override
+    public void validate(final byte[] data, final int offset, final int stride, final int count,
+            final GtinFormat format, final long[] valid) {
+        int length = format.length();
+        for (int i = 0; i < count; i++) {
+            if (GtinChecksum.isValidSum(GtinChecksum.weightedSum(data, offset + i * stride, length, format))) {
+                valid[i >>> GtinBatch.WORD_SHIFT] |= 1L << i;
+            }
+        }
+    }
+
+}
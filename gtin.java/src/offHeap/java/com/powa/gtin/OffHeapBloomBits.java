@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Bloom filter bits in direct or memory-mapped buffers, loaded by {@link GtinBloomFilter} on
+ * Java 9 or later. Words are read and set atomically through a byte buffer view
+ * {@link VarHandle}, which Java 8 has no public equivalent of for memory outside the heap.
+ * <p>
+ * The words are held in segments of 1 GB, as a buffer cannot be larger than 2 GB. Direct
+ * segments are aligned to 64 bytes, so that a block of the blocked layout is one cache line, as
+ * are mapped segments after the 64 byte file header.
+ */
+final class OffHeapBloomBits implements GtinBloomBits {
+
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+    private static final int SEGMENT_SHIFT = 27;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private static final int WORD_BYTES = Long.BYTES;
+    private static final long SEGMENT_BYTES = (long) WORD_BYTES << SEGMENT_SHIFT;
+    private static final int CACHE_LINE = 64;
+
+    private final ByteBuffer[] segments;
+    private final long words;
+
+    /**
+     * Allocates zeroed words in direct memory.
+     */
+    OffHeapBloomBits(final long words) {
+        this.segments = new ByteBuffer[segmentCount(words)];
+        this.words = words;
+        for (int i = 0; i < segments.length; i++) {
+            int bytes = (int) segmentBytes(words, i);
+            segments[i] = ByteBuffer.allocateDirect(bytes + CACHE_LINE - 1).alignedSlice(CACHE_LINE);
+        }
+    }
+
+    /**
+     * Maps the words from a file, which is extended if it is shorter.
+     */
+    OffHeapBloomBits(final FileChannel channel, final long position, final long words) throws IOException {
+        this.segments = new ByteBuffer[segmentCount(words)];
+        this.words = words;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position + i * SEGMENT_BYTES,
+                    segmentBytes(words, i));
+        }
+    }
+
+    private static int segmentCount(final long words) {
+        return (int) ((words + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    }
+
+    private static long segmentBytes(final long words, final int segment) {
+        return Math.min(SEGMENT_BYTES, (words << 3) - segment * SEGMENT_BYTES);
+    }
+
+    @Override
+    public long words() {
+        return words;
+    }
+
+    @Override
+    public long get(final long word) {
+        return (long) WORDS.getVolatile(segments[(int) (word >>> SEGMENT_SHIFT)],
+                (int) (word & SEGMENT_MASK) << 3);
+    }
+
+    @Override
+    public boolean set(final long word, final long mask) {
+        ByteBuffer segment = segments[(int) (word >>> SEGMENT_SHIFT)];
+        int index = (int) (word & SEGMENT_MASK) << 3;
+        long bits;
+        do {
+            bits = (long) WORDS.getVolatile(segment, index);
+            if ((bits & mask) == mask) {
+                return false;
+            }
+        } while (!WORDS.compareAndSet(segment, index, bits, bits | mask));
+        return true;
+    }
+
+    @Override
+    public void force() {
+        for (ByteBuffer segment : segments) {
+            if (segment instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) segment).force();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapBloomBitsTest {
+
+    private final TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder getFolder() {
+        return folder;
+    }
+
+    private static long[] gtins(final int count) {
+        return TestGtins.withPrefix("4006381", GtinFormat.GTIN_13, count);
+    }
+
+    @Test
+    public void offHeapFilterShouldFindInsertedGtins() {
+        long[] gtins = gtins(20000);
+        for (GtinBloomFilter.Layout layout : GtinBloomFilter.Layout.values()) {
+            GtinBloomFilter filter = GtinBloomFilter.offHeap(gtins.length, 0.01, layout);
+            for (long gtin : gtins) {
+                filter.put(gtin);
+            }
+            for (long gtin : gtins) {
+                assertTrue(layout.name(), filter.mightContain(gtin));
+            }
+            assertFalse(filter.mightContain("5012345678900"));
+        }
+    }
+
+    @Test
+    public void offHeapFilterShouldMatchHeapFilter() {
+        GtinBloomFilter heap = GtinBloomFilter.onHeap(1000, 0.05, GtinBloomFilter.Layout.BLOCKED);
+        GtinBloomFilter offHeap = GtinBloomFilter.offHeap(1000, 0.05, GtinBloomFilter.Layout.BLOCKED);
+        for (long gtin : gtins(1000)) {
+            assertEquals(heap.put(gtin), offHeap.put(gtin));
+        }
+        for (long gtin : GtinRange.forPrefix("5012345", GtinFormat.GTIN_13).stream().limit(10000).toArray()) {
+            assertEquals(heap.mightContain(gtin), offHeap.mightContain(gtin));
+        }
+    }
+
+    @Test
+    public void mappedFilterShouldKeepGtinsWhenOpenedAgain() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("seen.bloom");
+        long[] gtins = gtins(5000);
+        try (GtinBloomFilter filter = GtinBloomFilter.create(file, gtins.length, 0.01,
+                GtinBloomFilter.Layout.BLOCKED)) {
+            for (long gtin : gtins) {
+                filter.put(gtin);
+            }
+            filter.force();
+        }
+
+        try (GtinBloomFilter filter = GtinBloomFilter.open(file)) {
+            assertEquals(GtinBloomFilter.Layout.BLOCKED, filter.layout());
+            assertEquals(GtinBloomFilter.optimalBits(gtins.length, 0.01), filter.bitSize());
+            assertEquals(64 + filter.bitSize() / 8, Files.size(file));
+            for (long gtin : gtins) {
+                assertFalse(filter.put(gtin));
+            }
+        }
+    }
+
+    @Test(expected = FileAlreadyExistsException.class)
+    public void creatingExistingFileShouldFail() throws IOException {
+        GtinBloomFilter.create(folder.newFile().toPath(), 1000, 0.01, GtinBloomFilter.Layout.STANDARD);
+    }
+
+    @Test(expected = IOException.class)
+    public void openingOtherFileShouldFail() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[100]);
+
+        GtinBloomFilter.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void openingTruncatedFileShouldFail() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("seen.bloom");
+        GtinBloomFilter.create(file, 1000, 0.01, GtinBloomFilter.Layout.STANDARD).close();
+        Files.write(file, Arrays.copyOf(Files.readAllBytes(file), 100));
+
+        GtinBloomFilter.open(file);
+    }
+
+    @Test
+    public void threadsShouldSetBitsConcurrently() throws Exception {
+        final OffHeapBloomBits bits = new OffHeapBloomBits(16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        int changed = 0;
+                        for (int bit = 0; bit < 16 * 64; bit++) {
+                            changed += bits.set(bit >>> 6, 1L << bit) ? 1 : 0;
+                        }
+                        return changed;
+                    }
+                }));
+            }
+            int changed = 0;
+            for (Future<Integer> future : futures) {
+                changed += future.get();
+            }
+            assertEquals(16 * 64, changed);
+        } finally {
+            executor.shutdown();
+        }
+        for (int word = 0; word < 16; word++) {
+            assertEquals(-1L, bits.get(word));
+        }
+    }
+
+}
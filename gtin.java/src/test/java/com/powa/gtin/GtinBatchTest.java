@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GtinBatchTest {
+
+    private static final byte[] GTIN13S = ("4006381333931\n4006381333932\n0234248273487\n400638133393a\n")
+            .getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    public void batchShouldMarkValidGtins() {
+        BitSet valid = BitSet.valueOf(GtinBatch.validate(GTIN13S, 0, 14, 4, GtinFormat.GTIN_13));
+
+        assertTrue(valid.get(0));
+        assertFalse(valid.get(1));
+        assertTrue(valid.get(2));
+        assertFalse(valid.get(3));
+    }
+
+    @Test
+    public void scalarKernelShouldMarkValidGtins() {
+        long[] valid = GtinBatch.validate(new ScalarBatchKernel(), GTIN13S, 14, 14, 3, GtinFormat.GTIN_13);
+
+        assertArrayEquals(new long[] {2L}, valid);
+    }
+
+    @Test
+    public void batchOfManyGtinsShouldUseEveryWordOfMask() {
+        byte[] data = new byte[130 * 8];
+        for (int i = 0; i < 130; i++) {
+            String gtin = i % 2 == 0 ? "73513537" : "73513536";
+            System.arraycopy(gtin.getBytes(StandardCharsets.US_ASCII), 0, data, i * 8, 8);
+        }
+
+        long[] valid = GtinBatch.validate(data, 0, 8, 130, GtinFormat.GTIN_8);
+
+        assertEquals(3, valid.length);
+        assertEquals(65, BitSet.valueOf(valid).cardinality());
+        assertEquals(0x5555555555555555L, valid[1]);
+    }
+
+    @Test
+    public void emptyBatchShouldHaveEmptyMask() {
+        assertEquals(0, GtinBatch.validate(new byte[0], 0, 8, 0, GtinFormat.GTIN_8).length);
+    }
+
+    @Test
+    public void scalarKernelShouldBeUsedIfVectorKernelIsDisabled() {
+        System.setProperty(GtinBatch.VECTOR_PROPERTY, "false");
+        try {
+            assertTrue(GtinBatch.loadKernel() instanceof ScalarBatchKernel);
+        } finally {
+            System.clearProperty(GtinBatch.VECTOR_PROPERTY);
+        }
+    }
+
+    @Test
+    public void scalarKernelShouldBeUsedWithoutVectorJar() {
+        assertEquals(GtinBatch.isVectorized(), !(GtinBatch.loadKernel() instanceof ScalarBatchKernel));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void strideShorterThanFormatShouldThrowException() {
+        GtinBatch.validate(GTIN13S, 0, 12, 4, GtinFormat.GTIN_13);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullDataShouldThrowException() {
+        GtinBatch.validate(null, 0, 14, 4, GtinFormat.GTIN_13);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullFormatShouldThrowException() {
+        GtinBatch.validate(GTIN13S, 0, 14, 4, null);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void batchPastEndShouldThrowException() {
+        GtinBatch.validate(GTIN13S, 14, 14, 4, GtinFormat.GTIN_13);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void negativeOffsetShouldThrowException() {
+        GtinBatch.validate(GTIN13S, -1, 14, 1, GtinFormat.GTIN_13);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void negativeCountShouldThrowException() {
+        GtinBatch.validate(GTIN13S, 0, 14, -1, GtinFormat.GTIN_13);
+    }
+
+    @Test
+    public void validateAllShouldMarkValidGtins() {
+        BitSet valid = GtinBatch.validateAll(new CharSequence[] {"73513537", "4006381333932",
+            new StringBuilder("4006381333931"), }, null);
+
+        assertEquals(2, valid.cardinality());
+        assertTrue(valid.get(0));
+        assertTrue(valid.get(2));
+    }
+
+    @Test
+    public void validateAllShouldCheckFormat() {
+        BitSet valid = GtinBatch.validateAll(Arrays.asList("73513537", "4006381333931"), GtinFormat.GTIN_13);
+
+        assertFalse(valid.get(0));
+        assertTrue(valid.get(1));
+    }
+
+    @Test
+    public void validateAllInParallelShouldMatchSequential() {
+        List<String> gtins = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            gtins.add(String.format("%08d", i * 7919));
+        }
+
+        long[] sequential = GtinBatch.validateAll(gtins, GtinFormat.GTIN_8, Integer.MAX_VALUE);
+        long[] parallel = GtinBatch.validateAll(gtins, GtinFormat.GTIN_8, 10);
+
+        assertArrayEquals(sequential, parallel);
+        for (int i = 0; i < gtins.size(); i++) {
+            assertEquals(Gtin.isValid(gtins.get(i)), BitSet.valueOf(parallel).get(i));
+        }
+    }
+
+    @Test
+    public void linkedListsShouldBeProcessedInParallel() {
+        List<String> gtins = new LinkedList<String>();
+        List<String> partials = new LinkedList<String>();
+        for (int i = 0; i < 1000; i++) {
+            gtins.add(String.format("%08d", i * 7919));
+            partials.add(String.format("%07d", i * 7919));
+        }
+
+        assertArrayEquals(GtinBatch.validateAll(new ArrayList<String>(gtins), GtinFormat.GTIN_8, Integer.MAX_VALUE),
+                GtinBatch.validateAll(gtins, GtinFormat.GTIN_8, 10));
+        assertArrayEquals(GtinBatch.withCheckDigitAll(new ArrayList<String>(partials), Integer.MAX_VALUE),
+                GtinBatch.withCheckDigitAll(partials, 10));
+    }
+
+    @Test
+    public void withCheckDigitAllShouldCompleteGtins() {
+        assertArrayEquals(new String[] {"73513537", "4006381333931"},
+                GtinBatch.withCheckDigitAll(new CharSequence[] {"7351353", new StringBuilder("400638133393"), }));
+    }
+
+    @Test
+    public void withCheckDigitAllInParallelShouldMatchSequential() {
+        List<String> partials = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            partials.add(String.format("%012d", i * 7919L));
+        }
+
+        String[] sequential = GtinBatch.withCheckDigitAll(partials, Integer.MAX_VALUE);
+        String[] parallel = GtinBatch.withCheckDigitAll(partials, 10);
+
+        assertArrayEquals(sequential, parallel);
+        assertEquals(Gtin.withCheckDigit(partials.get(999)), parallel[999]);
+    }
+
+    @Test
+    public void emptyListShouldHaveNoValidGtins() {
+        assertTrue(GtinBatch.validateAll(new ArrayList<String>(), null).isEmpty());
+        assertEquals(0, GtinBatch.withCheckDigitAll(new ArrayList<String>()).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validateAllWithNullGtinShouldThrowException() {
+        GtinBatch.validateAll(Arrays.asList("73513537", null), null);
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void withCheckDigitAllOfInvalidGtinShouldThrowException() {
+        GtinBatch.withCheckDigitAll(new CharSequence[] {"7351353", "73a1353", });
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void withCheckDigitAllInParallelOfInvalidGtinShouldThrowException() {
+        List<String> partials = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            partials.add(i == 150 ? "1" : "7351353");
+        }
+        GtinBatch.withCheckDigitAll(partials, 10);
+    }
+
+}
@@ -0,0 +1,320 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GtinBloomFilterTest {
+
+    private static final int MAGIC = 0x4754424C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private final TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder getFolder() {
+        return folder;
+    }
+
+    private Path filterFile(final int magic, final int version, final int layout, final int hashFunctions,
+            final long bitCount, final int size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(magic).putInt(version).putInt(layout).putInt(hashFunctions).putLong(bitCount);
+        Path file = folder.newFile().toPath();
+        Files.write(file, Arrays.copyOf(header.array(), size));
+        return file;
+    }
+
+    private Path filterFile(final int layout, final int hashFunctions, final long bitCount) throws IOException {
+        return filterFile(MAGIC, VERSION, layout, hashFunctions, bitCount, HEADER_SIZE + (int) (bitCount / Byte.SIZE));
+    }
+
+    private static void assertNotOpened(final Path file, final String message) {
+        try {
+            GtinBloomFilter.open(file);
+            fail();
+        } catch (final IOException e) {
+            assertEquals("File '" + file + "' " + message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void insertedGtinsShouldAlwaysBeFound() {
+        long[] gtins = TestGtins.withPrefix("4006381", GtinFormat.GTIN_13, 20000);
+        for (GtinBloomFilter.Layout layout : GtinBloomFilter.Layout.values()) {
+            GtinBloomFilter filter = GtinBloomFilter.onHeap(gtins.length, 0.01, layout);
+            for (long gtin : gtins) {
+                filter.put(gtin);
+            }
+            for (long gtin : gtins) {
+                assertTrue(layout.name(), filter.mightContain(gtin));
+            }
+        }
+    }
+
+    @Test
+    public void falsePositiveRateShouldBeNearTarget() {
+        long[] inserted = TestGtins.withPrefix("4006381", GtinFormat.GTIN_13, 50000);
+        long[] others = TestGtins.withPrefix("5012345", GtinFormat.GTIN_13, 50000);
+        for (GtinBloomFilter.Layout layout : GtinBloomFilter.Layout.values()) {
+            GtinBloomFilter filter = GtinBloomFilter.onHeap(inserted.length, 0.01, layout);
+            for (long gtin : inserted) {
+                filter.put(gtin);
+            }
+            int falsePositives = 0;
+            for (long gtin : others) {
+                if (filter.mightContain(gtin)) {
+                    falsePositives++;
+                }
+            }
+            double rate = (double) falsePositives / others.length;
+            assertTrue(layout + " " + rate, rate > 0.005 && rate < 0.015);
+        }
+    }
+
+    @Test
+    public void putShouldReportIfGtinIsNew() {
+        for (GtinBloomFilter.Layout layout : GtinBloomFilter.Layout.values()) {
+            GtinBloomFilter filter = GtinBloomFilter.onHeap(1000, 0.001, layout);
+
+            assertTrue(filter.put("4006381333931"));
+            assertFalse(filter.put("4006381333931"));
+            assertFalse(filter.put(Gtin.create("4006381333931")));
+            assertFalse(filter.put(PackedGtin.pack("4006381333931")));
+            assertFalse(filter.put("4006381333931".getBytes(StandardCharsets.US_ASCII), 0, 13));
+            assertTrue(filter.put("73513537".getBytes(StandardCharsets.US_ASCII), 0, 8));
+        }
+    }
+
+    @Test
+    public void insertedGtinShouldBeFoundByEveryKeyType() {
+        GtinBloomFilter filter = GtinBloomFilter.onHeap(1000, 0.001, GtinBloomFilter.Layout.BLOCKED);
+        Gtin gtin = Gtin.create("4006381333931");
+
+        filter.put(gtin);
+
+        assertTrue(filter.mightContain(gtin));
+        assertTrue(filter.mightContain("4006381333931"));
+        assertTrue(filter.mightContain(new StringBuilder("4006381333931")));
+        assertTrue(filter.mightContain(gtin.toLong()));
+        assertTrue(filter.mightContain("x4006381333931x".getBytes(StandardCharsets.US_ASCII), 1, 13));
+    }
+
+    @Test
+    public void gtinsWithDifferentFormatsShouldBeDifferent() {
+        GtinBloomFilter filter = GtinBloomFilter.onHeap(1000, 0.001, GtinBloomFilter.Layout.STANDARD);
+
+        filter.put("012345678905");
+
+        assertFalse(filter.mightContain("0012345678905"));
+    }
+
+    @Test
+    public void invalidGtinShouldNotBeFound() {
+        GtinBloomFilter filter = GtinBloomFilter.onHeap(1000, 0.001, GtinBloomFilter.Layout.STANDARD);
+        filter.put("4006381333931");
+
+        assertFalse(filter.mightContain("4006381333932"));
+        assertFalse(filter.mightContain("400638133393a"));
+        assertFalse(filter.mightContain("4006381333932".getBytes(StandardCharsets.US_ASCII), 0, 13));
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void invalidGtinShouldNotBeInserted() {
+        GtinBloomFilter.onHeap(1000, 0.01, GtinBloomFilter.Layout.STANDARD).put("4006381333932");
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void invalidGtinBytesShouldNotBeInserted() {
+        byte[] bytes = "4006381333932".getBytes(StandardCharsets.US_ASCII);
+        GtinBloomFilter.onHeap(1000, 0.01, GtinBloomFilter.Layout.STANDARD).put(bytes, 0, bytes.length);
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void invalidPackedGtinShouldNotBeInserted() {
+        GtinBloomFilter.onHeap(1000, 0.01, GtinBloomFilter.Layout.STANDARD).put(-1L);
+    }
+
+    @Test
+    public void filterShouldBeSizedForFalsePositiveRate() {
+        GtinBloomFilter filter = GtinBloomFilter.onHeap(1000000, 0.01, GtinBloomFilter.Layout.BLOCKED);
+
+        assertEquals(9585152, filter.bitSize());
+        assertEquals(0, filter.bitSize() % 512);
+        assertEquals(7, filter.hashFunctions());
+        assertEquals(GtinBloomFilter.Layout.BLOCKED, filter.layout());
+        assertEquals(0.01, filter.falsePositiveRate(1000000), 0.0005);
+        assertEquals(0, filter.falsePositiveRate(0), 0);
+    }
+
+    @Test
+    public void smallFilterShouldHaveOneBlock() {
+        assertEquals(512, GtinBloomFilter.optimalBits(1, 0.5));
+        assertEquals(1, GtinBloomFilter.onHeap(1000, 0.9, GtinBloomFilter.Layout.STANDARD).hashFunctions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveExpectedGtinsShouldBeRejected() {
+        GtinBloomFilter.optimalBits(0, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void falsePositiveRateOfOneShouldBeRejected() {
+        GtinBloomFilter.optimalBits(1000, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void falsePositiveRateOfNaNShouldBeRejected() {
+        GtinBloomFilter.optimalBits(1000, Double.NaN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void filterLargerThanMaximumShouldBeRejected() {
+        GtinBloomFilter.optimalBits(100000000000L, 0.0001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void heapFilterLargerThanArrayShouldBeRejected() {
+        GtinBloomFilter.onHeap(20000000000L, 0.01, GtinBloomFilter.Layout.STANDARD);
+    }
+
+    @Test
+    public void threadsShouldInsertConcurrently() throws Exception {
+        final long[] gtins = TestGtins.withPrefix("4006381", GtinFormat.GTIN_13, 40000);
+        for (GtinBloomFilter.Layout layout : GtinBloomFilter.Layout.values()) {
+            final GtinBloomFilter filter = GtinBloomFilter.onHeap(gtins.length, 0.01, layout);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+                for (int t = 0; t < 4; t++) {
+                    final int thread = t;
+                    futures.add(executor.submit(new Callable<Integer>() {
+                        @Override
+                        public Integer call() {
+                            int added = 0;
+                            for (int i = thread; i < gtins.length; i += 4) {
+                                added += filter.put(gtins[i]) ? 1 : 0;
+                            }
+                            return added;
+                        }
+                    }));
+                }
+                int added = 0;
+                for (Future<Integer> future : futures) {
+                    added += future.get();
+                }
+                assertTrue(layout.name(), added > gtins.length * 0.98);
+            } finally {
+                executor.shutdown();
+            }
+            for (long gtin : gtins) {
+                assertTrue(layout.name(), filter.mightContain(gtin));
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void offHeapFilterShouldNeedOffHeapJar() {
+        GtinBloomFilter.offHeap(1000, 0.01, GtinBloomFilter.Layout.STANDARD);
+    }
+
+    @Test
+    public void openFileWithoutMagicShouldThrowException() throws IOException {
+        assertNotOpened(filterFile(0, VERSION, 0, 7, 512, 128), "is not a gtin bloom filter");
+        assertNotOpened(filterFile(MAGIC, 2, 0, 7, 512, 128), "is not a gtin bloom filter");
+    }
+
+    @Test
+    public void openFileWithTruncatedHeaderShouldThrowException() throws IOException {
+        assertNotOpened(filterFile(MAGIC, VERSION, 0, 7, 512, 0), "is not a gtin bloom filter");
+        assertNotOpened(filterFile(MAGIC, VERSION, 0, 7, 512, 24), "is not a gtin bloom filter");
+    }
+
+    @Test
+    public void openFileWithInvalidHeaderShouldThrowException() throws IOException {
+        assertNotOpened(filterFile(-1, 7, 512), "has an invalid header");
+        assertNotOpened(filterFile(2, 7, 512), "has an invalid header");
+        assertNotOpened(filterFile(0, 0, 512), "has an invalid header");
+        assertNotOpened(filterFile(1, 33, 512), "has an invalid header");
+        assertNotOpened(filterFile(0, 7, 0), "has an invalid header");
+        assertNotOpened(filterFile(MAGIC, VERSION, 0, 7, -512, HEADER_SIZE), "has an invalid header");
+        assertNotOpened(filterFile(0, 7, 1000), "has an invalid header");
+        assertNotOpened(filterFile(MAGIC, VERSION, 0, 7, GtinBloomFilter.MAX_BITS + 512, HEADER_SIZE),
+                "has an invalid header");
+    }
+
+    @Test
+    public void openFileOfWrongSizeShouldThrowException() throws IOException {
+        assertNotOpened(filterFile(MAGIC, VERSION, 0, 7, 1024, 128), "has the wrong size for 1024 bits");
+        assertNotOpened(filterFile(MAGIC, VERSION, 1, 7, 512, 256), "has the wrong size for 512 bits");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void openValidFileShouldNeedOffHeapJar() throws IOException {
+        GtinBloomFilter.open(filterFile(0, 7, 512));
+    }
+
+    @Test(expected = FileAlreadyExistsException.class)
+    public void createExistingFileShouldThrowException() throws IOException {
+        GtinBloomFilter.create(folder.newFile().toPath(), 1000, 0.01, GtinBloomFilter.Layout.STANDARD);
+    }
+
+    @Test
+    public void createShouldNeedOffHeapJar() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("filter.bloom");
+        try {
+            GtinBloomFilter.create(file, 1000, 0.01, GtinBloomFilter.Layout.BLOCKED);
+            fail();
+        } catch (final UnsupportedOperationException e) {
+            // The header is written before the bits are mapped
+            assertEquals(HEADER_SIZE, Files.size(file));
+        }
+    }
+
+    @Test
+    public void closingHeapFilterShouldDoNothing() throws Exception {
+        GtinBloomFilter filter = GtinBloomFilter.onHeap(1000, 0.01, GtinBloomFilter.Layout.STANDARD);
+        filter.put("4006381333931");
+
+        filter.force();
+        filter.close();
+
+        assertTrue(filter.mightContain("4006381333931"));
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GtinChecksumTest {
+
+    @Test
+    public void formatForKnownLengthsShouldBeFound() {
+        assertEquals(GtinFormat.GTIN_8, GtinChecksum.formatForLength(8));
+        assertEquals(GtinFormat.GTIN_12, GtinChecksum.formatForLength(12));
+        assertEquals(GtinFormat.GTIN_13, GtinChecksum.formatForLength(13));
+        assertEquals(GtinFormat.GTIN_14, GtinChecksum.formatForLength(14));
+    }
+
+    @Test
+    public void formatForUnknownLengthsShouldBeNull() {
+        assertNull(GtinChecksum.formatForLength(-1));
+        assertNull(GtinChecksum.formatForLength(0));
+        assertNull(GtinChecksum.formatForLength(9));
+        assertNull(GtinChecksum.formatForLength(15));
+    }
+
+    @Test
+    public void weightedSumShouldUseAlternatingWeightsFromTheRight() {
+        // 7*3 + 3*1 + 5*3 + 1*1 + 3*3 + 5*1 + 3*3 + 7*1
+        assertEquals(70, GtinChecksum.weightedSum("73513537", 8, GtinFormat.GTIN_8));
+        // 1*3 + 0*1 + 6*3 + ... weights start at 3 for an even length of 14
+        assertEquals(60, GtinChecksum.weightedSum("10614141000415", 14, GtinFormat.GTIN_14));
+    }
+
+    @Test
+    public void weightedSumOfNonDigitsShouldBeNotANumber() {
+        assertEquals(GtinChecksum.NOT_A_NUMBER, GtinChecksum.weightedSum("7351353a", 8, GtinFormat.GTIN_8));
+        assertEquals(GtinChecksum.NOT_A_NUMBER, GtinChecksum.weightedSum(" 7351353", 8, GtinFormat.GTIN_8));
+    }
+
+    @Test
+    public void wordSumShouldMatchWeightedSum() {
+        long bigEndian = ByteBuffer.wrap("73513537".getBytes(StandardCharsets.US_ASCII)).getLong();
+        long littleEndian = Long.reverseBytes(bigEndian);
+
+        assertEquals(70, GtinChecksum.wordSum(bigEndian, false, 3, 1));
+        assertEquals(70, GtinChecksum.wordSum(littleEndian, true, 3, 1));
+        // 7 + 3*3 + 5 + 1*3 + 3 + 5*3 + 3 + 7*3
+        assertEquals(66, GtinChecksum.wordSum(bigEndian, false, 1, 3));
+    }
+
+    @Test
+    public void wordSumOfNonDigitsShouldBeNotANumber() {
+        String[] words = {"7351353/", ":7351353", "735 3537", "73513?37", "7351353\u00b3"};
+
+        for (String word : words) {
+            long bigEndian = ByteBuffer.wrap(word.getBytes(StandardCharsets.ISO_8859_1)).getLong();
+            assertEquals(word, GtinChecksum.NOT_A_NUMBER, GtinChecksum.wordSum(bigEndian, false, 3, 1));
+        }
+    }
+
+    @Test
+    public void bufferWeightedSumOfNonDigitsShouldBeNotANumber() {
+        ByteBuffer buffer = ByteBuffer.wrap("73513537a".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(GtinChecksum.NOT_A_NUMBER, GtinChecksum.weightedSum(buffer, 0, 9, GtinFormat.GTIN_12));
+    }
+
+    @Test
+    public void notANumberShouldNotBeValidSum() {
+        assertFalse(GtinChecksum.isValidSum(GtinChecksum.NOT_A_NUMBER));
+        assertTrue(GtinChecksum.isValidSum(0));
+        assertTrue(GtinChecksum.isValidSum(70));
+        assertFalse(GtinChecksum.isValidSum(71));
+    }
+
+    @Test
+    public void checkDigitShouldCompleteSum() {
+        assertEquals(0, GtinChecksum.checkDigit(60));
+        assertEquals(7, GtinChecksum.checkDigit(63));
+        assertEquals(1, GtinChecksum.checkDigit(69));
+    }
+
+}
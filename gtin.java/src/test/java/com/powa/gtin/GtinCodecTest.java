@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GtinCodecTest {
+
+    private static final String[] GTINS = {"73513537", "00000000", "012345678905", "4006381333931",
+        "0012345678905", "10614141000415", "99999999999997", };
+
+    @Test
+    public void packedGtinsShouldSurviveStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (String gtin : GTINS) {
+                GtinCodec.writePacked(out, Gtin.create(gtin));
+            }
+        }
+
+        assertEquals(GTINS.length * GtinCodec.PACKED_LENGTH, bytes.size());
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (String gtin : GTINS) {
+                assertEquals(gtin, GtinCodec.readPacked(in).toString());
+            }
+        }
+    }
+
+    @Test
+    public void packedGtinsShouldSurviveBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(GTINS.length * GtinCodec.PACKED_LENGTH);
+        for (String gtin : GTINS) {
+            GtinCodec.putPacked(buffer, Gtin.create(gtin));
+        }
+        buffer.flip();
+
+        for (String gtin : GTINS) {
+            assertEquals(gtin, GtinCodec.getPacked(buffer).toString());
+        }
+    }
+
+    @Test
+    public void bcdGtinsShouldSurviveStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int length = 0;
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (String gtin : GTINS) {
+                GtinCodec.writeBcd(out, Gtin.create(gtin));
+                length += GtinCodec.bcdLength(Gtin.create(gtin).format());
+            }
+        }
+
+        assertEquals(length, bytes.size());
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (String gtin : GTINS) {
+                assertEquals(gtin, GtinCodec.readBcd(in).toString());
+            }
+        }
+    }
+
+    @Test
+    public void bcdGtinsShouldSurviveBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        for (String gtin : GTINS) {
+            GtinCodec.putBcd(buffer, Gtin.create(gtin));
+        }
+        buffer.flip();
+
+        for (String gtin : GTINS) {
+            assertEquals(gtin, GtinCodec.getBcd(buffer).toString());
+        }
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    public void bcdShouldHoldFormatAndDigitsWithoutCheckDigit() {
+        ByteBuffer buffer = ByteBuffer.allocate(7);
+
+        GtinCodec.putBcd(buffer, Gtin.create("4006381333931"));
+
+        assertArrayEquals(new byte[] {0x24, 0x00, 0x63, (byte) 0x81, 0x33, 0x39, 0x30}, buffer.array());
+    }
+
+    @Test
+    public void bcdLengthShouldDependOnFormat() {
+        assertEquals(4, GtinCodec.bcdLength(GtinFormat.GTIN_8));
+        assertEquals(6, GtinCodec.bcdLength(GtinFormat.GTIN_12));
+        assertEquals(7, GtinCodec.bcdLength(GtinFormat.GTIN_13));
+        assertEquals(7, GtinCodec.bcdLength(GtinFormat.GTIN_14));
+    }
+
+    @Test
+    public void serializedGtinShouldBeSmallerThanDefaultForm() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(Gtin.create("4006381333931"));
+        }
+
+        assertTrue(bytes.size() < 80);
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void invalidPackedGtinShouldThrowException() {
+        GtinCodec.getPacked(ByteBuffer.wrap(new byte[] {0, 0, 0, 0, 0, 0, 0, 5}));
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void invalidBcdFormatShouldThrowException() {
+        GtinCodec.getBcd(ByteBuffer.wrap(new byte[] {0x40, 0, 0, 0}));
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void invalidBcdDigitShouldThrowException() throws IOException {
+        GtinCodec.readBcd(new DataInputStream(new ByteArrayInputStream(new byte[] {0x07, 0x35, 0x1A, 0x35})));
+    }
+
+    @Test
+    public void invalidBcdShouldBeDescribedOnDemand() {
+        try {
+            GtinCodec.getBcd(ByteBuffer.wrap(new byte[] {0x07, 0x35, 0x1A, 0x35}));
+            fail();
+        } catch (final GtinFormatException e) {
+            assertEquals(GtinCheck.NON_DIGIT, e.getReason());
+            assertEquals("7351a35", e.getInput());
+            assertEquals("Value '7351a35' is not a valid encoded gtin", e.getMessage());
+        }
+        try {
+            GtinCodec.getBcd(ByteBuffer.wrap(new byte[] {0x40, 0, 0, 0}));
+            fail();
+        } catch (final GtinFormatException e) {
+            assertEquals(GtinCheck.BAD_LENGTH, e.getReason());
+            assertEquals("Byte '64' is not a valid encoded gtin format", e.getMessage());
+        }
+    }
+
+}
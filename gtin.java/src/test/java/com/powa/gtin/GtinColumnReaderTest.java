@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GtinColumnReaderTest {
+
+    private final TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder getFolder() {
+        return folder;
+    }
+
+    private Path write(final int blockSize, final List<String> gtins) throws IOException {
+        Path file = folder.newFile().toPath();
+        try (GtinColumnWriter writer = new GtinColumnWriter(file, blockSize)) {
+            for (String gtin : gtins) {
+                writer.write(gtin);
+            }
+        }
+        return file;
+    }
+
+    private static List<String> gtins(final int count) {
+        return TestGtins.strings(TestGtins.withPrefix("4006381", GtinFormat.GTIN_13, count));
+    }
+
+    private Path header(final int version, final int blockSize, final long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(GtinColumnWriter.HEADER_SIZE);
+        header.putInt(GtinColumnWriter.MAGIC).putInt(version).putInt(blockSize).putInt(0).putLong(size);
+        Path file = folder.newFile().toPath();
+        Files.write(file, header.array());
+        return file;
+    }
+
+    private static void assertNotOpened(final Path file, final String message) {
+        try {
+            GtinColumnReader.open(file);
+            fail();
+        } catch (final IOException e) {
+            assertEquals("File '" + file + "' " + message, e.getMessage());
+        }
+    }
+
+    private static List<String> read(final GtinColumnReader.Cursor cursor) {
+        List<String> gtins = new ArrayList<String>();
+        while (cursor.next()) {
+            gtins.add(PackedGtin.toString(cursor.packed()));
+        }
+        return gtins;
+    }
+
+    @Test
+    public void readerShouldReturnGtinsInWrittenOrder() throws IOException {
+        List<String> gtins = gtins(1000);
+        gtins.add("73513537");
+        gtins.add("10614141000415");
+
+        try (GtinColumnReader reader = GtinColumnReader.open(write(64, gtins))) {
+            assertEquals(1002, reader.size());
+            assertEquals(16, reader.blockCount());
+            assertEquals(gtins, read(reader.cursor()));
+        }
+    }
+
+    @Test
+    public void cursorShouldReturnGtin() throws IOException {
+        try (GtinColumnReader reader = GtinColumnReader.open(write(4, gtins(1)))) {
+            GtinColumnReader.Cursor cursor = reader.cursor();
+
+            assertTrue(cursor.next());
+            assertEquals(Gtin.create(gtins(1).get(0)), cursor.gtin());
+            assertFalse(cursor.next());
+            assertFalse(cursor.next());
+        }
+    }
+
+    @Test
+    public void rangeScanShouldReturnGtinsInRange() throws IOException {
+        List<String> gtins = gtins(1000);
+        long from = PackedGtin.pack(gtins.get(100));
+        long to = PackedGtin.pack(gtins.get(199));
+
+        try (GtinColumnReader reader = GtinColumnReader.open(write(64, gtins))) {
+            assertEquals(gtins.subList(100, 200), read(reader.cursor(from, to)));
+        }
+    }
+
+    @Test
+    public void prefixScanShouldReturnGtinsOfFormatWithPrefix() throws IOException {
+        List<String> gtins = gtins(1000);
+        gtins.add(Gtin.withCheckDigit("0400638100002"));
+        gtins.add("73513537");
+
+        try (GtinColumnReader reader = GtinColumnReader.open(write(64, gtins))) {
+            assertEquals(gtins.subList(500, 600), read(reader.cursor("4006381005", GtinFormat.GTIN_13)));
+            assertEquals(1, read(reader.cursor("0400638", GtinFormat.GTIN_14)).size());
+            assertEquals(1, read(reader.cursor("", GtinFormat.GTIN_8)).size());
+            assertEquals(0, read(reader.cursor("9", GtinFormat.GTIN_13)).size());
+        }
+    }
+
+    @Test
+    public void emptyFileShouldHaveNoGtins() throws IOException {
+        try (GtinColumnReader reader = GtinColumnReader.open(write(64, new ArrayList<String>()))) {
+            assertEquals(0, reader.size());
+            assertFalse(reader.cursor().next());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFileShouldNotBeOpened() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, "4006381333931\n".getBytes("US-ASCII"));
+
+        GtinColumnReader.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedFileShouldNotBeOpened() throws IOException {
+        Path file = write(64, gtins(10));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        GtinColumnReader.open(file);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonDigitPrefixShouldThrowException() throws IOException {
+        try (GtinColumnReader reader = GtinColumnReader.open(write(64, gtins(1)))) {
+            reader.cursor("40a", GtinFormat.GTIN_13);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void longPrefixShouldThrowException() throws IOException {
+        try (GtinColumnReader reader = GtinColumnReader.open(write(64, gtins(1)))) {
+            reader.cursor("400638133393", GtinFormat.GTIN_8);
+        }
+    }
+
+    @Test
+    public void fileWithOtherVersionShouldNotBeOpened() throws IOException {
+        assertNotOpened(header(GtinColumnWriter.VERSION + 1, 64, 0), "is not a gtin column file");
+    }
+
+    @Test
+    public void fileWithInvalidHeaderShouldNotBeOpened() throws IOException {
+        assertNotOpened(header(GtinColumnWriter.VERSION, 0, 0), "has an invalid header");
+        assertNotOpened(header(GtinColumnWriter.VERSION, GtinColumnWriter.MAX_BLOCK_SIZE + 1, 0),
+                "has an invalid header");
+        assertNotOpened(header(GtinColumnWriter.VERSION, 64, -1), "has an invalid header");
+        assertNotOpened(header(GtinColumnWriter.VERSION, 1, Long.MAX_VALUE / 2), "has an invalid header");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullPrefixShouldThrowException() throws IOException {
+        try (GtinColumnReader reader = GtinColumnReader.open(write(64, gtins(1)))) {
+            reader.cursor(null, GtinFormat.GTIN_13);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullFormatShouldThrowException() throws IOException {
+        try (GtinColumnReader reader = GtinColumnReader.open(write(64, gtins(1)))) {
+            reader.cursor("400", null);
+        }
+    }
+
+}
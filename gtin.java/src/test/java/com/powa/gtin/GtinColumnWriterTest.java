@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+public class GtinColumnWriterTest {
+
+    private final TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder getFolder() {
+        return folder;
+    }
+
+    @Test
+    public void writerShouldWriteHeaderAndBlocks() throws IOException {
+        Path file = folder.newFile().toPath();
+        try (GtinColumnWriter writer = new GtinColumnWriter(file, 2)) {
+            writer.write("73513537");
+            writer.write(Gtin.create("4006381333931"));
+            writer.write(PackedGtin.pack("4006381333931"));
+            assertEquals(3, writer.count());
+        }
+
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        assertEquals(24 + 24 + 2 * 7 + 24 + 7, bytes.limit());
+        assertEquals(0x47544943, bytes.getInt(0));
+        assertEquals(2, bytes.getInt(8));
+        assertEquals(3, bytes.getLong(16));
+        assertEquals(2, bytes.getInt(24));
+        assertEquals(-1, bytes.get(28));
+        assertEquals(PackedGtin.pack("73513537"), bytes.getLong(32));
+        assertEquals(PackedGtin.pack("4006381333931"), bytes.getLong(40));
+        assertEquals(1, bytes.getInt(62));
+        assertEquals(GtinFormat.GTIN_13.ordinal(), bytes.get(66));
+    }
+
+    @Test
+    public void emptyWriterShouldWriteHeaderOnly() throws IOException {
+        Path file = folder.newFile().toPath();
+        new GtinColumnWriter(file).close();
+
+        assertEquals(24, Files.size(file));
+    }
+
+    @Test
+    public void closingTwiceShouldBeIgnored() throws IOException {
+        Path file = folder.newFile().toPath();
+        GtinColumnWriter writer = new GtinColumnWriter(file);
+        writer.write("73513537");
+        writer.close();
+        writer.close();
+
+        assertEquals(24 + 24 + 7, Files.size(file));
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void invalidGtinShouldThrowException() throws IOException {
+        try (GtinColumnWriter writer = new GtinColumnWriter(folder.newFile().toPath())) {
+            writer.write("73513536");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroBlockSizeShouldThrowException() throws IOException {
+        new GtinColumnWriter(folder.newFile().toPath(), 0);
+    }
+
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GtinCompactSetTest {
+
+    private static long[] distinct(final long[] packed) {
+        long[] sorted = packed.clone();
+        Arrays.sort(sorted);
+        return Arrays.copyOf(sorted, GtinSort.dedupe(sorted));
+    }
+
+    @Test
+    public void setShouldContainExactlyItsGtins() {
+        Random random = new Random(42);
+        long[] packed = TestGtins.random(random, 20000);
+        long[] others = TestGtins.random(random, 20000);
+        GtinCompactSet set = GtinCompactSet.of(packed);
+
+        for (long gtin : packed) {
+            assertTrue(set.contains(gtin));
+            assertTrue(set.contains(PackedGtin.toString(gtin)));
+            assertTrue(set.contains(Gtin.fromLong(gtin)));
+        }
+        long[] sorted = distinct(packed);
+        for (long gtin : others) {
+            assertEquals(Arrays.binarySearch(sorted, gtin) >= 0, set.contains(gtin));
+        }
+    }
+
+    @Test
+    public void rankShouldCountSmallerGtins() {
+        Random random = new Random(42);
+        long[] sorted = distinct(TestGtins.random(random, 20000));
+        GtinCompactSet set = GtinCompactSet.of(sorted);
+
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals(i, set.rank(sorted[i]));
+            assertEquals(sorted[i], set.get(i));
+        }
+        for (long gtin : TestGtins.random(random, 20000)) {
+            int index = Arrays.binarySearch(sorted, gtin);
+            assertEquals(index >= 0 ? index : -index - 1, set.rank(gtin));
+        }
+        assertEquals(0, set.rank("00000000"));
+        assertEquals(sorted.length, set.rank("99999999999997"));
+        assertEquals(set.rank(sorted[10]), set.rank(PackedGtin.toString(sorted[10])));
+        assertEquals(set.rank(sorted[10]), set.rank(Gtin.fromLong(sorted[10])));
+    }
+
+    @Test
+    public void iterationShouldBeInAscendingOrder() {
+        long[] packed = TestGtins.random(new Random(42), 5000);
+        long[] sorted = distinct(packed);
+        GtinCompactSet set = GtinCompactSet.of(packed);
+
+        assertEquals(sorted.length, set.size());
+        assertArrayEquals(sorted, set.stream().toArray());
+        PrimitiveIterator.OfLong iterator = set.iterator();
+        for (long gtin : sorted) {
+            assertEquals(gtin, iterator.nextLong());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void denseGtinsShouldBeFound() {
+        long[] packed = GtinRange.forPrefix("4006381", GtinFormat.GTIN_13).stream().toArray();
+        GtinCompactSet.Builder builder = new GtinCompactSet.Builder();
+        for (int i = 0; i < packed.length; i += 3) {
+            builder.add(packed[i]);
+        }
+        GtinCompactSet set = builder.build();
+
+        for (int i = 0; i < packed.length; i++) {
+            assertEquals(i % 3 == 0, set.contains(packed[i]));
+            assertEquals((i + 2) / 3, set.rank(packed[i]));
+        }
+        assertArrayEquals(distinct(set.stream().toArray()), set.stream().toArray());
+    }
+
+    @Test
+    public void gtinsWithDifferentFormatsShouldBeDifferent() {
+        GtinCompactSet set = GtinCompactSet.of(PackedGtin.pack("012345678905"), PackedGtin.pack("73513537"));
+
+        assertTrue(set.contains("012345678905"));
+        assertFalse(set.contains("0012345678905"));
+        assertFalse(set.contains("00012345678905"));
+        assertEquals(2, set.rank("0012345678905"));
+    }
+
+    @Test
+    public void invalidGtinShouldNotBeFound() {
+        GtinCompactSet set = GtinCompactSet.of(PackedGtin.pack("4006381333931"));
+
+        assertFalse(set.contains("4006381333932"));
+        assertFalse(set.contains("400638133393a"));
+        assertFalse(set.contains(PackedGtin.pack("4006381333931") + 4));
+        assertFalse(set.contains(-1L));
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void rankOfInvalidGtinShouldThrowException() {
+        GtinCompactSet.of(PackedGtin.pack("4006381333931")).rank("4006381333932");
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void rankOfInvalidPackedGtinShouldThrowException() {
+        GtinCompactSet.of(PackedGtin.pack("4006381333931")).rank(PackedGtin.pack("4006381333931") + 4);
+    }
+
+    @Test
+    public void emptySetShouldContainNothing() {
+        GtinCompactSet set = new GtinCompactSet.Builder().build();
+
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        assertFalse(set.contains("4006381333931"));
+        assertEquals(0, set.rank("4006381333931"));
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    public void singleGtinSetShouldContainIt() {
+        GtinCompactSet set = new GtinCompactSet.Builder().add("4006381333931").add("4006381333931").build();
+
+        assertFalse(set.isEmpty());
+        assertEquals(1, set.size());
+        assertTrue(set.contains(Gtin.create("4006381333931")));
+        assertEquals(1, set.rank("4006381333948"));
+        assertEquals(0, set.rank("4006381333931"));
+    }
+
+    @Test
+    public void builderShouldRejectGtinsOutOfOrder() {
+        GtinCompactSet.Builder builder = new GtinCompactSet.Builder().add("4006381333931");
+        try {
+            builder.add(Gtin.create("73513537"));
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("GTIN 73513537 added after larger GTIN 4006381333931", e.getMessage());
+        }
+        assertEquals(1, builder.size());
+    }
+
+    @Test
+    public void builderShouldBeReusable() {
+        GtinCompactSet.Builder builder = new GtinCompactSet.Builder().add("73513537");
+        GtinCompactSet first = builder.build();
+        builder.add("4006381333931");
+
+        assertEquals(1, first.size());
+        assertEquals(2, builder.build().size());
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void builderShouldRejectInvalidPackedGtin() {
+        new GtinCompactSet.Builder().add(-1L);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getBeyondSizeShouldThrowException() {
+        GtinCompactSet.of(PackedGtin.pack("4006381333931")).get(1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getNegativeIndexShouldThrowException() {
+        GtinCompactSet.of(PackedGtin.pack("4006381333931")).get(-1);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void iteratorShouldThrowAtEnd() {
+        PrimitiveIterator.OfLong iterator = GtinCompactSet.of(PackedGtin.pack("4006381333931")).iterator();
+        iterator.nextLong();
+        iterator.nextLong();
+    }
+
+    @Test
+    public void setShouldTakeFewBytesPerGtin() {
+        Random random = new Random(42);
+        long[] packed = new long[200000];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = PackedGtin.pack(Gtin.withCheckDigit(String.format("%012d", (long) (random.nextDouble() * 1e12))));
+        }
+        GtinCompactSet set = GtinCompactSet.of(packed);
+
+        // 200000 GTIN-13s over 4e12 keys take 2 + 24 bits each
+        assertTrue(set.sizeInBytes() < 3.4 * packed.length);
+    }
+
+    @Test
+    public void keyShouldDropCheckDigit() {
+        long packed = PackedGtin.pack("4006381333931");
+
+        assertEquals(400638133393L << 2 | GtinFormat.GTIN_13.ordinal(), GtinCompactSet.key(packed));
+        assertEquals(packed, GtinCompactSet.packed(GtinCompactSet.key(packed)));
+    }
+
+}
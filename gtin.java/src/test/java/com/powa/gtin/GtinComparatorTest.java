@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GtinComparatorTest {
+
+    @Test
+    public void sameItemInDifferentFormatsShouldBeEquivalent() {
+        assertTrue(GtinComparator.equivalent("012345678905", "0012345678905"));
+        assertTrue(GtinComparator.equivalent("00012345678905", new StringBuilder("012345678905")));
+        assertTrue(GtinComparator.equivalent("73513537", "000073513537"));
+    }
+
+    @Test
+    public void differentItemsShouldNotBeEquivalent() {
+        assertFalse(GtinComparator.equivalent("012345678905", "4006381333931"));
+        assertFalse(GtinComparator.equivalent("73513537", "73513545"));
+    }
+
+    @Test
+    public void gtinsShouldBeOrderedByNumericValue() {
+        String[] gtins = {"4006381333931", "000073513537", "10614141000415", "0012345678905", "73513545"};
+
+        Arrays.sort(gtins, GtinComparator.INSTANCE);
+
+        assertArrayEquals(new String[] {"000073513537", "73513545", "0012345678905", "4006381333931",
+            "10614141000415", }, gtins);
+    }
+
+    @Test
+    public void zeroGtinsShouldBeEqual() {
+        assertEquals(0, GtinComparator.INSTANCE.compare("00000000", "0000000000000"));
+        assertTrue(GtinComparator.INSTANCE.compare("00000000", "73513537") < 0);
+    }
+
+    @Test
+    public void comparatorShouldStaySingletonAfterSerialization() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(GtinComparator.INSTANCE);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertSame(GtinComparator.INSTANCE, in.readObject());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullGtinShouldThrowException() {
+        GtinComparator.equivalent(null, "73513537");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullOtherGtinShouldThrowException() {
+        GtinComparator.INSTANCE.compare("73513537", null);
+    }
+
+}
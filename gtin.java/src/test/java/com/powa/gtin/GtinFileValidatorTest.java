@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class GtinFileValidatorTest {
+
+    private final TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder getFolder() {
+        return folder;
+    }
+
+    private Path write(final String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    @Test
+    public void validFileShouldCountEveryFormat() throws IOException {
+        Path file = write("73513537\n734092309436\n4006381333931\n0234248273487\n10614141000415\n");
+
+        GtinFileReport report = new GtinFileValidator().validate(file);
+
+        assertEquals(5, report.lines());
+        assertEquals(5, report.validCount());
+        assertEquals(0, report.invalidCount());
+        assertEquals(1, report.validCount(GtinFormat.GTIN_8));
+        assertEquals(1, report.validCount(GtinFormat.GTIN_12));
+        assertEquals(2, report.validCount(GtinFormat.GTIN_13));
+        assertEquals(1, report.validCount(GtinFormat.GTIN_14));
+    }
+
+    @Test
+    public void invalidLinesShouldBeReportedWithOffsetAndLineNumber() throws IOException {
+        Path file = write("73513537\r\n4006381333932\n\n73513537\nabcdefgh");
+
+        GtinFileReport report = new GtinFileValidator().validate(file);
+
+        assertEquals(5, report.lines());
+        assertEquals(2, report.validCount());
+        assertEquals(3, report.invalidCount());
+        assertArrayEquals(new long[] {10, 24, 34}, report.invalidOffsets());
+        assertArrayEquals(new long[] {2, 3, 5}, report.invalidLines());
+    }
+
+    @Test
+    public void emptyFileShouldHaveNoLines() throws IOException {
+        GtinFileReport report = new GtinFileValidator().validate(write(""));
+
+        assertEquals(0, report.lines());
+        assertEquals(0, report.validCount());
+    }
+
+    @Test
+    public void reportShouldNotDependOnChunkSize() throws IOException {
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+        List<Long> expectedOffsets = new ArrayList<Long>();
+        List<Long> expectedLines = new ArrayList<Long>();
+        for (int line = 1; line <= 500; line++) {
+            String gtin = Gtin.withCheckDigit(String.format("%012d", random.nextInt(1000000)));
+            switch (random.nextInt(4)) {
+                case 0:
+                    gtin = gtin.substring(1) + "0" + gtin.charAt(0) + "1234567890123456789";
+                    break;
+                case 1:
+                    gtin = gtin.substring(0, 12) + (char) ('0' + (gtin.charAt(12) - '0' + 1) % 10);
+                    break;
+                default:
+                    break;
+            }
+            if (!Gtin.isValid(gtin)) {
+                expectedOffsets.add((long) content.length());
+                expectedLines.add((long) line);
+            }
+            content.append(gtin).append(random.nextBoolean() ? "\n" : "\r\n");
+        }
+        Path file = write(content.toString());
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        for (int chunkSize = 1; chunkSize < 40; chunkSize++) {
+            GtinFileReport report = new GtinFileValidator(pool, chunkSize).validate(file);
+
+            assertEquals(500, report.lines());
+            assertEquals(expectedOffsets.size(), report.invalidCount());
+            for (int i = 0; i < expectedOffsets.size(); i++) {
+                assertEquals((long) expectedOffsets.get(i), report.invalidOffsets()[i]);
+                assertEquals((long) expectedLines.get(i), report.invalidLines()[i]);
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroChunkSizeShouldThrowException() {
+        new GtinFileValidator(ForkJoinPool.commonPool(), 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void missingFileShouldThrowException() throws IOException {
+        new GtinFileValidator().validate(folder.getRoot().toPath().resolve("missing"));
+    }
+
+}
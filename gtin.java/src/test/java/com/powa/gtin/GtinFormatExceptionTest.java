@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GtinFormatExceptionTest {
+
+    @Test
+    public void exceptionShouldCarryInputAndReason() {
+        GtinFormatException exception = createException("4006381333932");
+
+        assertEquals("4006381333932", exception.getInput());
+        assertEquals(GtinCheck.BAD_CHECKSUM, exception.getReason());
+        assertEquals("String '4006381333932' is not a valid gtin", exception.getMessage());
+    }
+
+    @Test
+    public void exceptionShouldHaveReasonOfFailedCheck() {
+        assertEquals(GtinCheck.BAD_LENGTH, createException("40063813339").getReason());
+        assertEquals(GtinCheck.NON_DIGIT, createException("400638133393a").getReason());
+    }
+
+    @Test
+    public void bytesExceptionShouldHaveReasonOfFailedCheck() {
+        byte[] gtin = "400638133393a".getBytes(StandardCharsets.US_ASCII);
+        try {
+            Gtin.create(gtin, 0, gtin.length);
+            fail();
+        } catch (final GtinFormatException e) {
+            assertEquals(GtinCheck.NON_DIGIT, e.getReason());
+            assertEquals("400638133393a", e.getInput());
+        }
+    }
+
+    @Test
+    public void partialGtinExceptionShouldHaveMessage() {
+        try {
+            Gtin.calculateCheckDigit("4006381333");
+            fail();
+        } catch (final GtinFormatException e) {
+            assertEquals(GtinCheck.BAD_LENGTH, e.getReason());
+            assertEquals("String '4006381333' is not a valid partial gtin", e.getMessage());
+        }
+    }
+
+    @Test
+    public void packedGtinExceptionShouldHaveReason() {
+        try {
+            PackedGtin.checkValid(PackedGtin.pack("73513537") + 4);
+            fail();
+        } catch (final GtinFormatException e) {
+            assertEquals(GtinCheck.BAD_CHECKSUM, e.getReason());
+        }
+        try {
+            PackedGtin.checkValid(-1L);
+            fail();
+        } catch (final GtinFormatException e) {
+            assertEquals(GtinCheck.BAD_LENGTH, e.getReason());
+            assertEquals("Value '-1' is not a valid packed gtin", e.getMessage());
+        }
+    }
+
+    @Test
+    public void exceptionWithMessageShouldHaveNoInput() {
+        GtinFormatException exception = new GtinFormatException("Not a gtin");
+
+        assertEquals("Not a gtin", exception.getMessage());
+        assertNull(exception.getInput());
+        assertNull(exception.getReason());
+    }
+
+    @Test
+    public void exceptionShouldCaptureStackTraceByDefault() {
+        assertTrue(createException("73513536").getStackTrace().length > 0);
+    }
+
+    @Test
+    public void messageShouldSurviveSerialization() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(createException("73513536"));
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            GtinFormatException exception = (GtinFormatException) in.readObject();
+
+            assertEquals("String '73513536' is not a valid gtin", exception.getMessage());
+            assertEquals(GtinCheck.BAD_CHECKSUM, exception.getReason());
+        }
+    }
+
+    private static GtinFormatException createException(final String gtin) {
+        try {
+            Gtin.create(gtin);
+        } catch (final GtinFormatException e) {
+            return e;
+        }
+        throw new AssertionError("Expected an exception for " + gtin);
+    }
+
+}
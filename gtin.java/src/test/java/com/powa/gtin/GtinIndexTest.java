@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GtinIndexTest {
+
+    private final TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder getFolder() {
+        return folder;
+    }
+
+    private Path write(final long... packed) throws IOException {
+        Path file = folder.newFile().toPath();
+        GtinIndex.write(packed, file);
+        return file;
+    }
+
+    @Test
+    public void writtenGtinsShouldBeFoundByEveryKeyType() throws IOException {
+        Gtin gtin = Gtin.create("4006381333931");
+        Path file = write(PackedGtin.pack("73513537"), gtin.toLong(), PackedGtin.pack("10614141000415"));
+
+        try (GtinIndex index = GtinIndex.open(file)) {
+            assertEquals(3, index.size());
+            assertTrue(index.contains(gtin));
+            assertTrue(index.contains("4006381333931"));
+            assertTrue(index.contains(gtin.toLong()));
+            assertTrue(index.contains("73513537"));
+            assertTrue(index.contains("10614141000415"));
+            assertFalse(index.contains("0234248273487"));
+            assertFalse(index.contains("4006381333932"));
+        }
+    }
+
+    @Test
+    public void duplicatesShouldBeRemoved() throws IOException {
+        long packed = PackedGtin.pack("73513537");
+        Path file = write(packed, packed, packed);
+
+        try (GtinIndex index = GtinIndex.open(file)) {
+            assertEquals(1, index.size());
+            assertTrue(index.contains(packed));
+        }
+    }
+
+    @Test
+    public void emptyIndexShouldContainNothing() throws IOException {
+        try (GtinIndex index = GtinIndex.open(write())) {
+            assertEquals(0, index.size());
+            assertFalse(index.contains("73513537"));
+        }
+    }
+
+    @Test
+    public void indexShouldContainExactlyTheWrittenGtins() throws IOException {
+        Random random = new Random(42);
+        for (int size = 1; size < 100; size++) {
+            long[] all = new long[size * 2];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = Gtin.createWithCheckDigit(String.format("%012d", random.nextInt(1000000))).toLong();
+            }
+            long[] written = Arrays.copyOf(all, size);
+
+            try (GtinIndex index = GtinIndex.open(write(written))) {
+                Arrays.sort(written);
+                for (long packed : all) {
+                    assertEquals(Arrays.binarySearch(written, packed) >= 0, index.contains(packed));
+                }
+            }
+        }
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void writeInvalidGtinShouldThrowException() throws IOException {
+        write(PackedGtin.pack("73513537"), -1L);
+    }
+
+    @Test(expected = IOException.class)
+    public void openFileWithoutHeaderShouldThrowException() throws IOException {
+        GtinIndex.open(folder.newFile().toPath());
+    }
+
+    @Test(expected = IOException.class)
+    public void openOtherFileShouldThrowException() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, "Not a gtin index file".getBytes("US-ASCII"));
+
+        GtinIndex.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void openTruncatedFileShouldThrowException() throws IOException {
+        Path file = write(PackedGtin.pack("73513537"), PackedGtin.pack("10614141000415"));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        GtinIndex.open(file);
+    }
+
+}
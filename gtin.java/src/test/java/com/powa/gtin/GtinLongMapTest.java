@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GtinLongMapTest {
+
+    @Test
+    public void absentGtinShouldReturnNoValue() {
+        GtinLongMap map = new GtinLongMap(0, -1);
+
+        assertEquals(-1, map.noValue());
+        assertEquals(-1, map.get("4006381333931"));
+        assertEquals(-1, map.remove("4006381333931"));
+        assertFalse(map.containsKey("4006381333931"));
+    }
+
+    @Test
+    public void putValueShouldBeFoundByEveryKeyType() {
+        GtinLongMap map = new GtinLongMap();
+        Gtin gtin = Gtin.create("4006381333931");
+
+        assertEquals(0, map.put(gtin, 42));
+
+        assertEquals(42, map.get(gtin));
+        assertEquals(42, map.get("4006381333931"));
+        assertEquals(42, map.get(gtin.toLong()));
+        assertTrue(map.containsKey(gtin));
+        assertTrue(map.containsKey("4006381333931"));
+        assertTrue(map.containsKey(gtin.toLong()));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void putShouldReplaceValue() {
+        GtinLongMap map = new GtinLongMap();
+
+        map.put("4006381333931", 1);
+        assertEquals(1, map.put(PackedGtin.pack("4006381333931"), 2));
+
+        assertEquals(2, map.get("4006381333931"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void invalidGtinShouldNotBeFound() {
+        GtinLongMap map = new GtinLongMap();
+        map.put("4006381333931", 1);
+
+        assertEquals(0, map.get("4006381333932"));
+        assertFalse(map.containsKey("abcdefgh"));
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void putInvalidGtinShouldThrowException() {
+        new GtinLongMap().put("4006381333932", 1);
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void putInvalidPackedGtinShouldThrowException() {
+        new GtinLongMap().put(-1L, 1);
+    }
+
+    @Test
+    public void removeShouldReturnValue() {
+        GtinLongMap map = new GtinLongMap();
+        map.put("4006381333931", 1);
+        map.put("73513537", 2);
+
+        assertEquals(1, map.remove(Gtin.create("4006381333931")));
+        assertEquals(0, map.remove("4006381333931"));
+
+        assertEquals(2, map.get("73513537"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void mapShouldBehaveLikeHashMap() {
+        Random random = new Random(42);
+        GtinLongMap map = new GtinLongMap();
+        Map<Gtin, Long> expected = new HashMap<Gtin, Long>();
+
+        for (int i = 0; i < 100000; i++) {
+            Gtin gtin = Gtin.createWithCheckDigit(String.format("%07d", random.nextInt(5000)));
+            if (random.nextInt(3) == 0) {
+                Long removed = expected.remove(gtin);
+                assertEquals(removed == null ? 0 : removed, map.remove(gtin));
+            } else {
+                Long previous = expected.put(gtin, (long) i);
+                assertEquals(previous == null ? 0 : previous, map.put(gtin, i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Gtin, Long> entry : expected.entrySet()) {
+            assertEquals((long) entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void absentKeyShouldNotBeContained() {
+        GtinLongMap map = new GtinLongMap();
+        map.put("4006381333931", 1);
+
+        assertFalse(map.containsKey(PackedGtin.pack("73513537")));
+        assertFalse(map.containsKey(Gtin.create("73513537")));
+    }
+
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class GtinMetricsTest {
+
+    private static final String VALID_13 = "4006381333931";
+    private static final String INVALID_13 = "4006381333932";
+
+    private final TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder getFolder() {
+        return folder;
+    }
+
+    private static long sum(final long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Before
+    public void resetMetrics() {
+        // The tests are run by the metricsTest task with -Dcom.powa.gtin.metrics=true
+        assumeTrue(GtinMetrics.isEnabled());
+        GtinMetrics.reset();
+    }
+
+    @Test
+    public void validationShouldBeCountedByFormatAndResult() {
+        Gtin.isValid(VALID_13);
+        Gtin.isValid(INVALID_13);
+        Gtin.isValid12(VALID_13);
+        Gtin.check("400638133393a");
+        Gtin.check(null);
+        Gtin.isValid(VALID_13.getBytes(StandardCharsets.US_ASCII), 0, VALID_13.length());
+        Gtin.isValid(ByteBuffer.wrap("73513537".getBytes(StandardCharsets.US_ASCII)), 0, 8);
+
+        GtinMetrics.Snapshot snapshot = GtinMetrics.snapshot();
+        assertEquals(7, snapshot.count(GtinMetrics.Operation.VALIDATE));
+        assertEquals(2, snapshot.count(GtinMetrics.Operation.VALIDATE, GtinFormat.GTIN_13, GtinCheck.VALID));
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.VALIDATE, GtinFormat.GTIN_8, GtinCheck.VALID));
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.VALIDATE, GtinFormat.GTIN_13, GtinCheck.BAD_CHECKSUM));
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.VALIDATE, GtinFormat.GTIN_13, GtinCheck.NON_DIGIT));
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.VALIDATE, null, GtinCheck.BAD_LENGTH));
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.VALIDATE, null, GtinCheck.NULL));
+        assertEquals(3, snapshot.count(GtinMetrics.Operation.VALIDATE, GtinCheck.VALID));
+        assertEquals(0, snapshot.count(GtinMetrics.Operation.CREATE));
+    }
+
+    @Test
+    public void creationShouldBeCounted() {
+        Gtin.create(VALID_13);
+        Gtin.tryCreate(INVALID_13);
+        Gtin.create("73513537".getBytes(StandardCharsets.US_ASCII), 0, 8);
+        try {
+            Gtin.create("123");
+        } catch (final GtinFormatException e) {
+            assertEquals(GtinCheck.BAD_LENGTH, e.getReason());
+        }
+
+        GtinMetrics.Snapshot snapshot = GtinMetrics.snapshot();
+        assertEquals(4, snapshot.count(GtinMetrics.Operation.CREATE));
+        assertEquals(2, snapshot.count(GtinMetrics.Operation.CREATE, GtinCheck.VALID));
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.CREATE, GtinFormat.GTIN_13, GtinCheck.BAD_CHECKSUM));
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.CREATE, null, GtinCheck.BAD_LENGTH));
+        assertEquals(0, snapshot.count(GtinMetrics.Operation.VALIDATE));
+    }
+
+    @Test
+    public void checkDigitCalculationShouldBeCounted() {
+        Gtin.calculateCheckDigit("400638133393");
+        Gtin.calculateCheckDigit("73513537".getBytes(StandardCharsets.US_ASCII), 0, 7);
+        try {
+            Gtin.calculateCheckDigit("40063813339a");
+        } catch (final GtinFormatException e) {
+            assertEquals(GtinCheck.NON_DIGIT, e.getReason());
+        }
+
+        GtinMetrics.Snapshot snapshot = GtinMetrics.snapshot();
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.CHECK_DIGIT, GtinFormat.GTIN_13, GtinCheck.VALID));
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.CHECK_DIGIT, GtinFormat.GTIN_8, GtinCheck.VALID));
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.CHECK_DIGIT, GtinFormat.GTIN_13, GtinCheck.NON_DIGIT));
+    }
+
+    @Test
+    public void bulkOperationsShouldRecordLatency() throws Exception {
+        GtinBatch.validateAll(Arrays.asList(VALID_13, INVALID_13), GtinFormat.GTIN_13);
+        GtinBatch.validate(VALID_13.getBytes(StandardCharsets.US_ASCII), 0, 13, 1, GtinFormat.GTIN_13);
+        GtinBatch.withCheckDigitAll(Arrays.asList("400638133393"));
+        File file = folder.newFile();
+        Files.write(file.toPath(), (VALID_13 + "\n").getBytes(StandardCharsets.US_ASCII));
+        new GtinFileValidator().validate(file.toPath());
+
+        GtinMetrics.Snapshot snapshot = GtinMetrics.snapshot();
+        assertEquals(2, snapshot.count(GtinMetrics.Operation.BATCH_VALIDATE));
+        assertEquals(2, snapshot.count(GtinMetrics.Operation.BATCH_VALIDATE, GtinFormat.GTIN_13));
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.FILE_VALIDATE, (GtinFormat) null));
+        assertEquals(2, sum(snapshot.latencyHistogram(GtinMetrics.Operation.BATCH_VALIDATE)));
+        assertEquals(1, sum(snapshot.latencyHistogram(GtinMetrics.Operation.BATCH_CHECK_DIGIT)));
+        assertEquals(1, sum(snapshot.latencyHistogram(GtinMetrics.Operation.FILE_VALIDATE)));
+        assertEquals(0, sum(snapshot.latencyHistogram(GtinMetrics.Operation.VALIDATE)));
+        assertEquals(1, snapshot.count(GtinMetrics.Operation.VALIDATE, GtinFormat.GTIN_13, GtinCheck.VALID));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resultOfBulkOperationShouldNotBeCounted() {
+        GtinMetrics.snapshot().count(GtinMetrics.Operation.BATCH_VALIDATE, GtinCheck.VALID);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resultOfBulkOperationByFormatShouldNotBeCounted() {
+        GtinMetrics.snapshot().count(GtinMetrics.Operation.FILE_VALIDATE, null, GtinCheck.VALID);
+    }
+
+    @Test
+    public void lookupsShouldNotBeCountedAsValidation() {
+        GtinSet set = new GtinSet();
+        set.add(VALID_13);
+        set.contains(VALID_13);
+        new GtinPool(16).intern(VALID_13);
+        PackedGtin.pack(VALID_13);
+
+        assertTrue(GtinMetrics.snapshot().counts().isEmpty());
+    }
+
+    @Test
+    public void snapshotShouldExportNonZeroCounts() {
+        Gtin.isValid(VALID_13);
+        Gtin.isValid("123");
+        GtinBatch.validateAll(Arrays.asList(VALID_13), null);
+
+        Map<String, Long> counts = GtinMetrics.snapshot().counts();
+        Map<String, Long> latencies = GtinMetrics.snapshot().latencies();
+
+        assertEquals(Long.valueOf(2), counts.get("VALIDATE.GTIN_13.VALID"));
+        assertEquals(Long.valueOf(1), counts.get("VALIDATE.NONE.BAD_LENGTH"));
+        assertEquals(Long.valueOf(1), counts.get("BATCH_VALIDATE.NONE"));
+        assertEquals(3, counts.size());
+        assertEquals(1, latencies.size());
+        assertTrue(latencies.keySet().iterator().next().startsWith("BATCH_VALIDATE."));
+    }
+
+    @Test
+    public void resetShouldClearCounts() {
+        Gtin.isValid(VALID_13);
+
+        GtinMetrics.reset();
+
+        assertTrue(GtinMetrics.snapshot().counts().isEmpty());
+    }
+
+    @Test
+    public void metricsShouldBeReadableThroughJmx() throws Exception {
+        ObjectName name = GtinMetrics.registerMBean();
+        assertEquals(name, GtinMetrics.registerMBean());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Gtin.isValid(VALID_13);
+
+        assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+        TabularData counts = (TabularData) server.getAttribute(name, "Counts");
+        assertEquals(1, counts.size());
+        assertTrue(((TabularData) server.getAttribute(name, "Latencies")).isEmpty());
+
+        server.invoke(name, "reset", null, null);
+
+        assertTrue(GtinMetrics.snapshot().counts().isEmpty());
+    }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GtinObjectMapTest {
+
+    @Test
+    public void absentGtinShouldReturnNull() {
+        GtinObjectMap<String> map = new GtinObjectMap<String>();
+
+        assertNull(map.get("4006381333931"));
+        assertNull(map.remove("4006381333931"));
+        assertFalse(map.containsKey("4006381333931"));
+    }
+
+    @Test
+    public void putValueShouldBeFoundByEveryKeyType() {
+        GtinObjectMap<String> map = new GtinObjectMap<String>();
+        Gtin gtin = Gtin.create("4006381333931");
+
+        assertNull(map.put(gtin, "value"));
+
+        assertEquals("value", map.get(gtin));
+        assertEquals("value", map.get("4006381333931"));
+        assertEquals("value", map.get(gtin.toLong()));
+        assertTrue(map.containsKey(gtin));
+        assertTrue(map.containsKey("4006381333931"));
+        assertTrue(map.containsKey(gtin.toLong()));
+    }
+
+    @Test
+    public void putShouldReplaceValue() {
+        GtinObjectMap<String> map = new GtinObjectMap<String>();
+
+        map.put("4006381333931", "first");
+        assertEquals("first", map.put(PackedGtin.pack("4006381333931"), "second"));
+
+        assertEquals("second", map.get("4006381333931"));
+        assertEquals(1, map.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putNullValueShouldThrowException() {
+        new GtinObjectMap<String>().put("4006381333931", null);
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void putInvalidPackedGtinShouldThrowException() {
+        new GtinObjectMap<String>().put(-1L, "value");
+    }
+
+    @Test
+    public void removeShouldReturnValue() {
+        GtinObjectMap<String> map = new GtinObjectMap<String>();
+        map.put("4006381333931", "first");
+        map.put("73513537", "second");
+
+        assertEquals("first", map.remove(Gtin.create("4006381333931")));
+        assertNull(map.remove(PackedGtin.pack("4006381333931")));
+
+        assertEquals("second", map.get("73513537"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void clearedMapShouldBeEmpty() {
+        GtinObjectMap<String> map = new GtinObjectMap<String>();
+        map.put("4006381333931", "value");
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get("4006381333931"));
+    }
+
+    @Test
+    public void mapShouldBehaveLikeHashMap() {
+        Random random = new Random(42);
+        GtinObjectMap<Integer> map = new GtinObjectMap<Integer>();
+        Map<Gtin, Integer> expected = new HashMap<Gtin, Integer>();
+
+        for (int i = 0; i < 100000; i++) {
+            Gtin gtin = Gtin.createWithCheckDigit(String.format("%07d", random.nextInt(5000)));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(gtin), map.remove(gtin));
+            } else {
+                assertEquals(expected.put(gtin, i), map.put(gtin, i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Gtin, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void absentKeyShouldNotBeContained() {
+        GtinObjectMap<String> map = new GtinObjectMap<String>();
+        map.put("4006381333931", "value");
+
+        assertFalse(map.containsKey(PackedGtin.pack("73513537")));
+        assertFalse(map.containsKey(Gtin.create("73513537")));
+    }
+
+}
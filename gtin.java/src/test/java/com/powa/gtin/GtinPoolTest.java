@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GtinPoolTest {
+
+    @Test
+    public void internShouldReturnSameInstance() {
+        GtinPool pool = new GtinPool();
+
+        Gtin gtin = pool.intern("4006381333931");
+
+        assertSame(gtin, pool.intern(new StringBuilder("4006381333931")));
+        assertSame(gtin, pool.intern(Gtin.create("4006381333931")));
+        assertSame(gtin, pool.intern(gtin.toLong()));
+        assertEquals("4006381333931", gtin.toString());
+    }
+
+    @Test
+    public void internShouldKeepFormat() {
+        GtinPool pool = new GtinPool();
+
+        Gtin gtin13 = pool.intern("4006381333931");
+        Gtin gtin14 = pool.intern("04006381333931");
+
+        assertNotSame(gtin13, gtin14);
+        assertEquals(GtinFormat.GTIN_13, gtin13.format());
+        assertEquals(GtinFormat.GTIN_14, gtin14.format());
+    }
+
+    @Test
+    public void internOfGtinShouldPoolGivenInstance() {
+        GtinPool pool = new GtinPool();
+        Gtin gtin = Gtin.create("73513537");
+
+        assertSame(gtin, pool.intern(gtin));
+        assertSame(gtin, pool.intern("73513537"));
+    }
+
+    @Test
+    public void fullPoolShouldEvictGtins() {
+        GtinPool pool = new GtinPool(2);
+        List<Gtin> first = new ArrayList<Gtin>();
+        for (int i = 0; i < 100; i++) {
+            first.add(pool.intern(Gtin.withCheckDigit(String.format("%07d", i))));
+        }
+
+        int pooled = 0;
+        for (Gtin gtin : first) {
+            if (pool.intern(gtin.toString()) == gtin) {
+                pooled++;
+            }
+        }
+
+        assertEquals(2, pool.capacity());
+        assertTrue(pooled <= 2);
+    }
+
+    @Test
+    public void clearShouldEmptyPool() {
+        GtinPool pool = new GtinPool();
+        Gtin gtin = pool.intern("73513537");
+
+        pool.clear();
+
+        assertNotSame(gtin, pool.intern("73513537"));
+    }
+
+    @Test
+    public void capacityShouldBeRoundedUpToPowerOfTwo() {
+        assertEquals(2, new GtinPool(1).capacity());
+        assertEquals(1024, new GtinPool(1000).capacity());
+        assertEquals(GtinPool.DEFAULT_CAPACITY, new GtinPool().capacity());
+    }
+
+    @Test
+    public void threadsShouldShareInstances() throws Exception {
+        final GtinPool pool = new GtinPool();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Gtin[]>> futures = new ArrayList<Future<Gtin[]>>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(new Callable<Gtin[]>() {
+                    @Override
+                    public Gtin[] call() {
+                        Gtin[] gtins = new Gtin[500];
+                        for (int i = 0; i < gtins.length; i++) {
+                            gtins[i] = pool.intern(Gtin.withCheckDigit(String.format("%012d", i)));
+                        }
+                        return gtins;
+                    }
+                }));
+            }
+            Gtin[] expected = futures.get(0).get();
+            for (Future<Gtin[]> future : futures) {
+                Gtin[] gtins = future.get();
+                for (int i = 0; i < gtins.length; i++) {
+                    assertEquals(expected[i], gtins[i]);
+                    assertSame(pool.intern(expected[i]), pool.intern(gtins[i]));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void invalidGtinShouldThrowException() {
+        new GtinPool().intern("73513536");
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void invalidPackedGtinShouldThrowException() {
+        new GtinPool().intern(-1L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullGtinShouldThrowException() {
+        new GtinPool().intern((Gtin) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroCapacityShouldThrowException() {
+        new GtinPool(0);
+    }
+
+    @Test
+    public void internOfPackedGtinShouldReturnSameInstance() {
+        GtinPool pool = new GtinPool();
+        long packed = PackedGtin.pack("73513537");
+
+        assertSame(pool.intern(packed), pool.intern(packed));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveCapacityShouldThrowException() {
+        new GtinPool(0);
+    }
+
+}
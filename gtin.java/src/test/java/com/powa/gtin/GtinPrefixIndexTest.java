@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GtinPrefixIndexTest {
+
+    private static final String GERMANY = "GS1 Germany";
+    private static final String RESTRICTED = "restricted";
+
+    private static Map<String, String> prefixes() {
+        Map<String, String> prefixes = new HashMap<String, String>();
+        prefixes.put("0", "GS1 US");
+        prefixes.put("02", RESTRICTED);
+        prefixes.put("2", RESTRICTED);
+        prefixes.put("400", GERMANY);
+        prefixes.put("440", GERMANY);
+        prefixes.put("4006381", "Stabilo");
+        prefixes.put("978", "ISBN");
+        prefixes.put("979", "ISBN");
+        prefixes.put("9790", "ISMN");
+        prefixes.put("99", "coupon");
+        return prefixes;
+    }
+
+    @Test
+    public void classifyShouldFindLongestPrefix() {
+        GtinPrefixIndex<String> index = new GtinPrefixIndex<String>(prefixes());
+
+        assertEquals("Stabilo", index.classify("4006381333931"));
+        assertEquals(GERMANY, index.classify(Gtin.withCheckDigit("400638200000")));
+        assertEquals(GERMANY, index.classify(Gtin.withCheckDigit("440000000000")));
+        assertEquals("ISBN", index.classify("9783161484100"));
+        assertEquals("ISMN", index.classify(Gtin.withCheckDigit("979000000000")));
+        assertEquals("ISBN", index.classify(Gtin.withCheckDigit("979100000000")));
+        assertEquals("coupon", index.classify(Gtin.withCheckDigit("991234567890")));
+        assertEquals(RESTRICTED, index.classify(Gtin.withCheckDigit("212345678901")));
+        assertNull(index.classify(Gtin.withCheckDigit("500000000000")));
+    }
+
+    @Test
+    public void classifyShouldUseGtin13Form() {
+        GtinPrefixIndex<String> index = new GtinPrefixIndex<String>(prefixes());
+
+        assertEquals("GS1 US", index.classify("734092309436"));
+        assertEquals(RESTRICTED, index.classify(Gtin.withCheckDigit("21234567890")));
+        assertEquals("Stabilo", index.classify(Gtin.create("14006381333938")));
+        assertEquals(GERMANY, index.classify(Gtin.withCheckDigit("4001234")));
+        assertEquals(RESTRICTED, index.classify(Gtin.withCheckDigit("0212345")));
+    }
+
+    @Test
+    public void classifyShouldAcceptAllForms() {
+        GtinPrefixIndex<String> index = new GtinPrefixIndex<String>(prefixes());
+        Gtin gtin = Gtin.create("4006381333931");
+
+        assertEquals("Stabilo", index.classify(gtin));
+        assertEquals("Stabilo", index.classify(gtin.toLong()));
+        assertNull(index.classify("4006381333932"));
+        assertNull(index.classify(-1L));
+        assertNull(index.classify(PackedGtin.packValue(100000000L, GtinFormat.GTIN_8)));
+    }
+
+    @Test
+    public void classifyAllShouldClassifyEveryGtin() {
+        GtinPrefixIndex<String> index = new GtinPrefixIndex<String>(prefixes());
+        long[] packed = {PackedGtin.pack("4006381333931"), PackedGtin.pack("9783161484100"), -1L};
+        String[] classes = new String[packed.length];
+
+        index.classifyAll(packed, classes);
+
+        assertArrayEquals(new String[] {"Stabilo", "ISBN", null}, classes);
+        assertEquals(Arrays.asList("Stabilo", "GS1 US"),
+                index.classifyAll(Arrays.asList(Gtin.create("4006381333931"), Gtin.create("734092309436"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortArrayShouldThrowException() {
+        new GtinPrefixIndex<String>(prefixes()).classifyAll(new long[2], new String[1]);
+    }
+
+    @Test
+    public void reloadShouldReplacePrefixes() {
+        GtinPrefixIndex<String> index = new GtinPrefixIndex<String>(prefixes());
+
+        index.reload(Collections.singletonMap("5", "other"));
+
+        assertNull(index.classify("4006381333931"));
+        assertEquals("other", index.classify(Gtin.withCheckDigit("500000000000")));
+    }
+
+    @Test
+    public void readersShouldSeeOldOrNewPrefixesDuringReload() throws Exception {
+        final GtinPrefixIndex<String> index = new GtinPrefixIndex<String>(Collections.singletonMap("4", "old"));
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> unexpected = new AtomicReference<String>();
+        final long packed = PackedGtin.pack("4006381333931");
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running.get()) {
+                    String value = index.classify(packed);
+                    if (!"old".equals(value) && !"new".equals(value)) {
+                        unexpected.set(value);
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        Map<String, String> prefixes = new HashMap<String, String>();
+        for (int i = 0; i < 100; i++) {
+            prefixes.put("40063", i % 2 == 0 ? "new" : "old");
+            prefixes.put("4", "old");
+            index.reload(prefixes);
+        }
+        running.set(false);
+        reader.join();
+
+        assertNull(unexpected.get());
+    }
+
+    @Test
+    public void largeTableShouldClassifyEveryPrefix() {
+        Map<String, Integer> prefixes = new HashMap<String, Integer>();
+        for (int i = 0; i < 10000; i++) {
+            prefixes.put(String.format("%07d", i * 997), i);
+        }
+        GtinPrefixIndex<Integer> index = new GtinPrefixIndex<Integer>(prefixes);
+
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(Integer.valueOf(i), index.classify(Gtin.withCheckDigit(String.format("%07d", i * 997) + "12345")));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonDigitPrefixShouldThrowException() {
+        new GtinPrefixIndex<String>(Collections.singletonMap("40a", GERMANY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void longPrefixShouldThrowException() {
+        new GtinPrefixIndex<String>(Collections.singletonMap("40063813339310", GERMANY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPrefixShouldThrowException() {
+        new GtinPrefixIndex<String>(Collections.singletonMap("", GERMANY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullClassShouldThrowException() {
+        new GtinPrefixIndex<String>(Collections.singletonMap("400", (String) null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullPrefixesShouldThrowException() {
+        new GtinPrefixIndex<String>(null);
+    }
+
+    @Test
+    public void failedReloadShouldKeepPrefixes() {
+        GtinPrefixIndex<String> index = new GtinPrefixIndex<String>(prefixes());
+        try {
+            index.reload(Collections.singletonMap("x", "bad"));
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("x"));
+        }
+        assertEquals("Stabilo", index.classify("4006381333931"));
+    }
+
+}
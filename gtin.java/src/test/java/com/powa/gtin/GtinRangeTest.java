@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GtinRangeTest {
+
+    @Test
+    public void rangeShouldEnumerateValidGtins() {
+        GtinRange range = GtinRange.of(GtinFormat.GTIN_13, 400638133390L, 400638133393L);
+
+        assertArrayEquals(new long[] {
+            PackedGtin.pack("4006381333900"),
+            PackedGtin.pack("4006381333917"),
+            PackedGtin.pack("4006381333924"),
+            PackedGtin.pack("4006381333931"),
+        }, range.stream().toArray());
+        assertEquals(4, range.size());
+    }
+
+    @Test
+    public void checkDigitsShouldMatchCalculatedCheckDigits() {
+        GtinRange range = GtinRange.of(GtinFormat.GTIN_12, 99899990000L, 99900010000L);
+        PrimitiveIterator.OfLong iterator = range.iterator();
+
+        for (long itemNumber = 99899990000L; itemNumber <= 99900010000L; itemNumber++) {
+            assertTrue(iterator.hasNext());
+            assertEquals(Gtin.withCheckDigit(String.format("%011d", itemNumber)),
+                    PackedGtin.toString(iterator.nextLong()));
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void prefixRangeShouldHoldAllItemNumbers() {
+        GtinRange range = GtinRange.forPrefix("4006381", GtinFormat.GTIN_13);
+
+        assertEquals(100000, range.size());
+        assertEquals(Gtin.withCheckDigit("400638100000"), PackedGtin.toString(range.iterator().nextLong()));
+        assertTrue(range.contains(PackedGtin.pack("4006381333931")));
+        assertFalse(range.contains(PackedGtin.pack(Gtin.withCheckDigit("400638233393"))));
+        assertFalse(range.contains(PackedGtin.pack("04006381333931")));
+        assertFalse(range.contains(-1L));
+        assertEquals(GtinFormat.GTIN_13, range.format());
+    }
+
+    @Test
+    public void fullPrefixShouldHoldOneGtin() {
+        GtinRange range = GtinRange.forPrefix("7351353", GtinFormat.GTIN_8);
+
+        assertArrayEquals(new long[] {PackedGtin.pack("73513537")}, range.stream().toArray());
+    }
+
+    @Test
+    public void parallelStreamShouldMatchSequentialStream() {
+        GtinRange range = GtinRange.forPrefix("0123", GtinFormat.GTIN_8);
+
+        assertArrayEquals(range.stream().toArray(), range.stream().parallel().toArray());
+        assertEquals(1000, range.stream().parallel().filter(PackedGtin::isValid).count());
+    }
+
+    @Test
+    public void spliteratorShouldSplitInHalves() {
+        Spliterator.OfLong suffix = GtinRange.of(GtinFormat.GTIN_8, 0, 99).spliterator();
+
+        Spliterator.OfLong prefix = suffix.trySplit();
+
+        assertEquals(50, prefix.estimateSize());
+        assertEquals(50, suffix.estimateSize());
+        assertTrue(prefix.hasCharacteristics(Spliterator.SORTED | Spliterator.SIZED));
+        assertNull(prefix.getComparator());
+        long[] last = new long[1];
+        prefix.forEachRemaining((long packed) -> last[0] = packed);
+        assertEquals("00000499", PackedGtin.toString(last[0]));
+        assertTrue(suffix.tryAdvance((long packed) -> last[0] = packed));
+        assertEquals("00000505", PackedGtin.toString(last[0]));
+    }
+
+    @Test
+    public void singleGtinShouldNotBeSplit() {
+        Spliterator.OfLong spliterator = GtinRange.of(GtinFormat.GTIN_14, 0, 0).spliterator();
+
+        assertNull(spliterator.trySplit());
+        assertTrue(spliterator.tryAdvance((long packed) -> { }));
+        assertFalse(spliterator.tryAdvance((long packed) -> { }));
+    }
+
+    @Test
+    public void rangeShouldDescribeBounds() {
+        assertEquals("GTIN-8 [10, 20]", GtinRange.of(GtinFormat.GTIN_8, 10, 20).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void itemNumberTooLargeForFormatShouldThrowException() {
+        GtinRange.of(GtinFormat.GTIN_8, 0, 10000000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reversedRangeShouldThrowException() {
+        GtinRange.of(GtinFormat.GTIN_8, 2, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullFormatShouldThrowException() {
+        GtinRange.of(null, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonDigitPrefixShouldThrowException() {
+        GtinRange.forPrefix("40a", GtinFormat.GTIN_13);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void completePrefixShouldThrowException() {
+        GtinRange.forPrefix("73513537", GtinFormat.GTIN_8);
+    }
+
+    @Test
+    public void rangeShouldNotContainGtinsOutsideBounds() {
+        GtinRange range = GtinRange.forPrefix("4006381", GtinFormat.GTIN_13);
+
+        assertFalse(range.contains(PackedGtin.pack(Gtin.withCheckDigit("400638099999"))));
+        assertFalse(range.contains(PackedGtin.pack(Gtin.withCheckDigit("400638200000"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeItemNumberShouldThrowException() {
+        GtinRange.of(GtinFormat.GTIN_8, -1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullPrefixShouldThrowException() {
+        GtinRange.forPrefix(null, GtinFormat.GTIN_13);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefixWithoutFormatShouldThrowException() {
+        GtinRange.forPrefix("4006381", null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefixBelowDigitsShouldThrowException() {
+        GtinRange.forPrefix("40/", GtinFormat.GTIN_13);
+    }
+
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GtinRepairTest {
+
+    /**
+     * Builds every GTIN with one digit replaced or two adjacent digits swapped and keeps the
+     * valid ones.
+     */
+    private static long[] bruteForce(final String gtin) {
+        SortedSet<Long> candidates = new TreeSet<Long>();
+        for (int i = 0; i < gtin.length(); i++) {
+            for (char digit = '0'; digit <= '9'; digit++) {
+                char[] chars = gtin.toCharArray();
+                chars[i] = digit;
+                addIfValid(candidates, gtin, new String(chars));
+            }
+            if (i + 1 < gtin.length()) {
+                char[] chars = gtin.toCharArray();
+                chars[i] = gtin.charAt(i + 1);
+                chars[i + 1] = gtin.charAt(i);
+                addIfValid(candidates, gtin, new String(chars));
+            }
+        }
+        long[] packed = new long[candidates.size()];
+        int i = 0;
+        for (long candidate : candidates) {
+            packed[i++] = candidate;
+        }
+        return packed;
+    }
+
+    private static void addIfValid(final SortedSet<Long> candidates, final String gtin, final String candidate) {
+        if (!candidate.equals(gtin) && Gtin.isValid(candidate)) {
+            candidates.add(PackedGtin.pack(candidate));
+        }
+    }
+
+    @Test
+    public void repairShouldFindSameCandidatesAsBruteForce() {
+        Random random = new Random(42);
+        for (GtinFormat format : GtinFormat.values()) {
+            for (int n = 0; n < 1000; n++) {
+                char[] chars = new char[format.length()];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = (char) ('0' + random.nextInt(10));
+                }
+                String gtin = new String(chars);
+                if (!Gtin.isValid(gtin)) {
+                    assertArrayEquals(gtin, bruteForce(gtin), GtinRepair.repair(gtin));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void repairShouldFindWrongDigit() {
+        long[] candidates = GtinRepair.repair("4006391333931");
+
+        assertEquals(13, candidates.length);
+        assertTrue(Arrays.binarySearch(candidates, PackedGtin.pack("4006381333931")) >= 0);
+    }
+
+    @Test
+    public void repairShouldFindSwappedDigits() {
+        long[] candidates = GtinRepair.repair("4003681333931");
+
+        assertTrue(Arrays.binarySearch(candidates, PackedGtin.pack("4006381333931")) >= 0);
+    }
+
+    @Test
+    public void repairShouldFillUnreadableDigit() {
+        assertEquals(Collections.singletonList(Gtin.create("4006381333931")), GtinRepair.candidates("40063?1333931"));
+        assertEquals(Collections.singletonList(Gtin.create("4006381333931")), GtinRepair.candidates("400638133393 "));
+        assertEquals(Collections.singletonList(Gtin.create("00000000")), GtinRepair.candidates("0000000O"));
+    }
+
+    @Test
+    public void validGtinShouldBeOnlyCandidate() {
+        assertEquals(Collections.singletonList(Gtin.create("734092309436")), GtinRepair.candidates("734092309436"));
+    }
+
+    @Test
+    public void unrepairableInputShouldHaveNoCandidates() {
+        assertEquals(0, GtinRepair.repair("40063813339").length);
+        assertEquals(0, GtinRepair.repair("40063?13339?1").length);
+        assertEquals(0, GtinRepair.repair("").length);
+    }
+
+    @Test
+    public void repairShouldFillGivenArray() {
+        long[] candidates = new long[GtinRepair.MAX_CANDIDATES];
+
+        int count = GtinRepair.repair("40063813339310", candidates);
+
+        assertArrayEquals(bruteForce("40063813339310"), Arrays.copyOf(candidates, count));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullGtinShouldThrowException() {
+        GtinRepair.repair(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortArrayShouldThrowException() {
+        GtinRepair.repair("4006381333931", new long[GtinRepair.MAX_CANDIDATES - 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullArrayShouldThrowException() {
+        GtinRepair.repair("4006381333931", null);
+    }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class GtinScannerTest {
+
+    /**
+     * Records the GTINs found as strings of offset and GTIN.
+     */
+    private static final class Recorder implements GtinScanner.Listener {
+
+        private final List<String> found = new ArrayList<String>();
+
+        @Override
+        public void found(final int offset, final GtinFormat format, final long packed) {
+            assertEquals(format, PackedGtin.format(packed));
+            found.add(offset + ":" + PackedGtin.toString(packed));
+        }
+
+    }
+
+    /**
+     * Validates every window of every GTIN length ending at every position.
+     */
+    private static List<String> bruteForce(final String text) {
+        List<String> found = new ArrayList<String>();
+        for (int end = 1; end <= text.length(); end++) {
+            for (GtinFormat format : GtinFormat.values()) {
+                int start = end - format.length();
+                if (start >= 0 && Gtin.isValid(text.substring(start, end))) {
+                    found.add(start + ":" + text.substring(start, end));
+                }
+            }
+        }
+        return found;
+    }
+
+    private static List<String> scan(final String text) {
+        Recorder recorder = new Recorder();
+        int count = GtinScanner.scan(text, recorder);
+        assertEquals(recorder.found.size(), count);
+        return recorder.found;
+    }
+
+    @Test
+    public void scanShouldFindGtinsInText() {
+        assertEquals(Arrays.asList("4:4006381333931", "31:73513537"),
+                scan("EAN 4006381333931, price 12.99 73513537."));
+    }
+
+    @Test
+    public void scanShouldFindOverlappingGtins() {
+        List<String> found = scan("04006381333931");
+
+        assertEquals(bruteForce("04006381333931"), found);
+        assertEquals(Arrays.asList("1:4006381333931", "0:04006381333931"), found.subList(found.size() - 2, found.size()));
+    }
+
+    @Test
+    public void scanShouldMatchBruteForce() {
+        Random random = new Random(42);
+        char[] chars = new char[100000];
+        for (int i = 0; i < chars.length; i++) {
+            // Mostly digits, with runs broken by letters, spaces and characters next to '0' and '9'
+            chars[i] = random.nextInt(20) == 0 ? " a/:".charAt(random.nextInt(4)) : (char) ('0' + random.nextInt(10));
+        }
+        String text = new String(chars);
+
+        assertEquals(bruteForce(text), scan(text));
+    }
+
+    @Test
+    public void arraysShouldReportOffsetsFromStartOfArray() {
+        String text = "x4006381333931 73513537";
+        Recorder chars = new Recorder();
+        Recorder bytes = new Recorder();
+
+        GtinScanner.scan(text.toCharArray(), 1, text.length() - 1, chars);
+        GtinScanner.scan(text.getBytes(StandardCharsets.US_ASCII), 1, 13, bytes);
+
+        assertEquals(Arrays.asList("1:4006381333931", "15:73513537"), chars.found);
+        assertEquals(Collections.singletonList("1:4006381333931"), bytes.found);
+    }
+
+    @Test
+    public void textWithoutGtinsShouldFindNothing() {
+        assertEquals(Collections.emptyList(), scan(""));
+        assertEquals(Collections.emptyList(), scan("4006381 333931"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullTextShouldThrowException() {
+        GtinScanner.scan((CharSequence) null, new Recorder());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullArrayShouldThrowException() {
+        GtinScanner.scan((byte[]) null, 0, 0, new Recorder());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullListenerShouldThrowException() {
+        GtinScanner.scan("4006381333931", null);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rangeOutOfBoundsShouldThrowException() {
+        GtinScanner.scan(new char[8], 4, 8, new Recorder());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void negativeOffsetShouldThrowException() {
+        GtinScanner.scan(new char[8], -1, 4, new Recorder());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void negativeLengthShouldThrowException() {
+        GtinScanner.scan(new char[8], 4, -1, new Recorder());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullCharsShouldThrowException() {
+        GtinScanner.scan((char[]) null, 0, 0, new Recorder());
+    }
+
+}
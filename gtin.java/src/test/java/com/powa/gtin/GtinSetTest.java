@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GtinSetTest {
+
+    @Test
+    public void newSetShouldBeEmpty() {
+        GtinSet set = new GtinSet();
+
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        assertFalse(set.contains("73513537"));
+    }
+
+    @Test
+    public void addedGtinShouldBeFoundByEveryKeyType() {
+        GtinSet set = new GtinSet();
+        Gtin gtin = Gtin.create("4006381333931");
+
+        assertTrue(set.add(gtin));
+
+        assertTrue(set.contains(gtin));
+        assertTrue(set.contains("4006381333931"));
+        assertTrue(set.contains(new StringBuilder("4006381333931")));
+        assertTrue(set.contains(gtin.toLong()));
+        assertFalse(set.isEmpty());
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void addingGtinTwiceShouldNotChangeSet() {
+        GtinSet set = new GtinSet();
+
+        assertTrue(set.add("4006381333931"));
+        assertFalse(set.add(Gtin.create("4006381333931")));
+        assertFalse(set.add(PackedGtin.pack("4006381333931")));
+
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void gtinsWithDifferentFormatsShouldBeDifferent() {
+        GtinSet set = new GtinSet();
+
+        set.add("012345678905");
+
+        assertFalse(set.contains("0012345678905"));
+    }
+
+    @Test
+    public void invalidGtinShouldNotBeFound() {
+        GtinSet set = new GtinSet();
+        set.add("4006381333931");
+
+        assertFalse(set.contains("4006381333932"));
+        assertFalse(set.contains("abcdefgh"));
+        assertFalse(set.contains(-1L));
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void addInvalidGtinShouldThrowException() {
+        new GtinSet().add("4006381333932");
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void addInvalidPackedGtinShouldThrowException() {
+        new GtinSet().add(-1L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeExpectedSizeShouldThrowException() {
+        new GtinSet(-1);
+    }
+
+    @Test
+    public void removedGtinShouldNotBeFound() {
+        GtinSet set = new GtinSet();
+        set.add("4006381333931");
+        set.add("73513537");
+
+        assertTrue(set.remove("4006381333931"));
+        assertFalse(set.remove(Gtin.create("4006381333931")));
+        assertFalse(set.remove("abcdefgh"));
+
+        assertFalse(set.contains("4006381333931"));
+        assertTrue(set.contains("73513537"));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void clearedSetShouldBeEmpty() {
+        GtinSet set = new GtinSet();
+        set.add("4006381333931");
+
+        set.clear();
+
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains("4006381333931"));
+    }
+
+    @Test
+    public void keysShouldReturnAllPackedGtins() {
+        GtinSet set = new GtinSet();
+        set.add("73513537");
+        set.add("4006381333931");
+
+        long[] keys = set.keys();
+        Arrays.sort(keys);
+
+        assertArrayEquals(new long[] {PackedGtin.pack("73513537"), PackedGtin.pack("4006381333931")}, keys);
+    }
+
+    @Test
+    public void setShouldBehaveLikeHashSet() {
+        Random random = new Random(42);
+        GtinSet set = new GtinSet(16);
+        Set<Gtin> expected = new HashSet<Gtin>();
+
+        for (int i = 0; i < 100000; i++) {
+            // Small range of GTIN-8s so adds and removes collide often
+            Gtin gtin = Gtin.createWithCheckDigit(String.format("%07d", random.nextInt(5000)));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(gtin), set.remove(gtin));
+            } else {
+                assertEquals(expected.add(gtin), set.add(gtin));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (Gtin gtin : expected) {
+            assertTrue(set.contains(gtin));
+        }
+        for (int i = 0; i < 5000; i++) {
+            Gtin gtin = Gtin.createWithCheckDigit(String.format("%07d", i));
+            assertEquals(expected.contains(gtin), set.contains(gtin));
+        }
+    }
+
+    @Test
+    public void addingPackedGtinTwiceShouldNotChangeSet() {
+        GtinSet set = new GtinSet();
+
+        assertTrue(set.add(PackedGtin.pack("73513537")));
+        assertFalse(set.add(PackedGtin.pack("73513537")));
+        assertFalse(set.add("73513537"));
+        assertEquals(1, set.size());
+    }
+
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class GtinSortTest {
+
+    @Test
+    public void sortShouldMatchArraysSort() {
+        Random random = new Random(42);
+        for (int count : new int[] {0, 1, 2, 100, 257, 5000, 100000}) {
+            long[] packed = TestGtins.random(random, count);
+            long[] expected = packed.clone();
+            Arrays.sort(expected);
+
+            GtinSort.sort(packed);
+
+            assertArrayEquals(expected, packed);
+        }
+    }
+
+    @Test
+    public void parallelSortShouldMatchArraysSort() {
+        Random random = new Random(42);
+        for (int count : new int[] {1000, 30000, 100001}) {
+            long[] packed = TestGtins.random(random, count);
+            long[] expected = packed.clone();
+            Arrays.sort(expected);
+            long[] parallel = packed.clone();
+
+            GtinSort.sort(parallel, null, 0, count, 0);
+            GtinSort.parallelSort(packed);
+
+            assertArrayEquals(expected, parallel);
+            assertArrayEquals(expected, packed);
+        }
+    }
+
+    @Test
+    public void sortShouldOnlySortRange() {
+        long[] packed = TestGtins.random(new Random(42), 10000);
+        long[] expected = packed.clone();
+        Arrays.sort(expected, 1000, 9000);
+
+        GtinSort.sort(packed, 1000, 9000);
+        assertArrayEquals(expected, packed);
+
+        long[] parallel = TestGtins.random(new Random(42), 10000);
+        GtinSort.parallelSort(parallel, 1000, 9000);
+        assertArrayEquals(expected, parallel);
+    }
+
+    @Test
+    public void sortShouldHandleKeysSharingDigits() {
+        long[] packed = GtinRange.forPrefix("4006381", GtinFormat.GTIN_13).stream().limit(5000).toArray();
+        long[] reversed = new long[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            reversed[i] = packed[packed.length - 1 - i];
+        }
+        long[] equal = new long[1000];
+        Arrays.fill(equal, PackedGtin.pack("4006381333931"));
+
+        GtinSort.sort(reversed);
+        GtinSort.sort(equal);
+
+        assertArrayEquals(packed, reversed);
+        assertEquals(PackedGtin.pack("4006381333931"), equal[999]);
+    }
+
+    @Test
+    public void sortShouldHandleAnyLongs() {
+        Random random = new Random(42);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong();
+        }
+        values[0] = Long.MIN_VALUE;
+        values[1] = Long.MAX_VALUE;
+        long[] expected = values.clone();
+        Arrays.sort(expected);
+
+        GtinSort.sort(values, null, 0, values.length, 0);
+
+        assertArrayEquals(expected, values);
+    }
+
+    @Test
+    public void stringsShouldBeSortedNumericallyAcrossFormats() {
+        String[] gtins = {"4006381333931", "73513537", "00012345678905", "012345678905", "0012345678905",
+            "96385074", };
+
+        GtinSort.sort(gtins);
+
+        assertArrayEquals(new String[] {"73513537", "96385074", "012345678905", "0012345678905",
+            "00012345678905", "4006381333931", }, gtins);
+    }
+
+    @Test
+    public void objectSortsShouldBeStable() {
+        Random random = new Random(42);
+        long[] packed = TestGtins.random(random, 20000);
+        for (int i = 0; i < packed.length; i += 2) {
+            packed[i] = packed[random.nextInt(100)];
+        }
+        Gtin[] gtins = new Gtin[packed.length];
+        String[] strings = new String[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            gtins[i] = Gtin.fromLong(packed[i]);
+            strings[i] = gtins[i].toString();
+        }
+        Gtin[] expected = gtins.clone();
+        Arrays.sort(expected);
+        Gtin[] sequential = gtins.clone();
+        Gtin[] parallel = gtins.clone();
+        String[] parallelStrings = strings.clone();
+
+        GtinSort.sort(sequential);
+        GtinSort.sort(parallel, 0);
+        GtinSort.sort(strings, Integer.MAX_VALUE);
+        GtinSort.sort(parallelStrings, 0);
+
+        for (int i = 0; i < expected.length; i++) {
+            // Arrays.sort is stable, so equal GTINs must be the same instances in the same order
+            assertSame(expected[i], sequential[i]);
+            assertSame(expected[i], parallel[i]);
+            assertEquals(expected[i].toString(), strings[i]);
+            assertSame(strings[i], parallelStrings[i]);
+        }
+    }
+
+    @Test
+    public void parallelObjectSortsShouldSortShortArrays() {
+        Gtin[] gtins = {Gtin.create("4006381333931"), Gtin.create("73513537")};
+        String[] strings = {"4006381333931", "73513537"};
+
+        GtinSort.parallelSort(gtins);
+        GtinSort.parallelSort(strings);
+
+        assertEquals("73513537", gtins[0].toString());
+        assertEquals("73513537", strings[0]);
+    }
+
+    @Test
+    public void invalidStringShouldLeaveArrayUnchanged() {
+        String[] gtins = {"4006381333931", "73513537", "4006381333932"};
+        try {
+            GtinSort.sort(gtins);
+            fail();
+        } catch (final GtinFormatException e) {
+            assertEquals("4006381333932", e.getInput());
+        }
+        assertArrayEquals(new String[] {"4006381333931", "73513537", "4006381333932"}, gtins);
+    }
+
+    @Test
+    public void dedupeShouldKeepDistinctGtins() {
+        long[] packed = {1, 1, 2, 3, 3, 3, 4};
+
+        assertEquals(4, GtinSort.dedupe(packed));
+        assertArrayEquals(new long[] {1, 2, 3, 4}, Arrays.copyOf(packed, 4));
+        assertEquals(0, GtinSort.dedupe(new long[0]));
+    }
+
+    @Test
+    public void dedupeShouldOnlyChangeRange() {
+        long[] packed = {5, 1, 1, 2, 2, 0};
+
+        assertEquals(3, GtinSort.dedupe(packed, 1, 5));
+        assertEquals(5, packed[0]);
+        assertArrayEquals(new long[] {1, 2}, Arrays.copyOfRange(packed, 1, 3));
+        assertEquals(0, packed[5]);
+    }
+
+    @Test
+    public void dedupeShouldClearRepeatedObjects() {
+        String[] gtins = {"73513537", "4006381333931", "73513537", "4006381333931"};
+        GtinSort.sort(gtins);
+
+        assertEquals(2, GtinSort.dedupe(gtins));
+        assertArrayEquals(new String[] {"73513537", "4006381333931"}, Arrays.copyOf(gtins, 2));
+        assertNull(gtins[2]);
+        assertNull(gtins[3]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reversedRangeShouldBeRejected() {
+        GtinSort.sort(new long[10], 5, 4);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void negativeRangeShouldBeRejected() {
+        GtinSort.dedupe(new long[10], -1, 4);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void rangeBeyondArrayShouldBeRejected() {
+        GtinSort.parallelSort(new long[10], 0, 11);
+    }
+
+}
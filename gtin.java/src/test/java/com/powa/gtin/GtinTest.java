@@ -19,13 +19,24 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class GtinTest {
 
@@ -104,6 +115,118 @@ public class GtinTest {
         Gtin.isValid(null);
     }
 
+    @Test
+    public void gtin13StringBuilderShouldBeValid() {
+        StringBuilder gtin13 = new StringBuilder("4006381333931");
+
+        assertTrue(Gtin.isValid(gtin13));
+        assertTrue(Gtin.isValid(gtin13, GtinFormat.GTIN_13));
+        assertFalse(Gtin.isValid(gtin13, GtinFormat.GTIN_14));
+    }
+
+    @Test
+    public void gtin13CharBufferWithInvalidCheckDigitShouldNotBeValid() {
+        CharBuffer badGtin13 = CharBuffer.wrap("4006381333932");
+
+        assertFalse(Gtin.isValid(badGtin13));
+    }
+
+    @Test
+    public void stringBuilderOf8LettersShouldNotBeValid() {
+        StringBuilder letters8 = new StringBuilder("abcdefgh");
+
+        assertFalse(Gtin.isValid(letters8));
+    }
+
+    @Test
+    public void stringOfDigitsAndCharactersAroundDigitsShouldNotBeValid() {
+        // '/' and ':' are the characters either side of the digits
+        assertFalse(Gtin.isValid("7351353/"));
+        assertFalse(Gtin.isValid("7351353:"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validateNullCharSequenceShouldThrowException() {
+        Gtin.isValid((CharSequence) null);
+    }
+
+    @Test
+    public void listsOfGtinsShouldBeValidatedAndCompleted() {
+        assertEquals(BitSet.valueOf(new long[] {0b101}),
+                Gtin.validateAll(Arrays.asList("73513537", "73513538", "4006381333931"), null));
+        assertEquals(BitSet.valueOf(new long[] {0b100}),
+                Gtin.validateAll(Arrays.asList("73513537", "73513538", "4006381333931"), GtinFormat.GTIN_13));
+        assertArrayEquals(new String[] {"73513537", "4006381333931"},
+                Gtin.withCheckDigitAll(Arrays.asList("7351353", "400638133393")));
+    }
+
+    @Test
+    public void gtinBytesShouldBeValid() {
+        byte[] bytes = "gtin=4006381333931,10614141000415;73513537".getBytes(StandardCharsets.US_ASCII);
+
+        assertTrue(Gtin.isValid(bytes, 5, 13));
+        assertTrue(Gtin.isValid(bytes, 19, 14));
+        assertTrue(Gtin.isValid(bytes, 34, 8));
+        assertFalse(Gtin.isValid(bytes, 5, 14));
+        assertFalse(Gtin.isValid(bytes, 5, 10));
+    }
+
+    @Test
+    public void gtinBytesWithInvalidCheckDigitOrLettersShouldNotBeValid() {
+        assertFalse(Gtin.isValid("4006381333932".getBytes(StandardCharsets.US_ASCII), 0, 13));
+        assertFalse(Gtin.isValid("400638133393a".getBytes(StandardCharsets.US_ASCII), 0, 13));
+        assertFalse(Gtin.isValid("4006381/33931".getBytes(StandardCharsets.US_ASCII), 0, 13));
+    }
+
+    @Test
+    public void gtinInBuffersShouldBeValid() {
+        byte[] bytes = "gtin=4006381333931,10614141000415;73513537".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer heap = ByteBuffer.wrap(bytes);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        direct.put(bytes).flip();
+
+        for (ByteBuffer buffer : new ByteBuffer[] {heap, direct}) {
+            assertTrue(Gtin.isValid(buffer, 5, 13));
+            assertTrue(Gtin.isValid(buffer, 19, 14));
+            assertTrue(Gtin.isValid(buffer, 34, 8));
+            assertFalse(Gtin.isValid(buffer, 5, 14));
+            assertFalse(Gtin.isValid(buffer, 4, 14));
+            assertEquals(0, buffer.position());
+        }
+    }
+
+    @Test
+    public void gtinInBufferWithInvalidCheckDigitOrLettersShouldNotBeValid() {
+        assertFalse(Gtin.isValid(ByteBuffer.wrap("4006381333932".getBytes(StandardCharsets.US_ASCII)), 0, 13));
+        assertFalse(Gtin.isValid(ByteBuffer.wrap("400638133393a".getBytes(StandardCharsets.US_ASCII)), 0, 13));
+        assertFalse(Gtin.isValid(ByteBuffer.wrap("4006381:33931".getBytes(StandardCharsets.US_ASCII)), 0, 13));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validateNullBytesShouldThrowException() {
+        Gtin.isValid((byte[]) null, 0, 8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validateNullBufferShouldThrowException() {
+        Gtin.isValid((ByteBuffer) null, 0, 8);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void validateBytesPastEndShouldThrowException() {
+        Gtin.isValid("73513537".getBytes(StandardCharsets.US_ASCII), 1, 8);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void validateBytesAtNegativeOffsetShouldThrowException() {
+        Gtin.isValid("73513537".getBytes(StandardCharsets.US_ASCII), -1, 8);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void validateBytesWithNegativeLengthShouldThrowException() {
+        Gtin.isValid(ByteBuffer.allocate(8), 0, -1);
+    }
+
     @Test
     public void gtin8ShouldBeValid8() {
         String gtin8 = "03485736";
@@ -265,6 +388,22 @@ public class GtinTest {
         assertTrue(Gtin.matchesFormat(digits14, GtinFormat.GTIN_14));
     }
 
+    @Test
+    public void stringBuilderOf14DigitsShouldMatchFormat() {
+        StringBuilder digits14 = new StringBuilder("01234567890123");
+
+        assertTrue(Gtin.matchesFormat(digits14));
+        assertTrue(Gtin.matchesFormat(digits14, GtinFormat.GTIN_14));
+        assertFalse(Gtin.matchesFormat(digits14, GtinFormat.GTIN_13));
+    }
+
+    @Test
+    public void stringBuilderOf14LettersAndDigitsShouldNotMatchFormat() {
+        StringBuilder lettersAndDigits14 = new StringBuilder("0a1b2c3d4e5f6g");
+
+        assertFalse(Gtin.matchesFormat(lettersAndDigits14));
+    }
+
     @Test
     public void stringOf8DigitsShouldMatchFormat8() {
         String digits8 = "01234567";
@@ -393,9 +532,30 @@ public class GtinTest {
         Gtin.create(badGtin14);
     }
 
-    @Test(expected = IllegalArgumentException.class)
+    @Test
+    public void gtinBytesShouldParseToGtin() {
+        byte[] bytes = "[0234248273487]".getBytes(StandardCharsets.US_ASCII);
+
+        Gtin gtin = Gtin.create(bytes, 1, 13);
+
+        assertEquals(GtinFormat.GTIN_13, gtin.format());
+        assertEquals("0234248273487", gtin.toString());
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void gtinBytesWithInvalidCheckDigitShouldNotParseToGtin() {
+        Gtin.create("4006381333932".getBytes(StandardCharsets.US_ASCII), 0, 13);
+    }
+
+    @Test
     public void createNullShouldThrowException() {
-        Gtin.create(null);
+        try {
+            Gtin.create(null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertFalse(e instanceof GtinFormatException);
+            assertEquals("gtin is null", e.getMessage());
+        }
     }
 
     @Test
@@ -500,6 +660,45 @@ public class GtinTest {
         assertEquals(5, checkDigit);
     }
 
+    @Test
+    public void gtin13StringBuilderCalculatedCheckDigitShouldBeCorrect() {
+        StringBuilder partialGtin13 = new StringBuilder("295248972349");
+
+        int checkDigit = Gtin.calculateCheckDigit(partialGtin13);
+
+        assertEquals(0, checkDigit);
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void stringOf8DigitsCheckDigitShouldThrowException() {
+        String digits8 = "73513537";
+
+        Gtin.calculateCheckDigit(digits8);
+    }
+
+    @Test
+    public void gtinBytesCalculatedCheckDigitShouldBeCorrect() {
+        byte[] bytes = "1061414100041-295248972349".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(5, Gtin.calculateCheckDigit(bytes, 0, 13));
+        assertEquals(0, Gtin.calculateCheckDigit(bytes, 14, 12));
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void bytesOfLettersCheckDigitShouldThrowException() {
+        Gtin.calculateCheckDigit("abcdefg".getBytes(StandardCharsets.US_ASCII), 0, 7);
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void bytesOfWrongLengthCheckDigitShouldThrowException() {
+        Gtin.calculateCheckDigit("73513537".getBytes(StandardCharsets.US_ASCII), 0, 8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void calculateCheckDigitNullBytesShouldThrowException() {
+        Gtin.calculateCheckDigit((byte[]) null, 0, 7);
+    }
+
     @Test(expected = GtinFormatException.class)
     public void stringOfLettersCheckDigitShouldThrowException() {
         String letters7 = "abcdefg";
@@ -594,6 +793,21 @@ public class GtinTest {
         assertEquals(5, gtin.digitAt(13));
     }
 
+    @Test
+    public void gtinFromLongShouldBeEqual() {
+        Gtin gtin = Gtin.create("0234248273487");
+
+        long packed = gtin.toLong();
+
+        assertEquals(gtin, Gtin.fromLong(packed));
+        assertEquals(GtinFormat.GTIN_13, Gtin.fromLong(packed).format());
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void invalidLongShouldNotCreateGtin() {
+        Gtin.fromLong(-1L);
+    }
+
     @Test
     public void gtinAndDeserializedGtinShouldBeEqual() throws Exception {
         String gtin14 = "10614141000415";
@@ -614,4 +828,120 @@ public class GtinTest {
         assertEquals(gtin.length(), deserializedGtin.length());
     }
 
+    @Test(expected = InvalidObjectException.class)
+    public void deserializedInvalidPackedGtinShouldThrowException() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(buffer);
+        oos.writeObject(Gtin.create("73513537"));
+        oos.close();
+        byte[] bytes = buffer.toByteArray();
+        // The packed GTIN is the last field written, add one to its value
+        bytes[bytes.length - 1] += 4;
+
+        new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+    }
+
+    @Test
+    public void gtin12ShouldBePaddedToGtin14() {
+        Gtin gtin14 = Gtin.create("012345678905").toGtin14();
+
+        assertEquals("00012345678905", gtin14.toString());
+        assertEquals(GtinFormat.GTIN_14, gtin14.format());
+    }
+
+    @Test
+    public void gtinsOfSameItemShouldHaveEqualGtin14() {
+        assertEquals(Gtin.create("012345678905").toGtin14(), Gtin.create("0012345678905").toGtin14());
+        assertEquals(Gtin.create("73513537").toGtin14(), Gtin.create("000073513537").toGtin14());
+    }
+
+    @Test
+    public void gtin14ShouldBeItsOwnGtin14() {
+        Gtin gtin = Gtin.create("10614141000415");
+
+        assertSame(gtin, gtin.toGtin14());
+    }
+
+    @Test
+    public void gtinsShouldBeOrderedByNumericValue() {
+        Gtin[] gtins = {
+            Gtin.create("10614141000415"),
+            Gtin.create("0012345678905"),
+            Gtin.create("73513537"),
+            Gtin.create("012345678905"),
+            Gtin.create("4006381333931"),
+        };
+
+        Arrays.sort(gtins);
+
+        assertArrayEquals(new Gtin[] {
+            Gtin.create("73513537"),
+            Gtin.create("012345678905"),
+            Gtin.create("0012345678905"),
+            Gtin.create("4006381333931"),
+            Gtin.create("10614141000415"),
+        }, gtins);
+    }
+
+    @Test
+    public void compareToShouldBeConsistentWithEquals() {
+        Gtin gtin12 = Gtin.create("012345678905");
+        Gtin gtin13 = Gtin.create("0012345678905");
+
+        assertEquals(0, gtin12.compareTo(Gtin.create("012345678905")));
+        assertTrue(gtin12.compareTo(gtin13) < 0);
+        assertTrue(gtin13.compareTo(gtin12) > 0);
+    }
+
+    @Test
+    public void validGtinShouldBeCreatedWithoutException() {
+        Gtin gtin = Gtin.tryCreate(new StringBuilder("4006381333931"));
+
+        assertEquals("4006381333931", gtin.toString());
+    }
+
+    @Test
+    public void invalidGtinShouldNotBeCreated() {
+        assertNull(Gtin.tryCreate("4006381333932"));
+        assertNull(Gtin.tryCreate("400638133393a"));
+        assertNull(Gtin.tryCreate("400638133393"));
+        assertNull(Gtin.tryCreate(null));
+    }
+
+    @Test
+    public void checkShouldReturnReasonForInvalidGtin() {
+        assertEquals(GtinCheck.VALID, Gtin.check("4006381333931"));
+        assertEquals(GtinCheck.NULL, Gtin.check(null));
+        assertEquals(GtinCheck.BAD_LENGTH, Gtin.check("40063813339"));
+        assertEquals(GtinCheck.BAD_LENGTH, Gtin.check(""));
+        assertEquals(GtinCheck.NON_DIGIT, Gtin.check("4006381333a31"));
+        assertEquals(GtinCheck.NON_DIGIT, Gtin.check("400638133393a"));
+        assertEquals(GtinCheck.BAD_CHECKSUM, Gtin.check("4006381333932"));
+    }
+
+    @Test
+    public void checkShouldMatchIsValid() {
+        for (String gtin : new String[] {"73513537", "73513536", "012345678905", "10614141000415", "1234"}) {
+            assertEquals(Gtin.isValid(gtin), Gtin.check(gtin).isValid());
+        }
+    }
+
+    @Test
+    public void bytesOfOtherLengthShouldNotBeValid() {
+        byte[] bytes = "4006381333931".getBytes(StandardCharsets.US_ASCII);
+
+        assertFalse(Gtin.isValid(ByteBuffer.wrap(bytes), 0, 10));
+        try {
+            Gtin.create(bytes, 0, 10);
+            fail();
+        } catch (final GtinFormatException e) {
+            assertEquals(GtinCheck.BAD_LENGTH, e.getReason());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createNullBytesShouldThrowException() {
+        Gtin.create((byte[]) null, 0, 8);
+    }
+
 }
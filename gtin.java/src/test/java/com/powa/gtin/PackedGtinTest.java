@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PackedGtinTest {
+
+    @Test
+    public void packedGtinShouldKeepFormatAndLeadingZeros() {
+        long packed = PackedGtin.pack("0234248273487");
+
+        assertEquals(GtinFormat.GTIN_13, PackedGtin.format(packed));
+        assertEquals(13, PackedGtin.length(packed));
+        assertEquals(234248273487L, PackedGtin.value(packed));
+        assertEquals("0234248273487", PackedGtin.toString(packed));
+    }
+
+    @Test
+    public void packedGtinsOfEveryFormatShouldRoundTrip() {
+        String[] gtins = {"00000000", "73513537", "734092309436", "4006381333931", "99999999999997"};
+
+        for (String gtin : gtins) {
+            long packed = PackedGtin.pack(gtin);
+
+            assertTrue(packed >= 0);
+            assertTrue(PackedGtin.isValid(packed));
+            assertEquals(gtin, PackedGtin.toString(packed));
+        }
+    }
+
+    @Test
+    public void packedGtinsShouldSortNumerically() {
+        long gtin12 = PackedGtin.pack("012345678905");
+        long gtin13 = PackedGtin.pack("0012345678905");
+        long gtin14 = PackedGtin.pack("10614141000415");
+        long gtin8 = PackedGtin.pack("73513537");
+
+        assertTrue(gtin8 < gtin12);
+        assertTrue(gtin12 < gtin13);
+        assertTrue(gtin13 < gtin14);
+        assertEquals(PackedGtin.value(gtin12), PackedGtin.value(gtin13));
+    }
+
+    @Test(expected = GtinFormatException.class)
+    public void packInvalidGtinShouldThrowException() {
+        PackedGtin.pack("4006381333932");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void packNullShouldThrowException() {
+        PackedGtin.pack(null);
+    }
+
+    @Test
+    public void negativeValueShouldNotBeValid() {
+        assertFalse(PackedGtin.isValid(-1L));
+        assertFalse(PackedGtin.isValid(Long.MIN_VALUE | PackedGtin.pack("73513537")));
+    }
+
+    @Test
+    public void valueTooLargeForFormatShouldNotBeValid() {
+        long packed14 = PackedGtin.pack("10614141000415");
+
+        // Same value with the format bits of GTIN-8
+        assertFalse(PackedGtin.isValid(packed14 & ~3L));
+    }
+
+    @Test
+    public void valueWithBadCheckDigitShouldNotBeValid() {
+        long packed = PackedGtin.pack("4006381333931");
+
+        assertFalse(PackedGtin.isValid(packed + 4));
+    }
+
+    @Test
+    public void checkDigitShouldBeCorrect() {
+        assertEquals(5, PackedGtin.checkDigit(PackedGtin.pack("10614141000415")));
+        assertEquals(0, PackedGtin.checkDigit(PackedGtin.pack("2952489723490")));
+    }
+
+    @Test
+    public void digitAtShouldBeCorrect() {
+        long packed = PackedGtin.pack("10614141000415");
+
+        assertEquals(1, PackedGtin.digitAt(packed, 0));
+        assertEquals(0, PackedGtin.digitAt(packed, 1));
+        assertEquals(6, PackedGtin.digitAt(packed, 2));
+        assertEquals(1, PackedGtin.digitAt(packed, 12));
+        assertEquals(5, PackedGtin.digitAt(packed, 13));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void digitAtNegativePositionShouldThrowException() {
+        PackedGtin.digitAt(PackedGtin.pack("73513537"), -1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void digitAtLengthShouldThrowException() {
+        PackedGtin.digitAt(PackedGtin.pack("73513537"), 8);
+    }
+
+    @Test
+    public void getCharsShouldWriteDigitsAtOffset() {
+        char[] chars = "[--------]".toCharArray();
+
+        int length = PackedGtin.getChars(PackedGtin.pack("03485736"), chars, 1);
+
+        assertEquals(8, length);
+        assertEquals("[03485736]", new String(chars));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getCharsPastEndShouldThrowException() {
+        PackedGtin.getChars(PackedGtin.pack("03485736"), new char[10], 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getCharsNegativeOffsetShouldThrowException() {
+        PackedGtin.getChars(PackedGtin.pack("03485736"), new char[10], -1);
+    }
+
+    @Test
+    public void appendToShouldAppendDigits() {
+        StringBuilder builder = new StringBuilder("gtin=");
+
+        PackedGtin.appendTo(PackedGtin.pack("0234248273487"), builder);
+
+        assertEquals("gtin=0234248273487", builder.toString());
+    }
+
+    @Test
+    public void tryPackShouldReturnInvalidForInvalidGtin() {
+        byte[] bytes = "4006381333932".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(PackedGtin.pack("4006381333931"), PackedGtin.tryPack("4006381333931"));
+        assertEquals(PackedGtin.INVALID, PackedGtin.tryPack("4006381333932"));
+        assertEquals(PackedGtin.INVALID, PackedGtin.tryPack("400638133393"));
+        assertEquals(PackedGtin.INVALID, PackedGtin.tryPack(bytes, 0, 13));
+        assertEquals(PackedGtin.INVALID, PackedGtin.tryPack(bytes, 0, 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tryPackNullShouldThrowException() {
+        PackedGtin.tryPack(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tryPackNullBytesShouldThrowException() {
+        PackedGtin.tryPack(null, 0, 8);
+    }
+
+}
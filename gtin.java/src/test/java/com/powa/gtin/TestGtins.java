@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+/**
+ * Valid GTINs of every format for tests.
+ */
+final class TestGtins {
+
+    private static final long[] POWERS_OF_TEN = new long[GtinFormat.GTIN_14.length()];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // Prevent instantiation
+    private TestGtins() {
+    }
+
+    /**
+     * @return the given number of random packed GTINs, in random formats and possibly repeated.
+     */
+    static long[] random(final Random random, final int count) {
+        long[] packed = new long[count];
+        GtinFormat[] formats = GtinFormat.values();
+        for (int i = 0; i < count; i++) {
+            int digits = formats[random.nextInt(formats.length)].length() - 1;
+            String gtin = String.format("%0" + digits + "d", Math.floorMod(random.nextLong(), POWERS_OF_TEN[digits]));
+            packed[i] = PackedGtin.pack(Gtin.withCheckDigit(gtin));
+        }
+        return packed;
+    }
+
+    /**
+     * @return the first packed GTINs of the format starting with the prefix, in ascending order.
+     */
+    static long[] withPrefix(final String prefix, final GtinFormat format, final int count) {
+        long[] packed = new long[count];
+        PrimitiveIterator.OfLong range = GtinRange.forPrefix(prefix, format).iterator();
+        for (int i = 0; i < count; i++) {
+            packed[i] = range.nextLong();
+        }
+        return packed;
+    }
+
+    /**
+     * @return the packed GTINs as strings.
+     */
+    static List<String> strings(final long[] packed) {
+        List<String> gtins = new ArrayList<String>(packed.length);
+        for (long gtin : packed) {
+            gtins.add(PackedGtin.toString(gtin));
+        }
+        return gtins;
+    }
+
+}
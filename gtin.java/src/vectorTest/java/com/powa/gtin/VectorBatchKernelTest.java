@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VectorBatchKernelTest {
+
+    @Test
+    public void vectorKernelShouldBeLoaded() {
+        assertTrue(GtinBatch.loadKernel() instanceof VectorBatchKernel);
+    }
+
+    @Test
+    public void vectorKernelShouldMatchScalarKernel() {
+        Random random = new Random(42);
+        GtinBatchKernel vector = new VectorBatchKernel();
+        GtinBatchKernel scalar = new ScalarBatchKernel();
+
+        for (GtinFormat format : GtinFormat.values()) {
+            for (int stride = format.length(); stride <= format.length() + 2; stride++) {
+                StringBuilder builder = new StringBuilder();
+                int count = 203;
+                for (int i = 0; i < count; i++) {
+                    StringBuilder record = new StringBuilder(Gtin.withCheckDigit(
+                            String.format("%0" + (format.length() - 1) + "d", random.nextInt(1000000))));
+                    switch (random.nextInt(4)) {
+                        case 0:
+                            record.setCharAt(random.nextInt(format.length()), (char) ('0' + random.nextInt(10)));
+                            break;
+                        case 1:
+                            record.setCharAt(random.nextInt(format.length()), "/:a\u00ff".charAt(random.nextInt(4)));
+                            break;
+                        default:
+                            break;
+                    }
+                    while (record.length() < stride) {
+                        record.append('\n');
+                    }
+                    builder.append(record);
+                }
+                byte[] data = builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+
+                assertArrayEquals(GtinBatch.validate(scalar, data, 0, stride, count, format),
+                        GtinBatch.validate(vector, data, 0, stride, count, format));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin.service;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a GTIN service with concurrent clients and reports throughput and latency percentiles.
+ *
+ * <p>Options, all optional: {@code --url=http://host:port} to test a running service instead of
+ * one started in this JVM, {@code --concurrency=64} clients, {@code --seconds=10} to measure
+ * after {@code --warmup=2} seconds, and {@code --batch=0} GTINs per batch request, 0 for single
+ * GTIN requests.
+ */
+public final class GtinLoadTest {
+
+    private static final String[] GTINS = {
+        "734092309436", "4006381333931", "73513537", "00012345678905", "734092309432", "73409230943a",
+    };
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double PERCENTILE_50 = 0.5;
+    private static final double PERCENTILE_99 = 0.99;
+    private static final int INITIAL_SAMPLES = 1 << 16;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String url;
+    private final int batch;
+    private final HttpRequest batchRequest;
+
+    private GtinLoadTest(final String url, final int batch) {
+        this.url = url;
+        this.batch = batch;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < batch; i++) {
+            body.append(GTINS[i % GTINS.length]).append('\n');
+        }
+        batchRequest = HttpRequest.newBuilder(URI.create(url + "/valid"))
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+    }
+
+    /**
+     * The latencies and errors of one client.
+     */
+    private static final class Samples {
+        private long[] latencies = new long[INITIAL_SAMPLES];
+        private int count;
+        private int errors;
+
+        void add(final long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+    }
+
+    private Samples run(final int client, final long start, final long end) {
+        Samples samples = new Samples();
+        HttpRequest[] requests = new HttpRequest[GTINS.length];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = HttpRequest.newBuilder(URI.create(url + "/valid/" + GTINS[i])).build();
+        }
+        for (int i = client; System.nanoTime() < end; i++) {
+            HttpRequest request = batch > 0 ? batchRequest : requests[i % requests.length];
+            long sent = System.nanoTime();
+            boolean ok = send(request);
+            if (sent >= start) {
+                if (ok) {
+                    samples.add(System.nanoTime() - sent);
+                } else {
+                    samples.errors++;
+                }
+            }
+        }
+        return samples;
+    }
+
+    private boolean send(final HttpRequest request) {
+        try {
+            return this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (final IOException e) {
+            return false;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String option(final String[] args, final String name, final String defaultValue) {
+        String prefix = "--" + name + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return defaultValue;
+    }
+
+    private static double millis(final long[] latencies, final int count, final double percentile) {
+        return count == 0 ? 0 : latencies[(int) Math.min(count - 1, (long) (count * percentile))] / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args the options.
+     * @throws Exception if a client fails unexpectedly.
+     */
+    public static void main(final String[] args) throws Exception {
+        int concurrency = Integer.parseInt(option(args, "concurrency", "64"));
+        int seconds = Integer.parseInt(option(args, "seconds", "10"));
+        int warmup = Integer.parseInt(option(args, "warmup", "2"));
+        int batch = Integer.parseInt(option(args, "batch", "0"));
+        String url = option(args, "url", null);
+        GtinService service = null;
+        if (url == null) {
+            service = GtinService.start(new InetSocketAddress("localhost", 0));
+            url = "http://localhost:" + service.address().getPort();
+        }
+
+        GtinLoadTest test = new GtinLoadTest(url, batch);
+        long start = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = GtinService.newExecutor();
+        List<Future<Samples>> clients = new ArrayList<Future<Samples>>();
+        for (int i = 0; i < concurrency; i++) {
+            final int client = i;
+            clients.add(executor.submit(() -> test.run(client, start, end)));
+        }
+
+        long[] latencies = new long[0];
+        int count = 0;
+        int errors = 0;
+        for (Future<Samples> client : clients) {
+            Samples samples = client.get();
+            latencies = Arrays.copyOf(latencies, count + samples.count);
+            System.arraycopy(samples.latencies, 0, latencies, count, samples.count);
+            count += samples.count;
+            errors += samples.errors;
+        }
+        executor.shutdown();
+        if (service != null) {
+            service.close();
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%s, %d clients on %s threads, %s%n", url, concurrency,
+                GtinService.isVirtual() ? "virtual" : "platform",
+                batch > 0 ? batch + " GTINs per request" : "one GTIN per request");
+        System.out.printf("requests/s %.0f, GTINs/s %.0f, errors %d%n", (double) count / seconds,
+                (double) count * Math.max(batch, 1) / seconds, errors);
+        System.out.printf("latency ms p50 %.3f, p99 %.3f, max %.3f%n", millis(latencies, count, PERCENTILE_50),
+                millis(latencies, count, PERCENTILE_99), millis(latencies, count, 1));
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin.service;
+
+import com.powa.gtin.Gtin;
+import com.powa.gtin.GtinCheck;
+import com.powa.gtin.GtinFormat;
+import com.powa.gtin.GtinFormatException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The operations of the GTIN service, each answering one GTIN with one line of ASCII text.
+ */
+enum GtinEndpoint {
+
+    /**
+     * Answers {@code true} for a valid GTIN, {@code false} otherwise.
+     */
+    VALID("/valid") {
+        @Override
+        boolean answer(final byte[] gtin, final int length, final OutputStream out) throws IOException {
+            out.write(Gtin.isValid(gtin, 0, length) ? TRUE : FALSE);
+            return true;
+        }
+    },
+
+    /**
+     * Answers the GTIN completed with its check digit, or the reason why it is not a GTIN
+     * without a check digit, such as {@code BAD_LENGTH}.
+     */
+    CHECK_DIGIT("/check-digit") {
+        @Override
+        boolean answer(final byte[] gtin, final int length, final OutputStream out) throws IOException {
+            try {
+                int checkDigit = Gtin.calculateCheckDigit(gtin, 0, length);
+                out.write(gtin, 0, length);
+                out.write('0' + checkDigit);
+                return true;
+            } catch (final GtinFormatException e) {
+                out.write(CHECKS[e.getReason().ordinal()]);
+                return false;
+            }
+        }
+    },
+
+    /**
+     * Answers the format of a valid GTIN, such as {@code GTIN_13}, or the reason why it is not
+     * valid, such as {@code BAD_CHECKSUM}.
+     */
+    FORMAT("/format") {
+        @Override
+        boolean answer(final byte[] gtin, final int length, final OutputStream out) throws IOException {
+            if (Gtin.isValid(gtin, 0, length)) {
+                out.write(FORMATS[GtinFormat.forLength(length).ordinal()]);
+                return true;
+            }
+            out.write(CHECKS[Gtin.check(new String(gtin, 0, length, StandardCharsets.US_ASCII)).ordinal()]);
+            return false;
+        }
+    };
+
+    /**
+     * The longest input passed to an endpoint, longer lines are cut, which keeps them invalid.
+     */
+    static final int MAX_LENGTH = 64;
+
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[][] CHECKS = names(GtinCheck.values());
+    private static final byte[][] FORMATS = names(GtinFormat.values());
+
+    private final String path;
+
+    GtinEndpoint(final String path) {
+        this.path = path;
+    }
+
+    private static byte[] ascii(final String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[][] names(final Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (Enum<?> value : values) {
+            names[value.ordinal()] = ascii(value.name());
+        }
+        return names;
+    }
+
+    /**
+     * @return the path of the endpoint, followed by a GTIN for a single GTIN or nothing for a
+     * batch of GTINs.
+     */
+    String path() {
+        return path;
+    }
+
+    /**
+     * Writes the answer for one GTIN, without a line break.
+     *
+     * @param gtin the array holding the ASCII characters of the GTIN from index 0.
+     * @param length the number of characters, at most {@link #MAX_LENGTH}.
+     * @param out the stream to write the answer to.
+     * @return {@code true} if the input was answered, {@code false} if it was rejected.
+     * @throws IOException if the answer cannot be written.
+     */
+    abstract boolean answer(byte[] gtin, int length, OutputStream out) throws IOException;
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves one endpoint: a GET of the endpoint path followed by a GTIN answers that GTIN, a POST
+ * to the endpoint path answers a body of GTINs, one per line, with one line per GTIN. Batches
+ * are streamed, the answers are sent while the request body is read, in constant memory.
+ */
+final class GtinHandler implements HttpHandler {
+
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int CHUNKED = 0;
+    private static final int NO_BODY = -1;
+    private static final int BUFFER_SIZE = 65536;
+    private static final String CONTENT_TYPE = "text/plain; charset=US-ASCII";
+
+    private final GtinEndpoint endpoint;
+
+    GtinHandler(final GtinEndpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String rest = exchange.getRequestURI().getPath().substring(endpoint.path().length());
+            if (rest.isEmpty()) {
+                if ("POST".equals(method)) {
+                    answerBatch(exchange);
+                } else {
+                    reject(exchange, METHOD_NOT_ALLOWED, "POST");
+                }
+            } else if (rest.charAt(0) == '/' && rest.indexOf('/', 1) < 0) {
+                if ("GET".equals(method)) {
+                    answerSingle(exchange, rest.substring(1));
+                } else {
+                    reject(exchange, METHOD_NOT_ALLOWED, "GET");
+                }
+            } else {
+                reject(exchange, NOT_FOUND, null);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void answerSingle(final HttpExchange exchange, final String gtin) throws IOException {
+        byte[] input = gtin.getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream answer = new ByteArrayOutputStream();
+        boolean answered = endpoint.answer(input, Math.min(input.length, GtinEndpoint.MAX_LENGTH), answer);
+        answer.write('\n');
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(answered ? OK : BAD_REQUEST, answer.size());
+        answer.writeTo(exchange.getResponseBody());
+    }
+
+    private void answerBatch(final HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(OK, CHUNKED);
+        OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), BUFFER_SIZE);
+        answerLines(exchange.getRequestBody(), out);
+        out.flush();
+    }
+
+    /**
+     * Answers every line of the input, which may end with a line feed or a carriage return and a
+     * line feed. Characters of a line after {@link GtinEndpoint#MAX_LENGTH} are dropped.
+     */
+    void answerLines(final InputStream in, final OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] line = new byte[GtinEndpoint.MAX_LENGTH];
+        int length = 0;
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                if (b == '\n') {
+                    answerLine(line, length, out);
+                    length = 0;
+                } else {
+                    if (length < line.length) {
+                        line[length] = b;
+                    }
+                    length++;
+                }
+            }
+        }
+        if (length > 0) {
+            answerLine(line, length, out);
+        }
+    }
+
+    private void answerLine(final byte[] line, final int length, final OutputStream out) throws IOException {
+        int end = Math.min(length, line.length);
+        if (end > 0 && end == length && line[end - 1] == '\r') {
+            end--;
+        }
+        endpoint.answer(line, end, out);
+        out.write('\n');
+    }
+
+    private static void reject(final HttpExchange exchange, final int status, final String allow) throws IOException {
+        if (allow != null) {
+            exchange.getResponseHeaders().set("Allow", allow);
+        }
+        exchange.sendResponseHeaders(status, NO_BODY);
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin.service;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP service validating and completing GTINs with gtin.java, for clients on other platforms,
+ * served by the HTTP server built into the JDK. Each endpoint answers a single GTIN in the path
+ * of a GET request, or a batch of GTINs, one per line, in the body of a POST request:
+ * <ul>
+ * <li>{@code /valid} answers {@code true} or {@code false},</li>
+ * <li>{@code /check-digit} answers the GTIN completed with its check digit,</li>
+ * <li>{@code /format} answers the format of a valid GTIN, such as {@code GTIN_13}.</li>
+ * </ul>
+ * Input which is rejected is answered with the reason, such as {@code BAD_CHECKSUM}, and the
+ * status 400 for a single GTIN.
+ * <p>
+ * Requests are handled on a virtual thread each on Java 21 or later, and on a new or reused
+ * platform thread each otherwise.
+ */
+@SuppressWarnings("checkstyle:uncommentedmain")
+public final class GtinService implements Closeable {
+
+    /**
+     * The port the service listens on if none is given to {@link #main(String[])}.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final String VIRTUAL_EXECUTOR = "newVirtualThreadPerTaskExecutor";
+    private static final String STACKLESS_PROPERTY = "com.powa.gtin.stacklessExceptions";
+    private static final int BACKLOG = 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private GtinService(final HttpServer server, final ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the service.
+     *
+     * @param address the address to listen on, with port 0 for any free port.
+     * @return the running service.
+     * @throws IOException if the server cannot listen on the address.
+     */
+    public static GtinService start(final InetSocketAddress address) throws IOException {
+        HttpServer server = HttpServer.create(address, BACKLOG);
+        for (GtinEndpoint endpoint : GtinEndpoint.values()) {
+            server.createContext(endpoint.path(), new GtinHandler(endpoint));
+        }
+        ExecutorService executor = newExecutor();
+        server.setExecutor(executor);
+        server.start();
+        return new GtinService(server, executor);
+    }
+
+    /**
+     * Creates an executor running each task on a new virtual thread if the JVM supports them,
+     * or on a new or idle platform thread otherwise.
+     */
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod(VIRTUAL_EXECUTOR).invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            // Virtual threads need Java 21
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * @return {@code true} if requests are handled on virtual threads, {@code false} otherwise.
+     */
+    public static boolean isVirtual() {
+        try {
+            Executors.class.getMethod(VIRTUAL_EXECUTOR);
+            return true;
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the address the service listens on.
+     */
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops the service, closing open connections.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * Runs the service until the JVM is stopped. Rejected GTINs are expected, so
+     * {@code GtinFormatException} skips its stack trace unless the system property
+     * {@code com.powa.gtin.stacklessExceptions} says otherwise.
+     *
+     * @param args the port to listen on, {@value #DEFAULT_PORT} if not given.
+     * @throws IOException if the server cannot listen on the port.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (System.getProperty(STACKLESS_PROPERTY) == null) {
+            System.setProperty(STACKLESS_PROPERTY, "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GtinService service = start(new InetSocketAddress(port));
+        System.out.printf("GTIN service listening on %s with %s threads%n", service.address(),
+                isVirtual() ? "virtual" : "platform");
+    }
+
+}
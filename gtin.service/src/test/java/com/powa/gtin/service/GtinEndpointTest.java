@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin.service;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class GtinEndpointTest {
+
+    private static String answer(final GtinEndpoint endpoint, final String gtin, final boolean answered)
+            throws IOException {
+        byte[] input = gtin.getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(answered, endpoint.answer(input, input.length, out));
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void validShouldAnswerTrueOrFalse() throws IOException {
+        assertEquals("true", answer(GtinEndpoint.VALID, "734092309436", true));
+        assertEquals("false", answer(GtinEndpoint.VALID, "734092309432", true));
+        assertEquals("false", answer(GtinEndpoint.VALID, "", true));
+    }
+
+    @Test
+    public void checkDigitShouldCompleteGtin() throws IOException {
+        assertEquals("734092309436", answer(GtinEndpoint.CHECK_DIGIT, "73409230943", true));
+        assertEquals("73513537", answer(GtinEndpoint.CHECK_DIGIT, "7351353", true));
+    }
+
+    @Test
+    public void checkDigitShouldAnswerReasonForInvalidInput() throws IOException {
+        assertEquals("BAD_LENGTH", answer(GtinEndpoint.CHECK_DIGIT, "1234", false));
+        assertEquals("NON_DIGIT", answer(GtinEndpoint.CHECK_DIGIT, "7340923094a", false));
+    }
+
+    @Test
+    public void formatShouldNameFormatOfValidGtin() throws IOException {
+        assertEquals("GTIN_8", answer(GtinEndpoint.FORMAT, "73513537", true));
+        assertEquals("GTIN_12", answer(GtinEndpoint.FORMAT, "734092309436", true));
+        assertEquals("GTIN_13", answer(GtinEndpoint.FORMAT, "4006381333931", true));
+        assertEquals("GTIN_14", answer(GtinEndpoint.FORMAT, "00012345678905", true));
+    }
+
+    @Test
+    public void formatShouldAnswerReasonForInvalidGtin() throws IOException {
+        assertEquals("BAD_CHECKSUM", answer(GtinEndpoint.FORMAT, "734092309432", false));
+        assertEquals("NON_DIGIT", answer(GtinEndpoint.FORMAT, "73409230943a", false));
+        assertEquals("BAD_LENGTH", answer(GtinEndpoint.FORMAT, "1234", false));
+    }
+
+    @Test
+    public void pathsShouldBeDistinct() {
+        assertEquals("/valid", GtinEndpoint.VALID.path());
+        assertEquals("/check-digit", GtinEndpoint.CHECK_DIGIT.path());
+        assertEquals("/format", GtinEndpoint.FORMAT.path());
+        // The server matches contexts by prefix, so one path must not start with another
+        for (GtinEndpoint endpoint : GtinEndpoint.values()) {
+            for (GtinEndpoint other : GtinEndpoint.values()) {
+                if (endpoint != other) {
+                    assertFalse(other.path(), other.path().startsWith(endpoint.path()));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin.service;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class GtinHandlerTest {
+
+    private static String answerLines(final GtinEndpoint endpoint, final String input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new GtinHandler(endpoint).answerLines(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)),
+                out);
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void everyLineShouldBeAnswered() throws IOException {
+        assertEquals("true\nfalse\nfalse\n", answerLines(GtinEndpoint.VALID, "734092309436\n734092309432\n\n"));
+    }
+
+    @Test
+    public void lastLineShouldBeAnsweredWithoutLineFeed() throws IOException {
+        assertEquals("734092309436\n73513537\n", answerLines(GtinEndpoint.CHECK_DIGIT, "73409230943\n7351353"));
+    }
+
+    @Test
+    public void carriageReturnShouldEndLine() throws IOException {
+        assertEquals("GTIN_12\nGTIN_8\n", answerLines(GtinEndpoint.FORMAT, "734092309436\r\n73513537\r\n"));
+    }
+
+    @Test
+    public void emptyInputShouldHaveNoAnswer() throws IOException {
+        assertEquals("", answerLines(GtinEndpoint.VALID, ""));
+    }
+
+    @Test
+    public void longLineShouldBeRejected() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            input.append("7340923094");
+        }
+        input.append("\r\n734092309436\n");
+
+        assertEquals("BAD_LENGTH\nGTIN_12\n", answerLines(GtinEndpoint.FORMAT, input.toString()));
+    }
+
+    @Test
+    public void linesShouldBeAnsweredAcrossBuffers() throws IOException {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            input.append(i % 2 == 0 ? "4006381333931\n" : "400638133393\n");
+            expected.append(i % 2 == 0 ? "true\n" : "false\n");
+        }
+
+        assertEquals(expected.toString(), answerLines(GtinEndpoint.VALID, input.toString()));
+    }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2015 Powa Technologies Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.powa.gtin.service;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.Assert.assertEquals;
+
+public class GtinServiceTest {
+
+    private static GtinService service;
+    private static HttpClient client;
+    private static String base;
+
+    @BeforeClass
+    public static void start() throws IOException {
+        service = GtinService.start(new InetSocketAddress("localhost", 0));
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        base = "http://localhost:" + service.address().getPort();
+    }
+
+    @AfterClass
+    public static void stop() {
+        service.close();
+    }
+
+    private static HttpResponse<String> get(final String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(base + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> post(final String path, final String body)
+            throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(base + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void assertResponse(final int status, final String body, final HttpResponse<String> response) {
+        assertEquals(status, response.statusCode());
+        assertEquals(body, response.body());
+    }
+
+    @Test
+    public void validShouldAnswerSingleGtin() throws IOException, InterruptedException {
+        assertResponse(200, "true\n", get("/valid/734092309436"));
+        assertResponse(200, "false\n", get("/valid/734092309432"));
+        assertEquals("text/plain; charset=US-ASCII",
+                get("/valid/734092309436").headers().firstValue("Content-Type").get());
+    }
+
+    @Test
+    public void checkDigitShouldAnswerSingleGtin() throws IOException, InterruptedException {
+        assertResponse(200, "734092309436\n", get("/check-digit/73409230943"));
+        assertResponse(400, "NON_DIGIT\n", get("/check-digit/7340923094a"));
+    }
+
+    @Test
+    public void formatShouldAnswerSingleGtin() throws IOException, InterruptedException {
+        assertResponse(200, "GTIN_12\n", get("/format/734092309436"));
+        assertResponse(400, "BAD_CHECKSUM\n", get("/format/734092309432"));
+    }
+
+    @Test
+    public void batchShouldAnswerEveryLine() throws IOException, InterruptedException {
+        assertResponse(200, "true\nfalse\nfalse\ntrue\n",
+                post("/valid", "734092309436\r\n734092309432\n\n4006381333931"));
+        assertResponse(200, "GTIN_13\nBAD_LENGTH\n",
+                post("/format", "4006381333931\n12345678901234567890123456789012345678901234567890123456789012345678\n"));
+    }
+
+    @Test
+    public void emptyBatchShouldHaveNoAnswer() throws IOException, InterruptedException {
+        assertResponse(200, "", post("/check-digit", ""));
+    }
+
+    @Test
+    public void largeBatchShouldBeStreamed() throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            body.append("4006381333931\n");
+            expected.append("GTIN_13\n");
+        }
+
+        assertResponse(200, expected.toString(), post("/format", body.toString()));
+    }
+
+    @Test
+    public void wrongMethodShouldNotBeAllowed() throws IOException, InterruptedException {
+        HttpResponse<String> batch = get("/valid");
+        assertEquals(405, batch.statusCode());
+        assertEquals("POST", batch.headers().firstValue("Allow").get());
+
+        HttpResponse<String> single = post("/valid/734092309436", "");
+        assertEquals(405, single.statusCode());
+        assertEquals("GET", single.headers().firstValue("Allow").get());
+    }
+
+    @Test
+    public void unknownPathShouldNotBeFound() throws IOException, InterruptedException {
+        assertEquals(404, get("/validx").statusCode());
+        assertEquals(404, get("/valid/734092309436/1").statusCode());
+        assertEquals(404, get("/unknown").statusCode());
+    }
+
+}